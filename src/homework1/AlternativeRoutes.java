@@ -0,0 +1,440 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An AlternativeRoutes finds several short routes between two points of a
+ * RoadGraph that are sufficiently different from each other, to be offered
+ * to a user as alternatives.
+ * <p>
+ * The routes are found with Yen's algorithm, which lists the loopless
+ * routes between two points in order of length. Every route listed after
+ * the first one branches off a route listed before it: for every node of
+ * the last route listed, a spur search finds the shortest route from that
+ * node to the destination that leaves the common beginning of the routes
+ * listed so far. The spur searches of a route are independent, so they run
+ * in parallel on a fork/join pool supplied by the caller, which may be
+ * shared by many AlternativeRoutes; every thread of the pool reuses its own
+ * working arrays from one query to the next. They are A* searches whose
+ * heuristic is
+ * the exact distance to the destination, read from a single shortest-path
+ * tree grown from the destination, which is shared by all spur searches.
+ * <p>
+ * A route listed by Yen's algorithm is returned only if at least a given
+ * fraction of its length, its dissimilarity, is not shared with any route
+ * returned before it. The search lists at most MAX_PATHS_PER_ROUTE routes
+ * per requested route.
+ * <p>
+ * An AlternativeRoutes is mutable and not thread-safe; concurrent queries
+ * should use an AlternativeRoutes per thread over a shared RoadGraph.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph             // the graph searched
+ *   minDissimilarity : real       // minimal fraction of a returned route not shared with a shorter returned route
+ *   pool : ForkJoinPool           // the pool running spur searches
+ *   examined : integer            // number of routes listed by the last query
+ *   spurSearches : integer        // number of spur searches run by the last query
+ * </pre>
+ */
+public class AlternativeRoutes {
+
+	/**
+	 * The maximal number of routes listed by Yen's algorithm per route
+	 * requested.
+	 */
+	public static final int MAX_PATHS_PER_ROUTE = 50;
+
+	// The number of spur searches run by a single task
+	private static final int GRAIN = 4;
+
+	private final RoadGraph graph_;
+	private final double minDissimilarity_;
+	private final ShortestPathTree tree_;
+	private final ForkJoinPool pool_;
+	private final ThreadLocal<SpurSearch> searches_;
+	private int examinedCount_;
+	private int spurSearchCount_;
+
+
+	// Abstraction Function:
+	// graph = graph_, minDissimilarity = minDissimilarity_,
+	// pool = pool_, examined = examinedCount_,
+	// spurSearches = spurSearchCount_.
+	// tree_ is the shortest-path tree of the destination of the last query.
+	// The threads of pool_ keep their working arrays in searches_ from one
+	// query to the next, for as long as the threads and this object live.
+
+	// Representation invariant for every AlternativeRoutes a:
+	// 0 <= minDissimilarity_ <= 1 && pool_ != null
+
+
+	/**
+	 * Constructs a new AlternativeRoutes that runs spur searches on the
+	 * common pool.
+	 * @requires graph != null
+	 * @effects Constructs a new AlternativeRoutes of graph with the given
+	 * 			minDissimilarity and pool ForkJoinPool.commonPool().
+	 * @throws IllegalArgumentException if minDissimilarity is not in [0, 1]
+	 */
+	public AlternativeRoutes(RoadGraph graph, double minDissimilarity) {
+		this(graph, minDissimilarity, ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * Constructs a new AlternativeRoutes. The pool is used, not owned: it
+	 * is never shut down by the AlternativeRoutes.
+	 * @requires graph != null && pool != null
+	 * @effects Constructs a new AlternativeRoutes of graph with the given
+	 * 			minDissimilarity and pool.
+	 * @throws IllegalArgumentException if minDissimilarity is not in [0, 1]
+	 */
+	public AlternativeRoutes(RoadGraph graph, double minDissimilarity, ForkJoinPool pool) {
+		if (!(minDissimilarity >= 0 && minDissimilarity <= 1)) {
+			throw new IllegalArgumentException("Dissimilarity must be between 0 and 1: " + minDissimilarity);
+		}
+		graph_ = graph;
+		minDissimilarity_ = minDissimilarity;
+		tree_ = new ShortestPathTree(graph);
+		pool_ = pool;
+		searches_ = ThreadLocal.withInitial(() -> new SpurSearch(graph_, tree_));
+		checkRep();
+	}
+
+
+	/**
+	 * Finds up to k alternative routes between two points.
+	 * @requires from != null && to != null
+	 * @modifies this
+	 * @effects sets this.examined and this.spurSearches to the work done
+	 * 			by the query.
+	 * @return the shortest loopless routes of this.graph from from to to,
+	 * 		   in order of length, omitting every route that shares more
+	 * 		   than 1 - this.minDissimilarity of its length with a shorter
+	 * 		   route returned, up to k routes. The list is empty if from or to
+	 * 		   is not a node of this.graph, if from = to, or if there is no
+	 * 		   route between them. The first route is a shortest route.
+	 * @throws IllegalArgumentException if k < 1
+	 */
+	public List<Route> findRoutes(GeoPoint from, GeoPoint to, int k) {
+		checkRep();
+		if (k < 1) {
+			throw new IllegalArgumentException("Number of routes must be positive.");
+		}
+		examinedCount_ = 0;
+		spurSearchCount_ = 0;
+		List<Route> routes = new ArrayList<>();
+		int source = graph_.nodeOf(from);
+		int target = graph_.nodeOf(to);
+		if (source < 0 || target < 0 || source == target) {
+			return routes;
+		}
+		tree_.grow(target);
+		if (tree_.distance(source) == Double.POSITIVE_INFINITY) {
+			return routes;
+		}
+
+		// The shortest route is read from the tree of the destination
+		int count = 0;
+		for (int u = source; u != target; u = graph_.target(graph_.twin(tree_.parentEdge(u)))) {
+			count++;
+		}
+		int[] shortest = new int[count];
+		int u = source;
+		for (int i = 0; i < count; i++) {
+			shortest[i] = graph_.twin(tree_.parentEdge(u));
+			u = graph_.target(shortest[i]);
+		}
+
+		List<Path> listed = new ArrayList<>();
+		List<int[]> accepted = new ArrayList<>();
+		PriorityQueue<Path> candidates = new PriorityQueue<>();
+		Set<Path> seen = new HashSet<>();
+		Path path = new Path(graph_, shortest);
+		seen.add(path);
+		while (true) {
+			listed.add(path);
+			examinedCount_++;
+			if (accept(path, accepted)) {
+				routes.add(graph_.buildRoute(path.edges_, path.edges_.length));
+			}
+			if (routes.size() == k || listed.size() == k * MAX_PATHS_PER_ROUTE) {
+				break;
+			}
+			Path[] spurs = new Path[path.edges_.length];
+			pool_.invoke(new SpurTask(searches_, source, target, path, listed, spurs, 0, spurs.length));
+			spurSearchCount_ += spurs.length;
+			// Candidates are merged in a fixed order, so that the result
+			// does not depend on the order the searches finished in
+			for (Path spur : spurs) {
+				if (spur != null && seen.add(spur)) {
+					candidates.add(spur);
+				}
+			}
+			if (candidates.isEmpty()) {
+				break;
+			}
+			path = candidates.poll();
+		}
+		checkRep();
+		return routes;
+	}
+
+
+	/**
+	 * Returns the graph searched.
+	 * @return this.graph
+	 */
+	public RoadGraph getGraph() {
+		return graph_;
+	}
+
+
+	/**
+	 * Returns the minimal dissimilarity of the routes returned.
+	 * @return this.minDissimilarity
+	 */
+	public double getMinDissimilarity() {
+		return minDissimilarity_;
+	}
+
+
+	/**
+	 * Returns the number of routes listed by the last query, including
+	 * those that were not returned for being too similar.
+	 * @return this.examined
+	 */
+	public int getExaminedCount() {
+		return examinedCount_;
+	}
+
+
+	/**
+	 * Returns the number of spur searches run by the last query.
+	 * @return this.spurSearches
+	 */
+	public int getSpurSearchCount() {
+		return spurSearchCount_;
+	}
+
+
+	/**
+	 * Returns whether a path is dissimilar enough from the routes accepted
+	 * so far, and if so, adds its segments to them.
+	 */
+	private boolean accept(Path path, List<int[]> accepted) {
+		int[] segments = new int[path.edges_.length];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = graph_.segmentIndex(path.edges_[i]);
+		}
+		double maxShared = (1 - minDissimilarity_) * path.length_;
+		for (int[] other : accepted) {
+			double shared = 0;
+			for (int i = 0; i < segments.length; i++) {
+				if (Arrays.binarySearch(other, segments[i]) >= 0) {
+					shared += graph_.length(path.edges_[i]);
+				}
+			}
+			if (shared > maxShared) {
+				return false;
+			}
+		}
+		Arrays.sort(segments);
+		accepted.add(segments);
+		return true;
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (minDissimilarity_ >= 0 && minDissimilarity_ <= 1) :
+			"Wrong dissimilarity.";
+		assert (pool_ != null) :
+			"Missing pool.";
+	}
+
+
+	/**
+	 * A path of the graph, as a sequence of edges, with its length. Paths
+	 * are ordered by length, and then by their edges.
+	 */
+	private static final class Path implements Comparable<Path> {
+
+		private final int[] edges_;
+		private final double length_;
+
+		Path(RoadGraph graph, int[] edges) {
+			edges_ = edges;
+			double length = 0;
+			for (int e : edges) {
+				length += graph.length(e);
+			}
+			length_ = length;
+		}
+
+		public int compareTo(Path path) {
+			int byLength = Double.compare(length_, path.length_);
+			return (byLength != 0) ? byLength : Arrays.compare(edges_, path.edges_);
+		}
+
+		public boolean equals(Object o) {
+			return (o instanceof Path) && Arrays.equals(edges_, ((Path) o).edges_);
+		}
+
+		public int hashCode() {
+			return Arrays.hashCode(edges_);
+		}
+	}
+
+
+	/**
+	 * The working arrays of the spur searches of one thread.
+	 */
+	private static final class SpurSearch {
+
+		private final RoadGraph graph_;
+		private final ShortestPathTree tree_;
+		private final NodeHeap heap_;
+		private final double[] distances_;
+		private final int[] parentEdges_;
+		private final int[] reached_;
+		private final int[] blockedNodes_;
+		private final int[] blockedSegments_;
+		private int search_;
+
+		SpurSearch(RoadGraph graph, ShortestPathTree tree) {
+			graph_ = graph;
+			tree_ = tree;
+			int nodeCount = graph.getNodeCount();
+			heap_ = new NodeHeap(nodeCount);
+			distances_ = new double[nodeCount];
+			parentEdges_ = new int[nodeCount];
+			reached_ = new int[nodeCount];
+			blockedNodes_ = new int[nodeCount];
+			blockedSegments_ = new int[graph.getSegmentCount()];
+		}
+
+		/**
+		 * Finds the shortest path that follows the first i edges of path
+		 * and then leaves every listed path that begins the same way,
+		 * without passing a node of its beginning again.
+		 * @return the path, or null if there is none.
+		 */
+		Path spur(int source, int target, Path path, List<Path> listed, int i) {
+			if (++search_ == Integer.MAX_VALUE) {
+				Arrays.fill(reached_, 0);
+				Arrays.fill(blockedNodes_, 0);
+				Arrays.fill(blockedSegments_, 0);
+				search_ = 1;
+			}
+			int[] root = path.edges_;
+			int spurNode = source;
+			for (int j = 0; j < i; j++) {
+				blockedNodes_[spurNode] = search_;
+				spurNode = graph_.target(root[j]);
+			}
+			for (Path other : listed) {
+				if (other.edges_.length > i && Arrays.equals(other.edges_, 0, i, root, 0, i)) {
+					blockedSegments_[graph_.segmentIndex(other.edges_[i])] = search_;
+				}
+			}
+
+			// A* towards target, guided by the exact distances of the tree
+			reached_[spurNode] = search_;
+			distances_[spurNode] = 0;
+			parentEdges_[spurNode] = -1;
+			heap_.update(spurNode, tree_.distance(spurNode));
+			boolean found = false;
+			while (!heap_.isEmpty()) {
+				int u = heap_.poll();
+				if (u == target) {
+					found = true;
+					break;
+				}
+				double distance = distances_[u];
+				for (int e = graph_.firstEdge(u), end = graph_.endEdge(u); e < end; e++) {
+					int v = graph_.target(e);
+					if (blockedNodes_[v] == search_ || blockedSegments_[graph_.segmentIndex(e)] == search_) {
+						continue;
+					}
+					double candidate = distance + graph_.length(e);
+					if (reached_[v] != search_ || candidate < distances_[v]) {
+						reached_[v] = search_;
+						distances_[v] = candidate;
+						parentEdges_[v] = e;
+						heap_.update(v, candidate + tree_.distance(v));
+					}
+				}
+			}
+			heap_.clear();
+			if (!found) {
+				return null;
+			}
+			int count = i;
+			for (int u = target; u != spurNode; u = graph_.target(graph_.twin(parentEdges_[u]))) {
+				count++;
+			}
+			int[] edges = Arrays.copyOf(root, count);
+			for (int u = target; u != spurNode; u = graph_.target(graph_.twin(parentEdges_[u]))) {
+				edges[--count] = parentEdges_[u];
+			}
+			return new Path(graph_, edges);
+		}
+	}
+
+
+	/**
+	 * Runs the spur searches from..to-1 of a path, splitting the range in
+	 * halves until at most GRAIN searches are left.
+	 */
+	private static final class SpurTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ThreadLocal<SpurSearch> searches_;
+		private final int source_;
+		private final int target_;
+		private final Path path_;
+		private final List<Path> listed_;
+		private final Path[] spurs_;
+		private final int from_;
+		private final int to_;
+
+		SpurTask(ThreadLocal<SpurSearch> searches, int source, int target, Path path,
+				 List<Path> listed, Path[] spurs, int from, int to) {
+			searches_ = searches;
+			source_ = source;
+			target_ = target;
+			path_ = path;
+			listed_ = listed;
+			spurs_ = spurs;
+			from_ = from;
+			to_ = to;
+		}
+
+		protected void compute() {
+			if (to_ - from_ > GRAIN) {
+				int middle = (from_ + to_) >>> 1;
+				invokeAll(new SpurTask(searches_, source_, target_, path_, listed_, spurs_, from_, middle),
+						  new SpurTask(searches_, source_, target_, path_, listed_, spurs_, middle, to_));
+				return;
+			}
+			SpurSearch search = searches_.get();
+			for (int i = from_; i < to_; i++) {
+				spurs_[i] = search.spur(source_, target_, path_, listed_, i);
+			}
+		}
+	}
+
+}
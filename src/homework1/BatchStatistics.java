@@ -0,0 +1,178 @@
+package homework1;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A BatchStatistics accumulates throughput metrics of batch direction
+ * rendering, as done by <tt>RouteFormatter.computeDirectionsBatch</tt>.
+ * One BatchStatistics may be passed to several batches, and then holds
+ * their totals.
+ * <p>
+ * BatchStatistics is thread-safe: it is updated concurrently by the threads
+ * that render a batch, and may be read while a batch is running.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   routes : integer        // number of routes rendered
+ *   lines : integer         // number of lines of directions rendered
+ *   characters : integer    // number of characters of directions rendered
+ *   busyTime : integer      // total time spent rendering routes, over all threads, in nanoseconds
+ *   elapsedTime : integer   // total wall-clock time of the completed batches, in nanoseconds
+ * </pre>
+ */
+public final class BatchStatistics {
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private final LongAdder routes_ = new LongAdder();
+	private final LongAdder lines_ = new LongAdder();
+	private final LongAdder characters_ = new LongAdder();
+	private final LongAdder busyNanos_ = new LongAdder();
+	private final LongAdder elapsedNanos_ = new LongAdder();
+
+
+	// Abstraction Function:
+	// routes = routes_.sum(), lines = lines_.sum(), characters = characters_.sum(),
+	// busyTime = busyNanos_.sum(), elapsedTime = elapsedNanos_.sum().
+
+	// Representation invariant for every BatchStatistics s:
+	// all the sums are nonnegative
+
+
+	/**
+	 * Constructs a new BatchStatistics.
+	 * @effects Constructs a new BatchStatistics with all fields 0.
+	 */
+	public BatchStatistics() {
+	}
+
+
+	/**
+	 * Records the rendering of a single route.
+	 * @requires lines >= 0 && characters >= 0 && nanos >= 0
+	 * @modifies this
+	 * @effects increments this.routes, and adds lines, characters and
+	 * 			nanos to this.lines, this.characters and this.busyTime.
+	 */
+	void recordRoute(int lines, int characters, long nanos) {
+		routes_.increment();
+		lines_.add(lines);
+		characters_.add(characters);
+		busyNanos_.add(nanos);
+	}
+
+
+	/**
+	 * Records the completion of a batch.
+	 * @requires nanos >= 0
+	 * @modifies this
+	 * @effects adds nanos to this.elapsedTime.
+	 */
+	void recordBatch(long nanos) {
+		elapsedNanos_.add(nanos);
+	}
+
+
+	/**
+	 * Returns the number of routes rendered.
+	 * @return this.routes
+	 */
+	public long getRouteCount() {
+		return routes_.sum();
+	}
+
+
+	/**
+	 * Returns the number of lines of directions rendered.
+	 * @return this.lines
+	 */
+	public long getLineCount() {
+		return lines_.sum();
+	}
+
+
+	/**
+	 * Returns the number of characters of directions rendered.
+	 * @return this.characters
+	 */
+	public long getCharacterCount() {
+		return characters_.sum();
+	}
+
+
+	/**
+	 * Returns the total time spent rendering routes, summed over all
+	 * rendering threads.
+	 * @return this.busyTime, in nanoseconds
+	 */
+	public long getBusyNanos() {
+		return busyNanos_.sum();
+	}
+
+
+	/**
+	 * Returns the total wall-clock time of the completed batches.
+	 * @return this.elapsedTime, in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos_.sum();
+	}
+
+
+	/**
+	 * Returns the number of routes rendered per second of wall-clock time.
+	 * @return this.routes / this.elapsedTime, in routes per second, or 0 if
+	 * 		   this.elapsedTime = 0.
+	 */
+	public double getRoutesPerSecond() {
+		return perSecond(routes_.sum());
+	}
+
+
+	/**
+	 * Returns the number of lines rendered per second of wall-clock time.
+	 * @return this.lines / this.elapsedTime, in lines per second, or 0 if
+	 * 		   this.elapsedTime = 0.
+	 */
+	public double getLinesPerSecond() {
+		return perSecond(lines_.sum());
+	}
+
+
+	/**
+	 * Returns the number of characters rendered per second of wall-clock
+	 * time.
+	 * @return this.characters / this.elapsedTime, in characters per second,
+	 * 		   or 0 if this.elapsedTime = 0.
+	 */
+	public double getCharactersPerSecond() {
+		return perSecond(characters_.sum());
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 */
+	public String toString() {
+		StringBuilder statisticsString = FixedPointFormat.buffer();
+		statisticsString.append(getRouteCount()).append(" routes, ")
+						.append(getLineCount()).append(" lines, ")
+						.append(getCharacterCount()).append(" characters in ");
+		FixedPointFormat.appendHundredths(statisticsString, getElapsedNanos() / NANOS_PER_SECOND);
+		statisticsString.append(" s (");
+		FixedPointFormat.appendTenths(statisticsString, getRoutesPerSecond());
+		statisticsString.append(" routes/s)");
+		return statisticsString.toString();
+	}
+
+
+	/**
+	 * Returns a count per second of the elapsed time.
+	 */
+	private double perSecond(long count) {
+		long nanos = elapsedNanos_.sum();
+		return (nanos == 0) ? 0 : count * NANOS_PER_SECOND / nanos;
+	}
+
+}
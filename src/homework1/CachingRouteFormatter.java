@@ -0,0 +1,352 @@
+package homework1;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A CachingRouteFormatter decorates another RouteFormatter with a bounded
+ * cache of the directions it computed. Requesting the directions of a route
+ * that is equal to a recently requested route, with the same initial
+ * heading, returns the cached directions instead of formatting the route
+ * again.
+ * <p>
+ * Directions are cached by the content fingerprint of the route and the
+ * initial heading; each cache belongs to the single formatter it decorates.
+ * A cached entry is used only if its route equals the requested route, so
+ * fingerprint collisions never return wrong directions. When the cache is
+ * full, the least recently used entry is evicted.
+ * <p>
+ * Every method that gives the directions of a Route goes through the cache:
+ * computeDirections, computeDirectionsParallel, directionLines and both
+ * variants of computeDirectionsBatch. Single lines are passed on to the
+ * decorated formatter uncached.
+ * <p>
+ * CachingRouteFormatter is thread-safe if the decorated formatter is.
+ * Concurrent misses on the same route may format it more than once.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   formatter : RouteFormatter   // the decorated formatter
+ *   capacity : integer           // maximal number of cached directions
+ *   hits : integer               // number of requests answered from the cache
+ *   misses : integer             // number of requests that were formatted
+ *   evictions : integer          // number of entries evicted from the cache
+ * </pre>
+ */
+public class CachingRouteFormatter extends RouteFormatter {
+
+	private final RouteFormatter formatter_;
+	private final int capacity_;
+	private final LinkedHashMap<Key, String> cache_;
+	private final AtomicLong hits_ = new AtomicLong();
+	private final AtomicLong misses_ = new AtomicLong();
+	private final AtomicLong evictions_ = new AtomicLong();
+
+
+	// Abstraction Function:
+	// formatter = formatter_, capacity = capacity_, hits = hits_, misses = misses_,
+	// evictions = evictions_. The cached directions are the values of cache_,
+	// ordered from the least recently used to the most recently used.
+
+	// Representation invariant for every CachingRouteFormatter c:
+	// formatter_ != null && capacity_ > 0 && cache_.size() <= capacity_
+	// every value of cache_ equals formatter_.computeDirections(key.route, key.heading)
+	// cache_ is accessed only while holding its lock
+
+
+	/**
+	 * Constructs a new CachingRouteFormatter.
+	 * @requires formatter != null && capacity > 0
+	 * @effects Constructs a new CachingRouteFormatter with an empty cache
+	 * 			that decorates formatter and holds at most capacity
+	 * 			directions.
+	 */
+	public CachingRouteFormatter(RouteFormatter formatter, int capacity) {
+		formatter_ = formatter;
+		capacity_ = capacity;
+		// Access order turns the LinkedHashMap into an LRU list
+		cache_ = new LinkedHashMap<Key, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+				if (size() > capacity_) {
+					evictions_.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+		checkRep();
+	}
+
+
+	/**
+	 * Give directions for following this Route, starting at its start point
+	 * and facing in the specified heading, from the cache if possible.
+	 * @requires route != null &&
+	 * 			0 <= heading < 360
+	 * @modifies this
+	 * @effects caches the directions of route, possibly evicting the least
+	 * 			recently used directions, and increments this.hits or
+	 * 			this.misses.
+	 * @return this.formatter.computeDirections(route, heading)
+	 **/
+	public String computeDirections(Route route, double heading) {
+		Key key = new Key(route, heading);
+		String directions = lookup(key);
+		if (directions == null) {
+			// Formatting is done outside the lock, so misses do not block hits
+			directions = store(key, formatter_.computeDirections(route, heading));
+		}
+		return directions;
+	}
+
+
+	/**
+	 * Gives directions for following this Route, rendering long routes in
+	 * parallel, from the cache if possible.
+	 * @requires route != null &&
+	 * 			0 <= heading < 360
+	 * @modifies this
+	 * @effects as computeDirections(route, heading).
+	 * @return this.formatter.computeDirections(route, heading)
+	 **/
+	public String computeDirectionsParallel(Route route, double heading) {
+		Key key = new Key(route, heading);
+		String directions = lookup(key);
+		if (directions == null) {
+			directions = store(key, formatter_.computeDirectionsParallel(route, heading));
+		}
+		return directions;
+	}
+
+
+	/**
+	 * Gives directions for following this Route as a lazy Stream of lines,
+	 * from the cache if possible. On a miss the lines are streamed from the
+	 * decorated formatter and are not cached, since the stream may never
+	 * be consumed in full.
+	 * @requires route != null &&
+	 * 			0 <= heading < 360
+	 * @modifies this
+	 * @effects increments this.hits or this.misses.
+	 * @return this.formatter.directionLines(route, heading)
+	 **/
+	public Stream<String> directionLines(Route route, double heading) {
+		String directions = lookup(new Key(route, heading));
+		return (directions != null) ? directions.lines() : formatter_.directionLines(route, heading);
+	}
+
+
+	/**
+	 * Renders the directions of a single route of a batch, from the cache if
+	 * possible, and records it in statistics.
+	 * @return computeDirections(route, heading)
+	 **/
+	String renderBatchRoute(Route route, double heading, BatchStatistics statistics) {
+		long start = System.nanoTime();
+		Key key = new Key(route, heading);
+		String directions = lookup(key);
+		if (directions == null) {
+			return store(key, formatter_.renderBatchRoute(route, heading, statistics));
+		}
+		if (statistics != null) {
+			int lines = 0;
+			for (int i = directions.indexOf('\n'); i >= 0; i = directions.indexOf('\n', i + 1)) {
+				lines++;
+			}
+			statistics.recordRoute(lines, directions.length(), System.nanoTime() - start);
+		}
+		return directions;
+	}
+
+
+	/**
+	 * Writes directions for following this Route to an Appendable, from the
+	 * cache if possible.
+	 * @requires route != null && out != null &&
+	 * 			0 <= heading < 360
+	 * @modifies this, out
+	 * @effects appends computeDirections(route, heading) to out.
+	 * @throws IOException if out throws an IOException.
+	 **/
+	public void computeDirections(Route route, double heading, Appendable out) throws IOException {
+		out.append(computeDirections(route, heading));
+	}
+
+
+	/**
+	 * Computes a single line of directions with the decorated formatter.
+	 * Single lines are not cached.
+	 * @requires geoFeature != null
+	 * @return this.formatter.computeLine(geoFeature, origHeading)
+	 */
+	public String computeLine(GeoFeature geoFeature, double origHeading) {
+		return formatter_.computeLine(geoFeature, origHeading);
+	}
+
+
+	/**
+	 * Appends the line of directions of a feature of a route with the
+	 * decorated formatter. Single lines are not cached.
+	 * @requires route != null && out != null && step != null
+	 * @modifies out
+	 * @effects appends the line of the feature, as rendered by
+	 * 			this.formatter, to out.
+	 */
+	void appendFeature(StringBuilder out, Route route, int feature, DirectionStep step) {
+		formatter_.appendFeature(out, route, feature, step);
+	}
+
+
+	/**
+	 * Returns the decorated formatter.
+	 * @return this.formatter
+	 */
+	public RouteFormatter getFormatter() {
+		return formatter_;
+	}
+
+
+	/**
+	 * Returns the maximal number of directions held by the cache.
+	 * @return this.capacity
+	 */
+	public int getCapacity() {
+		return capacity_;
+	}
+
+
+	/**
+	 * Returns the number of directions currently held by the cache.
+	 * @return the number of cached directions
+	 */
+	public int getSize() {
+		synchronized (cache_) {
+			return cache_.size();
+		}
+	}
+
+
+	/**
+	 * Returns the number of requests answered from the cache.
+	 * @return this.hits
+	 */
+	public long getHitCount() {
+		return hits_.get();
+	}
+
+
+	/**
+	 * Returns the number of requests that had to be formatted.
+	 * @return this.misses
+	 */
+	public long getMissCount() {
+		return misses_.get();
+	}
+
+
+	/**
+	 * Returns the number of directions evicted from the cache.
+	 * @return this.evictions
+	 */
+	public long getEvictionCount() {
+		return evictions_.get();
+	}
+
+
+	/**
+	 * Removes all directions from the cache. The statistics are kept.
+	 * @modifies this
+	 * @effects removes all cached directions.
+	 */
+	public void clear() {
+		synchronized (cache_) {
+			cache_.clear();
+		}
+	}
+
+
+	/**
+	 * Looks up cached directions, and counts the request as a hit or a miss.
+	 * @modifies this
+	 * @effects increments this.hits if the directions of key are cached, and
+	 * 			this.misses otherwise.
+	 * @return the cached directions of key, or null if there are none.
+	 */
+	private String lookup(Key key) {
+		String directions;
+		synchronized (cache_) {
+			directions = cache_.get(key);
+		}
+		if (directions != null) {
+			hits_.incrementAndGet();
+		} else {
+			misses_.incrementAndGet();
+		}
+		return directions;
+	}
+
+
+	/**
+	 * Caches the directions of a key.
+	 * @modifies this
+	 * @effects caches directions as the directions of key, possibly evicting
+	 * 			the least recently used directions.
+	 * @return directions
+	 */
+	private String store(Key key, String directions) {
+		synchronized (cache_) {
+			cache_.put(key, directions);
+			checkRep();
+		}
+		return directions;
+	}
+
+
+	/**
+	 * The cache key of the directions of a route. The route is kept in the
+	 * key, so that equal fingerprints of different routes are told apart.
+	 */
+	private static final class Key {
+
+		private final Route route_;
+		private final long heading_;
+
+		Key(Route route, double heading) {
+			route_ = route;
+			heading_ = Double.doubleToLongBits(heading);
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			// Route.equals rejects different fingerprints in O(1)
+			return key.heading_ == heading_ && key.route_.equals(route_);
+		}
+
+		public int hashCode() {
+			long fingerprint = route_.getFingerprint() ^ (heading_ * 0x9E3779B97F4A7C15L);
+			return (int) (fingerprint ^ (fingerprint >>> 32));
+		}
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * Must be called while holding the lock of cache_.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (formatter_ != null && capacity_ > 0) :
+			"Wrong cache parameters.";
+		assert (cache_.size() <= capacity_) :
+			"Cache exceeds its capacity.";
+	}
+
+}
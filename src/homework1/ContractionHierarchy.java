@@ -0,0 +1,748 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A ContractionHierarchy is a preprocessed form of a RoadGraph that answers
+ * shortest route queries by searching only a small part of the graph.
+ * <p>
+ * Preprocessing ranks the nodes of the graph and contracts them one rank
+ * at a time: a contracted node is removed from the remaining graph, and
+ * every shortest path that passed through it is replaced by a shortcut
+ * between two of its neighbors, unless a local witness search finds
+ * another path that is not longer. Nodes that are unimportant, in the
+ * sense that their contraction adds few shortcuts, are contracted first.
+ * <p>
+ * A shortest route then consists of an upward part from its start and an
+ * upward part from its destination, both using only edges and shortcuts
+ * that lead to higher ranks, which is what HierarchyPlanner searches.
+ * Every shortcut remembers the node it bypasses, so routes are unpacked
+ * back into the segments of the graph.
+ * <p>
+ * Preprocessing runs in rounds. Every round selects the nodes whose
+ * priority is lower than that of all their remaining neighbors, an
+ * independent set, and contracts all of them in parallel on a fork/join
+ * pool; their priorities are then updated, also in parallel.
+ * <p>
+ * ContractionHierarchy is immutable and thread-safe.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph      // the preprocessed graph
+ *   rank : sequence        // rank[u] = the position of node u in the contraction order
+ *   shortcuts : integer    // number of shortcuts added by the preprocessing
+ * </pre>
+ */
+public final class ContractionHierarchy {
+
+	// The number of nodes a witness search may settle before it gives up
+	// and the shortcut is added without a witness
+	private static final int WITNESS_SETTLE_LIMIT = 256;
+
+	// The same limit while priorities are computed, which only estimate
+	// the number of shortcuts and are computed far more often
+	private static final int PRIORITY_SETTLE_LIMIT = 32;
+
+	// The weight of the edge difference in the priority of a node
+	private static final int EDGE_DIFFERENCE_WEIGHT = 2;
+
+	// The number of nodes contracted, or prioritized, by a single task
+	private static final int GRAIN = 64;
+
+	private final RoadGraph graph_;
+	private final int[] rank_;
+	private final int[] upStart_;
+	private final int[] upTarget_;
+	private final double[] upWeight_;
+	private final int[] upArc_;
+	private final int[] arcFrom_;
+	private final int[] arcMiddle_;
+	private final int[] arcFirst_;
+	private final int[] arcSecond_;
+	private final int[] arcSegmentCount_;
+	private final int shortcutCount_;
+	private final long preprocessingNanos_;
+
+
+	// Abstraction Function:
+	// graph = graph_, rank = rank_, shortcuts = shortcutCount_.
+	// Arc a joins node arcFrom_[a] to a node of higher or lower rank and
+	// stands for arcSegmentCount_[a] segments of the graph. If
+	// arcMiddle_[a] = -1, it is the graph edge arcFirst_[a], which leaves
+	// arcFrom_[a]; otherwise it is a shortcut through node arcMiddle_[a],
+	// made of arc arcFirst_[a], which joins arcFrom_[a] and arcMiddle_[a],
+	// and arc arcSecond_[a], which joins arcMiddle_[a] and the other end.
+	// The arcs from node u to nodes of higher rank are
+	// upArc_[upStart_[u]..upStart_[u+1]-1], leading to the nodes in upTarget_
+	// with the weights in upWeight_.
+
+	// Representation invariant for every ContractionHierarchy h:
+	// rank_ is a permutation of 0..graph_.getNodeCount()-1
+	// upStart_.length = graph_.getNodeCount() + 1 and upStart_ is nondecreasing
+	// rank_[upTarget_[i]] > rank_[u] for every upward arc i of node u
+	// arcFrom_, arcMiddle_, arcFirst_, arcSecond_ and arcSegmentCount_ have equal lengths
+
+
+	/**
+	 * Constructs a new ContractionHierarchy of a graph, preprocessing it on
+	 * all available processors.
+	 * @requires graph != null
+	 * @effects Constructs a new ContractionHierarchy of graph.
+	 */
+	public ContractionHierarchy(RoadGraph graph) {
+		this(graph, Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Constructs a new ContractionHierarchy of a graph.
+	 * @requires graph != null
+	 * @effects Constructs a new ContractionHierarchy of graph, preprocessing
+	 * 			it on a fork/join pool of the given parallelism.
+	 * @param parallelism the number of threads preprocessing the graph.
+	 * @throws IllegalArgumentException if parallelism < 1
+	 */
+	public ContractionHierarchy(RoadGraph graph, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive.");
+		}
+		long start = System.nanoTime();
+		graph_ = graph;
+		Contractor contractor = new Contractor(graph);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			contractor.contract(pool);
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		int nodeCount = graph.getNodeCount();
+		rank_ = contractor.rank_;
+		upStart_ = new int[nodeCount + 1];
+		for (int u = 0; u < nodeCount; u++) {
+			upStart_[u + 1] = upStart_[u] + contractor.upArcs_[u].length;
+		}
+		upTarget_ = new int[upStart_[nodeCount]];
+		upWeight_ = new double[upTarget_.length];
+		upArc_ = new int[upTarget_.length];
+		for (int u = 0; u < nodeCount; u++) {
+			int i = upStart_[u];
+			for (int arc : contractor.upArcs_[u]) {
+				upTarget_[i] = contractor.otherEnd(arc, u);
+				upWeight_[i] = contractor.arcWeight_[arc];
+				upArc_[i] = arc;
+				i++;
+			}
+		}
+		int arcCount = contractor.arcCount_;
+		arcFrom_ = Arrays.copyOf(contractor.arcFrom_, arcCount);
+		arcMiddle_ = Arrays.copyOf(contractor.arcMiddle_, arcCount);
+		arcFirst_ = Arrays.copyOf(contractor.arcFirst_, arcCount);
+		arcSecond_ = Arrays.copyOf(contractor.arcSecond_, arcCount);
+		arcSegmentCount_ = Arrays.copyOf(contractor.arcSegmentCount_, arcCount);
+		shortcutCount_ = contractor.shortcutCount_;
+		preprocessingNanos_ = System.nanoTime() - start;
+		checkRep();
+	}
+
+
+	/**
+	 * Returns the preprocessed graph.
+	 * @return this.graph
+	 */
+	public RoadGraph getGraph() {
+		return graph_;
+	}
+
+
+	/**
+	 * Returns the rank of a node in the contraction order.
+	 * @requires 0 <= node < this.graph.getNodeCount()
+	 * @return this.rank[node]
+	 */
+	public int getRank(int node) {
+		return rank_[node];
+	}
+
+
+	/**
+	 * Returns the number of shortcuts added by the preprocessing.
+	 * @return this.shortcuts
+	 */
+	public int getShortcutCount() {
+		return shortcutCount_;
+	}
+
+
+	/**
+	 * Returns the time the preprocessing took.
+	 * @return the preprocessing time, in nanoseconds
+	 */
+	public long getPreprocessingNanos() {
+		return preprocessingNanos_;
+	}
+
+
+	/**
+	 * Returns the first upward arc of a node.
+	 * @requires 0 <= node < this.graph.getNodeCount()
+	 */
+	int firstUpward(int node) {
+		return upStart_[node];
+	}
+
+
+	/**
+	 * Returns the upward arc following the last upward arc of a node.
+	 * @requires 0 <= node < this.graph.getNodeCount()
+	 */
+	int endUpward(int node) {
+		return upStart_[node + 1];
+	}
+
+
+	/**
+	 * Returns the node of higher rank an upward arc leads to.
+	 */
+	int upwardTarget(int upward) {
+		return upTarget_[upward];
+	}
+
+
+	/**
+	 * Returns the weight of an upward arc, in kilometers.
+	 */
+	double upwardWeight(int upward) {
+		return upWeight_[upward];
+	}
+
+
+	/**
+	 * Returns the arc of an upward arc, for unpacking.
+	 */
+	int upwardArc(int upward) {
+		return upArc_[upward];
+	}
+
+
+	/**
+	 * Returns the number of graph edges an arc stands for.
+	 */
+	int segmentCount(int arc) {
+		return arcSegmentCount_[arc];
+	}
+
+
+	/**
+	 * Writes the graph edges an arc stands for, travelled from one of its
+	 * ends, into an array.
+	 * @requires from is an end of arc &&
+	 * 			 offset + segmentCount(arc) <= edges.length
+	 * @modifies edges
+	 * @effects writes the edges of the path of arc from from into
+	 * 			edges[offset..offset+segmentCount(arc)-1].
+	 * @return offset + segmentCount(arc)
+	 */
+	int unpack(int arc, int from, int[] edges, int offset) {
+		int middle = arcMiddle_[arc];
+		if (middle < 0) {
+			edges[offset] = (from == arcFrom_[arc]) ? arcFirst_[arc] : graph_.twin(arcFirst_[arc]);
+			return offset + 1;
+		}
+		if (from == arcFrom_[arc]) {
+			offset = unpack(arcFirst_[arc], from, edges, offset);
+			return unpack(arcSecond_[arc], middle, edges, offset);
+		}
+		offset = unpack(arcSecond_[arc], from, edges, offset);
+		return unpack(arcFirst_[arc], middle, edges, offset);
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		int nodeCount = graph_.getNodeCount();
+		assert (rank_.length == nodeCount && upStart_.length == nodeCount + 1) :
+			"Wrong number of nodes.";
+		assert (upTarget_.length == upStart_[nodeCount] && upWeight_.length == upTarget_.length
+				&& upArc_.length == upTarget_.length) :
+			"Wrong number of upward arcs.";
+		assert (arcMiddle_.length == arcFrom_.length && arcFirst_.length == arcFrom_.length
+				&& arcSecond_.length == arcFrom_.length && arcSegmentCount_.length == arcFrom_.length) :
+			"Wrong number of arcs.";
+	}
+
+
+	/**
+	 * The mutable state of the preprocessing: the remaining graph, whose
+	 * adjacency lists hold arc numbers, and the arcs created so far.
+	 * Witness searches and priorities are computed in parallel while the
+	 * remaining graph is only read; the graph is then changed by a single
+	 * thread.
+	 */
+	private static final class Contractor {
+
+		private final RoadGraph graph_;
+		private final int nodeCount_;
+		private final int[][] adjacency_;
+		private final int[] degree_;
+		private final int[] rank_;
+		private final boolean[] contracting_;
+		private final int[] priority_;
+		private final int[] deletedNeighbors_;
+		private final int[] depth_;
+		private final int[][] upArcs_;
+		private final Shortcuts[] shortcuts_;
+		private final ThreadLocal<WitnessSearch> searches_;
+		private int[] arcFrom_ = new int[16];
+		private int[] arcTo_ = new int[16];
+		private double[] arcWeight_ = new double[16];
+		private int[] arcMiddle_ = new int[16];
+		private int[] arcFirst_ = new int[16];
+		private int[] arcSecond_ = new int[16];
+		private int[] arcSegmentCount_ = new int[16];
+		private int arcCount_;
+		private int shortcutCount_;
+
+		Contractor(RoadGraph graph) {
+			graph_ = graph;
+			nodeCount_ = graph.getNodeCount();
+			adjacency_ = new int[nodeCount_][];
+			degree_ = new int[nodeCount_];
+			rank_ = new int[nodeCount_];
+			Arrays.fill(rank_, -1);
+			contracting_ = new boolean[nodeCount_];
+			priority_ = new int[nodeCount_];
+			deletedNeighbors_ = new int[nodeCount_];
+			depth_ = new int[nodeCount_];
+			upArcs_ = new int[nodeCount_][];
+			shortcuts_ = new Shortcuts[nodeCount_];
+			searches_ = ThreadLocal.withInitial(() -> new WitnessSearch(this));
+			for (int u = 0; u < nodeCount_; u++) {
+				adjacency_[u] = new int[graph.endEdge(u) - graph.firstEdge(u)];
+			}
+			// Of parallel segments between two nodes only the shortest is kept
+			for (int u = 0; u < nodeCount_; u++) {
+				for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+					int w = graph.target(e);
+					if (u < w) {
+						addArc(u, w, graph.length(e), -1, e, -1, 1);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Contracts all the nodes of the graph, using pool for the witness
+		 * searches.
+		 */
+		void contract(ForkJoinPool pool) {
+			int[] remaining = new int[nodeCount_];
+			for (int u = 0; u < nodeCount_; u++) {
+				remaining[u] = u;
+			}
+			int remainingCount = nodeCount_;
+			pool.invoke(new PriorityTask(this, remaining, 0, remainingCount));
+
+			int nextRank = 0;
+			int[] selected = new int[nodeCount_];
+			int[] touched = new int[nodeCount_];
+			boolean[] isTouched = new boolean[nodeCount_];
+			while (remainingCount > 0) {
+				int selectedCount = 0;
+				for (int i = 0; i < remainingCount; i++) {
+					int v = remaining[i];
+					if (isLocalMinimum(v)) {
+						selected[selectedCount++] = v;
+						contracting_[v] = true;
+					}
+				}
+				pool.invoke(new ContractionTask(this, selected, 0, selectedCount));
+
+				int touchedCount = 0;
+				for (int i = 0; i < selectedCount; i++) {
+					int v = selected[i];
+					rank_[v] = nextRank++;
+					contracting_[v] = false;
+					upArcs_[v] = Arrays.copyOf(adjacency_[v], degree_[v]);
+					for (int arc : upArcs_[v]) {
+						int u = otherEnd(arc, v);
+						removeArc(u, arc);
+						deletedNeighbors_[u]++;
+						depth_[u] = Math.max(depth_[u], depth_[v] + 1);
+						if (!isTouched[u]) {
+							isTouched[u] = true;
+							touched[touchedCount++] = u;
+						}
+					}
+					adjacency_[v] = null;
+					degree_[v] = 0;
+				}
+				for (int i = 0; i < selectedCount; i++) {
+					Shortcuts shortcuts = shortcuts_[selected[i]];
+					for (int k = 0; k < shortcuts.count_; k++) {
+						addShortcut(shortcuts, k);
+					}
+					shortcuts_[selected[i]] = null;
+				}
+
+				int kept = 0;
+				for (int i = 0; i < remainingCount; i++) {
+					if (rank_[remaining[i]] < 0) {
+						remaining[kept++] = remaining[i];
+					}
+				}
+				remainingCount = kept;
+				for (int i = 0; i < touchedCount; i++) {
+					isTouched[touched[i]] = false;
+				}
+				pool.invoke(new PriorityTask(this, touched, 0, touchedCount));
+			}
+		}
+
+		/**
+		 * Returns whether v has a lower priority than all its remaining
+		 * neighbors. Ties are broken by a hash of the node, so that the
+		 * comparison is a total order.
+		 */
+		private boolean isLocalMinimum(int v) {
+			long key = orderKey(v);
+			for (int i = 0; i < degree_[v]; i++) {
+				if (orderKey(otherEnd(adjacency_[v][i], v)) < key) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private long orderKey(int v) {
+			return ((long) priority_[v] << 32) | ((v * 0x9E3779B1) & 0xffffffffL);
+		}
+
+		/**
+		 * Computes the priority of v from the number of shortcuts its
+		 * contraction would add less the number of its arcs (the edge
+		 * difference), the number of its neighbors that were already
+		 * contracted, and the depth of the hierarchy below it. The last two
+		 * spread the contraction evenly over the graph.
+		 */
+		void prioritize(int v, WitnessSearch search) {
+			int shortcuts = search.contract(v, null);
+			priority_[v] = EDGE_DIFFERENCE_WEIGHT * (shortcuts - degree_[v]) + deletedNeighbors_[v] + depth_[v];
+		}
+
+		/**
+		 * Computes the shortcuts that the contraction of v adds.
+		 */
+		void contractNode(int v, WitnessSearch search) {
+			Shortcuts shortcuts = new Shortcuts();
+			search.contract(v, shortcuts);
+			shortcuts_[v] = shortcuts;
+		}
+
+		/**
+		 * Returns whether witness searches may pass through node u.
+		 */
+		boolean isRemaining(int u) {
+			return rank_[u] < 0 && !contracting_[u];
+		}
+
+		int otherEnd(int arc, int u) {
+			return (arcFrom_[arc] == u) ? arcTo_[arc] : arcFrom_[arc];
+		}
+
+		/**
+		 * Adds the shortcut k of shortcuts, unless its ends are already
+		 * joined by an arc that is not longer, replacing a longer arc.
+		 */
+		private void addShortcut(Shortcuts shortcuts, int k) {
+			int first = shortcuts.first_[k];
+			int second = shortcuts.second_[k];
+			if (addArc(shortcuts.from_[k], shortcuts.to_[k], shortcuts.weight_[k], shortcuts.middle_[k],
+					   first, second, arcSegmentCount_[first] + arcSegmentCount_[second])) {
+				shortcutCount_++;
+			}
+		}
+
+		/**
+		 * Creates an arc and adds it to the adjacency lists of its ends,
+		 * replacing a longer arc between them.
+		 * @return false if the ends are already joined by an arc that is not
+		 * 		   longer, in which case no arc is created.
+		 */
+		private boolean addArc(int from, int to, double weight, int middle, int first, int second, int segmentCount) {
+			int existing = findArc(from, to);
+			if (existing >= 0) {
+				if (arcWeight_[existing] <= weight) {
+					return false;
+				}
+				removeArc(from, existing);
+				removeArc(to, existing);
+			}
+			if (arcCount_ == arcFrom_.length) {
+				int capacity = arcCount_ * 2;
+				arcFrom_ = Arrays.copyOf(arcFrom_, capacity);
+				arcTo_ = Arrays.copyOf(arcTo_, capacity);
+				arcWeight_ = Arrays.copyOf(arcWeight_, capacity);
+				arcMiddle_ = Arrays.copyOf(arcMiddle_, capacity);
+				arcFirst_ = Arrays.copyOf(arcFirst_, capacity);
+				arcSecond_ = Arrays.copyOf(arcSecond_, capacity);
+				arcSegmentCount_ = Arrays.copyOf(arcSegmentCount_, capacity);
+			}
+			int arc = arcCount_++;
+			arcFrom_[arc] = from;
+			arcTo_[arc] = to;
+			arcWeight_[arc] = weight;
+			arcMiddle_[arc] = middle;
+			arcFirst_[arc] = first;
+			arcSecond_[arc] = second;
+			arcSegmentCount_[arc] = segmentCount;
+			appendArc(from, arc);
+			appendArc(to, arc);
+			return true;
+		}
+
+		private int findArc(int u, int w) {
+			for (int i = 0; i < degree_[u]; i++) {
+				if (otherEnd(adjacency_[u][i], u) == w) {
+					return adjacency_[u][i];
+				}
+			}
+			return -1;
+		}
+
+		private void appendArc(int u, int arc) {
+			if (degree_[u] == adjacency_[u].length) {
+				adjacency_[u] = Arrays.copyOf(adjacency_[u], Math.max(4, degree_[u] * 2));
+			}
+			adjacency_[u][degree_[u]++] = arc;
+		}
+
+		private void removeArc(int u, int arc) {
+			int[] arcs = adjacency_[u];
+			for (int i = 0; i < degree_[u]; i++) {
+				if (arcs[i] == arc) {
+					arcs[i] = arcs[--degree_[u]];
+					return;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * The shortcuts that the contraction of a node adds.
+	 */
+	private static final class Shortcuts {
+
+		private int count_;
+		private int[] from_ = new int[4];
+		private int[] to_ = new int[4];
+		private int[] middle_ = new int[4];
+		private int[] first_ = new int[4];
+		private int[] second_ = new int[4];
+		private double[] weight_ = new double[4];
+
+		void add(int from, int to, int middle, int first, int second, double weight) {
+			if (count_ == from_.length) {
+				int capacity = count_ * 2;
+				from_ = Arrays.copyOf(from_, capacity);
+				to_ = Arrays.copyOf(to_, capacity);
+				middle_ = Arrays.copyOf(middle_, capacity);
+				first_ = Arrays.copyOf(first_, capacity);
+				second_ = Arrays.copyOf(second_, capacity);
+				weight_ = Arrays.copyOf(weight_, capacity);
+			}
+			from_[count_] = from;
+			to_[count_] = to;
+			middle_[count_] = middle;
+			first_[count_] = first;
+			second_[count_] = second;
+			weight_[count_] = weight;
+			count_++;
+		}
+	}
+
+
+	/**
+	 * The working arrays of the witness searches of one thread.
+	 */
+	private static final class WitnessSearch {
+
+		private final Contractor contractor_;
+		private final NodeHeap heap_;
+		private final double[] distances_;
+		private final int[] reached_;
+		private final int[] targets_;
+		private int search_;
+
+		WitnessSearch(Contractor contractor) {
+			contractor_ = contractor;
+			heap_ = new NodeHeap(contractor.nodeCount_);
+			distances_ = new double[contractor.nodeCount_];
+			reached_ = new int[contractor.nodeCount_];
+			targets_ = new int[contractor.nodeCount_];
+		}
+
+		/**
+		 * Finds the shortcuts needed to contract v: for every pair of its
+		 * neighbors u, w, a shortcut is needed unless a search from u that
+		 * avoids v finds a path to w that is not longer than the path
+		 * through v.
+		 * @return the number of shortcuts needed, which are also added to
+		 * 		   shortcuts if it is not null.
+		 */
+		int contract(int v, Shortcuts shortcuts) {
+			Contractor c = contractor_;
+			int degree = c.degree_[v];
+			int[] arcs = c.adjacency_[v];
+			double maxWeight = 0;
+			for (int i = 0; i < degree; i++) {
+				maxWeight = Math.max(maxWeight, c.arcWeight_[arcs[i]]);
+			}
+			int count = 0;
+			for (int i = 0; i + 1 < degree; i++) {
+				int u = c.otherEnd(arcs[i], v);
+				double toU = c.arcWeight_[arcs[i]];
+				search(u, v, toU + maxWeight, arcs, i + 1, degree,
+					   (shortcuts != null) ? WITNESS_SETTLE_LIMIT : PRIORITY_SETTLE_LIMIT);
+				for (int j = i + 1; j < degree; j++) {
+					int w = c.otherEnd(arcs[j], v);
+					double through = toU + c.arcWeight_[arcs[j]];
+					if (reached_[w] != search_ || distances_[w] > through) {
+						count++;
+						if (shortcuts != null) {
+							shortcuts.add(u, w, v, arcs[i], arcs[j], through);
+						}
+					}
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Runs a Dijkstra search from source in the remaining graph,
+		 * avoiding excluded, until it settles the other ends of
+		 * arcs[from..to-1] at excluded, passes maxDistance or settles
+		 * settleLimit nodes.
+		 */
+		private void search(int source, int excluded, double maxDistance, int[] arcs, int from, int to,
+							int settleLimit) {
+			Contractor c = contractor_;
+			if (++search_ == Integer.MAX_VALUE) {
+				Arrays.fill(reached_, 0);
+				Arrays.fill(targets_, 0);
+				search_ = 1;
+			}
+			for (int i = from; i < to; i++) {
+				targets_[c.otherEnd(arcs[i], excluded)] = search_;
+			}
+			int targetsLeft = to - from;
+			reached_[source] = search_;
+			distances_[source] = 0;
+			heap_.update(source, 0);
+			int settled = 0;
+			while (!heap_.isEmpty() && heap_.peekKey() <= maxDistance && settled < settleLimit) {
+				int u = heap_.poll();
+				settled++;
+				if (targets_[u] == search_ && --targetsLeft == 0) {
+					break;
+				}
+				double distance = distances_[u];
+				int[] adjacent = c.adjacency_[u];
+				for (int i = 0; i < c.degree_[u]; i++) {
+					int w = c.otherEnd(adjacent[i], u);
+					if (w == excluded || !c.isRemaining(w)) {
+						continue;
+					}
+					double candidate = distance + c.arcWeight_[adjacent[i]];
+					if (candidate > maxDistance) {
+						continue;
+					}
+					if (reached_[w] != search_ || candidate < distances_[w]) {
+						reached_[w] = search_;
+						distances_[w] = candidate;
+						heap_.update(w, candidate);
+					}
+				}
+			}
+			heap_.clear();
+		}
+	}
+
+
+	/**
+	 * Computes the priorities of nodes from..to-1 of nodes, splitting the
+	 * range in halves until at most GRAIN nodes are left.
+	 */
+	private static final class PriorityTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Contractor contractor_;
+		private final int[] nodes_;
+		private final int from_;
+		private final int to_;
+
+		PriorityTask(Contractor contractor, int[] nodes, int from, int to) {
+			contractor_ = contractor;
+			nodes_ = nodes;
+			from_ = from;
+			to_ = to;
+		}
+
+		protected void compute() {
+			if (to_ - from_ > GRAIN) {
+				int middle = (from_ + to_) >>> 1;
+				invokeAll(new PriorityTask(contractor_, nodes_, from_, middle),
+						  new PriorityTask(contractor_, nodes_, middle, to_));
+				return;
+			}
+			WitnessSearch search = contractor_.searches_.get();
+			for (int i = from_; i < to_; i++) {
+				contractor_.prioritize(nodes_[i], search);
+			}
+		}
+	}
+
+
+	/**
+	 * Computes the shortcuts of nodes from..to-1 of nodes, splitting the
+	 * range in halves until at most GRAIN nodes are left.
+	 */
+	private static final class ContractionTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Contractor contractor_;
+		private final int[] nodes_;
+		private final int from_;
+		private final int to_;
+
+		ContractionTask(Contractor contractor, int[] nodes, int from, int to) {
+			contractor_ = contractor;
+			nodes_ = nodes;
+			from_ = from;
+			to_ = to;
+		}
+
+		protected void compute() {
+			if (to_ - from_ > GRAIN) {
+				int middle = (from_ + to_) >>> 1;
+				invokeAll(new ContractionTask(contractor_, nodes_, from_, middle),
+						  new ContractionTask(contractor_, nodes_, middle, to_));
+				return;
+			}
+			WitnessSearch search = contractor_.searches_.get();
+			for (int i = from_; i < to_; i++) {
+				contractor_.contractNode(nodes_[i], search);
+			}
+		}
+	}
+
+}
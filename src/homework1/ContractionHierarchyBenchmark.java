@@ -0,0 +1,162 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the query latency of a ContractionHierarchy with that of the
+ * uncontracted A* search of RoutePlanner, on a synthetic city grid.
+ * <p>
+ * Usage: <tt>java homework1.ContractionHierarchyBenchmark [size [queries [parallelism]]]</tt>
+ * builds a size x size grid of streets with some streets missing, and
+ * answers the same random queries with both planners, checking that their
+ * distances agree. It then computes a square DistanceMatrix of about as
+ * many cells as queries, with and without the hierarchy.
+ */
+public class ContractionHierarchyBenchmark {
+
+	private static final int DEFAULT_SIZE = 200;
+	private static final int DEFAULT_QUERIES = 2000;
+
+
+	public static void main(String[] args) {
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+		int queries = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_QUERIES;
+		int parallelism = (args.length > 2) ? Integer.parseInt(args[2])
+											: Runtime.getRuntime().availableProcessors();
+
+		Random random = new Random(size);
+		long start = System.nanoTime();
+		RoadGraph graph = new RoadGraph(grid(size, random));
+		System.out.printf("Graph: %d nodes, %d segments, built in %.1f ms%n",
+						  graph.getNodeCount(), graph.getSegmentCount(), millis(System.nanoTime() - start));
+
+		ContractionHierarchy hierarchy = new ContractionHierarchy(graph, parallelism);
+		System.out.printf("Hierarchy: %d shortcuts, preprocessed in %.1f ms on %d threads%n",
+						  hierarchy.getShortcutCount(), millis(hierarchy.getPreprocessingNanos()), parallelism);
+
+		GeoPoint[] from = new GeoPoint[queries];
+		GeoPoint[] to = new GeoPoint[queries];
+		for (int i = 0; i < queries; i++) {
+			from[i] = graph.getNode(random.nextInt(graph.getNodeCount()));
+			to[i] = graph.getNode(random.nextInt(graph.getNodeCount()));
+		}
+
+		RoutePlanner aStar = new RoutePlanner(graph);
+		HierarchyPlanner contracted = new HierarchyPlanner(hierarchy);
+		double[] expected = new double[queries];
+		double[] actual = new double[queries];
+		// A first round of both planners warms up the compiler
+		run(aStar, null, from, to, expected);
+		run(null, contracted, from, to, actual);
+
+		long aStarSettled = 0;
+		start = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			expected[i] = aStar.findDistance(from[i], to[i]);
+			aStarSettled += aStar.getSettledCount();
+		}
+		long aStarNanos = System.nanoTime() - start;
+
+		long contractedSettled = 0;
+		start = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			actual[i] = contracted.findDistance(from[i], to[i]);
+			contractedSettled += contracted.getSettledCount();
+		}
+		long contractedNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			contracted.findRoute(from[i], to[i]);
+		}
+		long routeNanos = System.nanoTime() - start;
+
+		int mismatches = 0;
+		for (int i = 0; i < queries; i++) {
+			if (Math.abs(expected[i] - actual[i]) > 1e-6 && expected[i] != actual[i]) {
+				mismatches++;
+			}
+		}
+		System.out.printf("A*:        %8.1f us/query, %8.1f nodes settled/query%n",
+						  micros(aStarNanos) / queries, (double) aStarSettled / queries);
+		System.out.printf("Hierarchy: %8.1f us/query, %8.1f nodes settled/query (%.1fx faster)%n",
+						  micros(contractedNanos) / queries, (double) contractedSettled / queries,
+						  (double) aStarNanos / contractedNanos);
+		System.out.printf("Hierarchy with unpacked Route: %.1f us/query%n", micros(routeNanos) / queries);
+		System.out.println("Mismatching distances: " + mismatches);
+
+		int side = (int) Math.sqrt(queries);
+		GeoPoint[] sources = Arrays.copyOf(from, side);
+		GeoPoint[] targets = Arrays.copyOf(to, side);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		DistanceMatrix trees = new DistanceMatrix(graph, pool);
+		DistanceMatrix buckets = new DistanceMatrix(hierarchy, pool);
+		trees.compute(sources, targets);
+		buckets.compute(sources, targets);
+		double[][] expectedMatrix = trees.compute(sources, targets);
+		double[][] actualMatrix = buckets.compute(sources, targets);
+		mismatches = 0;
+		for (int i = 0; i < side; i++) {
+			for (int j = 0; j < side; j++) {
+				if (Math.abs(expectedMatrix[i][j] - actualMatrix[i][j]) > 1e-6
+					&& expectedMatrix[i][j] != actualMatrix[i][j]) {
+					mismatches++;
+				}
+			}
+		}
+		System.out.printf("Matrix %dx%d, one-to-many: %8.1f ms%n", side, side, millis(trees.getElapsedNanos()));
+		System.out.printf("Matrix %dx%d, buckets:     %8.1f ms (%.1f ms of buckets)%n", side, side,
+						  millis(buckets.getElapsedNanos()), millis(buckets.getBucketNanos()));
+		System.out.println("Mismatching matrix distances: " + mismatches);
+		pool.shutdown();
+	}
+
+
+	/**
+	 * A size x size grid of streets, about 100 meters apart, with a tenth
+	 * of its segments missing.
+	 */
+	private static List<GeoSegment> grid(int size, Random random) {
+		List<GeoSegment> segments = new ArrayList<>();
+		GeoPoint[] row = new GeoPoint[size];
+		for (int i = 0; i < size; i++) {
+			GeoPoint[] nextRow = new GeoPoint[size];
+			for (int j = 0; j < size; j++) {
+				nextRow[j] = new GeoPoint(32700000 + 900 * i + random.nextInt(200),
+										  34950000 + 1100 * j + random.nextInt(200));
+				if (i > 0 && random.nextInt(10) != 0) {
+					segments.add(new GeoSegment("Street " + j, row[j], nextRow[j]));
+				}
+				if (j > 0 && random.nextInt(10) != 0) {
+					segments.add(new GeoSegment("Avenue " + i, nextRow[j - 1], nextRow[j]));
+				}
+			}
+			row = nextRow;
+		}
+		return segments;
+	}
+
+
+	private static void run(RoutePlanner aStar, HierarchyPlanner contracted,
+							GeoPoint[] from, GeoPoint[] to, double[] distances) {
+		for (int i = 0; i < from.length; i++) {
+			distances[i] = (aStar != null) ? aStar.findDistance(from[i], to[i])
+										   : contracted.findDistance(from[i], to[i]);
+		}
+	}
+
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+
+
+	private static double micros(long nanos) {
+		return nanos / 1e3;
+	}
+
+}
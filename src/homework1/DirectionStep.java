@@ -0,0 +1,191 @@
+package homework1;
+
+/**
+ * A DirectionStep is one step of the directions for following a route: the
+ * turn taken onto a geographic feature, and the feature traversed after it.
+ * DirectionSteps are immutable.
+ * <p>
+ * DirectionSteps hold no text, and no reference to the route or feature
+ * they were computed from. They are computed by <tt>Route.computeSteps</tt>
+ * and rendered into walking or driving directions by a StepRouteFormatter,
+ * so they can be stored or sent before any text is created.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   turn : Turn         // the turn taken onto the feature
+ *   name : String       // name of the geographic feature traversed
+ *   distance : real     // length of the feature, in kilometers
+ *   duration : real     // time to walk the feature, in minutes
+ *   heading : angle     // heading in which the feature is entered, in degrees
+ * </pre>
+ **/
+public final class DirectionStep {
+
+	/**
+	 * The walking pace assumed by duration, in minutes per kilometer.
+	 */
+	public static final double WALKING_MINUTES_PER_KM = 20;
+
+	private final Turn turn_;
+	private final int nameId_;
+	private final double distance_;
+	private final double heading_;
+
+
+	// Abstraction Function:
+	// Represents the step of turning turn_ onto the feature named
+	// NameTable.nameOf(nameId_), of length distance_, whose walking duration
+	// is distance_ * WALKING_MINUTES_PER_KM, entered with heading heading_.
+
+	// Representation invariant for every DirectionStep s:
+	// turn_ != null
+	// nameId_ is the NameTable ID of a nonempty string
+	// distance_ >= 0
+	// 0 <= heading_ < 360
+
+
+	/**
+	 * Constructs a new DirectionStep.
+	 * @requires turn != null && nameId is a NameTable ID && distance >= 0
+	 * 			 && 0 <= heading < 360
+	 * @effects constructs a new DirectionStep with the specified turn,
+	 * 			name NameTable.nameOf(nameId), distance and heading.
+	 **/
+	DirectionStep(Turn turn, int nameId, double distance, double heading) {
+		turn_ = turn;
+		nameId_ = nameId;
+		distance_ = distance;
+		heading_ = heading;
+		checkRep();
+	}
+
+
+	/**
+	 * Returns the step of turning onto a feature.
+	 * @requires geoFeature != null && 0 <= origHeading < 360
+	 * @return the DirectionStep of traversing geoFeature when arriving at
+	 * 		   its start with heading origHeading.
+	 **/
+	static DirectionStep of(GeoFeature geoFeature, double origHeading) {
+		return new DirectionStep(Turn.of(origHeading, geoFeature.getStartHeading()),
+								 geoFeature.getNameId(), geoFeature.getLength(), origHeading);
+	}
+
+
+	/**
+	 * Returns the turn of this step.
+	 * @return this.turn
+	 **/
+	public Turn getTurn() {
+		checkRep();
+		return turn_;
+	}
+
+
+	/**
+	 * Returns the name of the feature of this step.
+	 * @return this.name
+	 **/
+	public String getName() {
+		checkRep();
+		return NameTable.nameOf(nameId_);
+	}
+
+
+	/**
+	 * Returns the NameTable ID of the name of the feature of this step.
+	 * @return NameTable.idOf(this.name)
+	 **/
+	public int getNameId() {
+		checkRep();
+		return nameId_;
+	}
+
+
+	/**
+	 * Returns the length of the feature of this step.
+	 * @return this.distance
+	 **/
+	public double getDistance() {
+		checkRep();
+		return distance_;
+	}
+
+
+	/**
+	 * Returns the time to walk the feature of this step.
+	 * @return this.duration
+	 **/
+	public double getDuration() {
+		checkRep();
+		return distance_ * WALKING_MINUTES_PER_KM;
+	}
+
+
+	/**
+	 * Returns the heading in which the feature of this step is entered.
+	 * @return this.heading
+	 **/
+	public double getHeading() {
+		checkRep();
+		return heading_;
+	}
+
+
+	/**
+	 * Compares the specified Object with this DirectionStep for equality.
+	 * @return o != null && (o instanceof DirectionStep) &&
+	 * 		   o.turn = this.turn && o.name = this.name &&
+	 * 		   o.distance = this.distance && o.heading = this.heading
+	 **/
+	public boolean equals(Object o) {
+		checkRep();
+		if (!(o instanceof DirectionStep)) {
+			return false;
+		}
+		DirectionStep step = (DirectionStep) o;
+		return step.turn_ == turn_ && step.nameId_ == nameId_
+			   && Double.compare(step.distance_, distance_) == 0
+			   && Double.compare(step.heading_, heading_) == 0;
+	}
+
+
+	/**
+	 * Returns a hash code value for this.
+	 * @return a hash code value for this.
+	 **/
+	public int hashCode() {
+		checkRep();
+		return ((turn_.ordinal() * 31 + nameId_) * 31 + Double.hashCode(distance_)) * 31
+			   + Double.hashCode(heading_);
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 **/
+	public String toString() {
+		checkRep();
+		StringBuilder stepString = FixedPointFormat.buffer();
+		stepString.append(turn_).append(' ').append(NameTable.nameOf(nameId_)).append(' ');
+		FixedPointFormat.appendHundredths(stepString, distance_);
+		stepString.append(" [Km]");
+		return stepString.toString();
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (turn_ != null) :
+			"Missing turn.";
+		assert (distance_ >= 0) :
+			"Negative distance.";
+		assert (heading_ >= 0 && heading_ < 360) :
+			"Wrong heading.";
+	}
+
+}
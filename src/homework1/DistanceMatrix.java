@@ -0,0 +1,583 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A DistanceMatrix computes the lengths of the shortest routes between
+ * every point of a set of sources and every point of a set of targets, as
+ * a table with a row per source and a column per target.
+ * <p>
+ * Every row is computed by a single search, rather than by a query per
+ * cell. Over a RoadGraph the search of a row is a one-to-many Dijkstra
+ * search from its source that stops once all the targets are settled.
+ * Over a ContractionHierarchy the bucket algorithm is used: an upward
+ * search from every target leaves, at every node it settles, an entry in
+ * the bucket of that node with the target and its distance, and the row
+ * of a source is then read from the buckets of the nodes settled by an
+ * upward search from the source. The upward searches are those of
+ * HierarchyPlanner, so their search spaces are small and the buckets are
+ * shared by all the rows.
+ * <p>
+ * Rows are computed in parallel on a fork/join pool supplied by the caller,
+ * and so are the upward searches of the targets. Every thread of the pool
+ * keeps its own working arrays, and the DistanceMatrix its node-sized
+ * arrays, from one matrix to the next, so computing many small matrices
+ * allocates no node-sized arrays per matrix. The number of rows completed
+ * can be read from another thread while a matrix is computed, to report
+ * progress.
+ * <p>
+ * A DistanceMatrix is mutable; its compute method must not be called by
+ * several threads at once.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph                   // the graph searched
+ *   hierarchy : ContractionHierarchy    // the hierarchy of graph searched, or null if graph is searched directly
+ *   pool : ForkJoinPool                 // the pool computing rows
+ *   rows : integer                      // number of rows of the last matrix
+ *   completed : integer                 // number of rows of the last matrix computed so far
+ *   elapsed : integer                   // nanoseconds taken by the last matrix
+ *   bucketTime : integer                // nanoseconds taken by the buckets of the last matrix
+ * </pre>
+ */
+public class DistanceMatrix {
+
+	// The number of rows, or targets, searched by a single task
+	private static final int GRAIN = 8;
+
+	private final RoadGraph graph_;
+	private final ContractionHierarchy hierarchy_;
+	private final ForkJoinPool pool_;
+	private final ThreadLocal<ShortestPathTree> trees_;
+	private final ThreadLocal<UpwardSearch> searches_;
+	private final boolean[] isTarget_;
+	private final int[] bucketStart_;
+	private final AtomicInteger completedRows_ = new AtomicInteger();
+	private volatile int rowCount_;
+	private volatile long elapsedNanos_;
+	private volatile long bucketNanos_;
+
+
+	// Abstraction Function:
+	// graph = graph_, hierarchy = hierarchy_, pool = pool_,
+	// rows = rowCount_, completed = completedRows_, elapsed = elapsedNanos_,
+	// bucketTime = bucketNanos_.
+	// The threads of pool_ keep their working arrays in trees_, without a
+	// hierarchy, or in searches_, with one. isTarget_ marks the targets, and
+	// bucketStart_ indexes the buckets, of the matrix being computed.
+
+	// Representation invariant for every DistanceMatrix m:
+	// graph_ != null && pool_ != null
+	// hierarchy_ = null || hierarchy_.getGraph() = graph_
+	// hierarchy_ = null => trees_ != null && isTarget_.length = number of nodes of graph_
+	//                      && no element of isTarget_ is true outside compute
+	// hierarchy_ != null => searches_ != null && bucketStart_.length = number of nodes of graph_ + 1
+	// 0 <= completedRows_ <= rowCount_
+
+
+	/**
+	 * Constructs a new DistanceMatrix that searches a graph on the common
+	 * pool.
+	 * @requires graph != null
+	 * @effects Constructs a new DistanceMatrix of graph, with no hierarchy
+	 * 			and pool ForkJoinPool.commonPool().
+	 */
+	public DistanceMatrix(RoadGraph graph) {
+		this(graph, ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * Constructs a new DistanceMatrix that searches a graph. The pool is
+	 * used, not owned: it is never shut down by the DistanceMatrix.
+	 * @requires graph != null && pool != null
+	 * @effects Constructs a new DistanceMatrix of graph, with no hierarchy
+	 * 			and the given pool.
+	 */
+	public DistanceMatrix(RoadGraph graph, ForkJoinPool pool) {
+		this(graph, null, pool);
+	}
+
+
+	/**
+	 * Constructs a new DistanceMatrix that searches a hierarchy on the
+	 * common pool.
+	 * @requires hierarchy != null
+	 * @effects Constructs a new DistanceMatrix of hierarchy.getGraph() that
+	 * 			searches hierarchy on pool ForkJoinPool.commonPool().
+	 */
+	public DistanceMatrix(ContractionHierarchy hierarchy) {
+		this(hierarchy, ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * Constructs a new DistanceMatrix that searches a hierarchy. The pool is
+	 * used, not owned: it is never shut down by the DistanceMatrix.
+	 * @requires hierarchy != null && pool != null
+	 * @effects Constructs a new DistanceMatrix of hierarchy.getGraph() that
+	 * 			searches hierarchy on the given pool.
+	 */
+	public DistanceMatrix(ContractionHierarchy hierarchy, ForkJoinPool pool) {
+		this(hierarchy.getGraph(), hierarchy, pool);
+	}
+
+
+	private DistanceMatrix(RoadGraph graph, ContractionHierarchy hierarchy, ForkJoinPool pool) {
+		graph_ = graph;
+		hierarchy_ = hierarchy;
+		pool_ = pool;
+		if (hierarchy == null) {
+			trees_ = ThreadLocal.withInitial(() -> new ShortestPathTree(graph));
+			searches_ = null;
+			isTarget_ = new boolean[graph.getNodeCount()];
+			bucketStart_ = null;
+		}
+		else {
+			trees_ = null;
+			searches_ = ThreadLocal.withInitial(() -> new UpwardSearch(hierarchy));
+			isTarget_ = null;
+			bucketStart_ = new int[graph.getNodeCount() + 1];
+		}
+		checkRep();
+	}
+
+
+	/**
+	 * Computes the distances between sources and targets.
+	 * @requires sources != null && targets != null &&
+	 * 			 no element of sources or targets is null
+	 * @modifies this
+	 * @effects sets this.rows to sources.length, this.completed to the
+	 * 			number of rows computed as they are computed, and this.elapsed
+	 * 			and this.bucketTime to the time taken.
+	 * @return a new matrix m of sources.length rows and targets.length
+	 * 		   columns, where m[i][j] is the length of a shortest route of
+	 * 		   this.graph from sources[i] to targets[j]: 0 if they are equal
+	 * 		   nodes, and Double.POSITIVE_INFINITY if either is not a node of
+	 * 		   this.graph or there is no route between them.
+	 */
+	public double[][] compute(GeoPoint[] sources, GeoPoint[] targets) {
+		checkRep();
+		long start = System.nanoTime();
+		rowCount_ = sources.length;
+		completedRows_.set(0);
+		bucketNanos_ = 0;
+		int[] sourceNodes = nodesOf(sources);
+		int[] targetNodes = nodesOf(targets);
+		double[][] matrix = new double[sources.length][targets.length];
+		if (hierarchy_ == null) {
+			TreeSearch search = new TreeSearch(trees_, isTarget_, targetNodes);
+			try {
+				pool_.invoke(new RowTask(search, sourceNodes, matrix, completedRows_, 0, sources.length));
+			}
+			finally {
+				search.clearTargets();
+			}
+		}
+		else {
+			long bucketStart = System.nanoTime();
+			BucketSearch search = new BucketSearch(hierarchy_, searches_, bucketStart_, targetNodes, pool_);
+			bucketNanos_ = System.nanoTime() - bucketStart;
+			pool_.invoke(new RowTask(search, sourceNodes, matrix, completedRows_, 0, sources.length));
+		}
+		elapsedNanos_ = System.nanoTime() - start;
+		checkRep();
+		return matrix;
+	}
+
+
+	/**
+	 * Returns the graph searched.
+	 * @return this.graph
+	 */
+	public RoadGraph getGraph() {
+		return graph_;
+	}
+
+
+	/**
+	 * Returns the hierarchy searched.
+	 * @return this.hierarchy
+	 */
+	public ContractionHierarchy getHierarchy() {
+		return hierarchy_;
+	}
+
+
+	/**
+	 * Returns the number of rows of the last matrix. It may be called while
+	 * a matrix is computed.
+	 * @return this.rows
+	 */
+	public int getRowCount() {
+		return rowCount_;
+	}
+
+
+	/**
+	 * Returns the number of rows of the last matrix computed so far. It may
+	 * be called while a matrix is computed.
+	 * @return this.completed
+	 */
+	public int getCompletedRows() {
+		return completedRows_.get();
+	}
+
+
+	/**
+	 * Returns the time taken by the last matrix.
+	 * @return this.elapsed
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos_;
+	}
+
+
+	/**
+	 * Returns the time taken by the upward searches of the targets of the
+	 * last matrix, which is included in its elapsed time.
+	 * @return this.bucketTime, 0 if this.hierarchy = null
+	 */
+	public long getBucketNanos() {
+		return bucketNanos_;
+	}
+
+
+	/**
+	 * Returns the nodes of points, -1 for a point that is not a node.
+	 */
+	private int[] nodesOf(GeoPoint[] points) {
+		int[] nodes = new int[points.length];
+		for (int i = 0; i < points.length; i++) {
+			nodes[i] = graph_.nodeOf(points[i]);
+		}
+		return nodes;
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (graph_ != null && pool_ != null) :
+			"Wrong graph or pool.";
+		assert (hierarchy_ == null ? trees_ != null && isTarget_.length == graph_.getNodeCount()
+								   : searches_ != null && bucketStart_.length == graph_.getNodeCount() + 1) :
+			"Wrong working arrays.";
+		assert (hierarchy_ == null || hierarchy_.getGraph() == graph_) :
+			"Hierarchy of another graph.";
+		assert (completedRows_.get() >= 0 && completedRows_.get() <= rowCount_) :
+			"Wrong number of completed rows.";
+	}
+
+
+	/**
+	 * Computes the rows of a matrix, one source at a time. Rows of
+	 * different sources may be computed concurrently.
+	 */
+	private abstract static class RowSearch {
+
+		/**
+		 * Computes the row of a source node.
+		 * @requires every element of row is Double.POSITIVE_INFINITY
+		 */
+		abstract void computeRow(int source, double[] row);
+	}
+
+
+	/**
+	 * Computes rows with one-to-many Dijkstra searches of the graph. The
+	 * targets are marked in an array shared with the DistanceMatrix, which
+	 * must be cleared with clearTargets once the rows are computed.
+	 */
+	private static final class TreeSearch extends RowSearch {
+
+		private final int[] targetNodes_;
+		private final boolean[] isTarget_;
+		private final int targetCount_;
+		private final ThreadLocal<ShortestPathTree> trees_;
+
+		TreeSearch(ThreadLocal<ShortestPathTree> trees, boolean[] isTarget, int[] targetNodes) {
+			targetNodes_ = targetNodes;
+			isTarget_ = isTarget;
+			int count = 0;
+			for (int t : targetNodes) {
+				if (t >= 0 && !isTarget_[t]) {
+					isTarget_[t] = true;
+					count++;
+				}
+			}
+			targetCount_ = count;
+			trees_ = trees;
+		}
+
+		/**
+		 * Unmarks the targets, in O(number of targets).
+		 */
+		void clearTargets() {
+			for (int t : targetNodes_) {
+				if (t >= 0) {
+					isTarget_[t] = false;
+				}
+			}
+		}
+
+		void computeRow(int source, double[] row) {
+			if (targetCount_ == 0) {
+				return;
+			}
+			ShortestPathTree tree = trees_.get();
+			tree.grow(source, isTarget_, targetCount_);
+			for (int j = 0; j < row.length; j++) {
+				if (targetNodes_[j] >= 0) {
+					row[j] = tree.distance(targetNodes_[j]);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Computes rows with the bucket algorithm over a hierarchy. The bucket
+	 * index is an array shared with the DistanceMatrix, which is valid until
+	 * the next BucketSearch is built.
+	 */
+	private static final class BucketSearch extends RowSearch {
+
+		private final int[] bucketStart_;
+		private final int[] bucketColumn_;
+		private final double[] bucketDistance_;
+		private final ThreadLocal<UpwardSearch> searches_;
+
+
+		// The bucket of node u holds the entries bucketStart_[u]..
+		// bucketStart_[u+1]-1; entry b says that the upward search of the
+		// target of column bucketColumn_[b] settled u at bucketDistance_[b].
+
+		BucketSearch(ContractionHierarchy hierarchy, ThreadLocal<UpwardSearch> searches, int[] bucketStart,
+					 int[] targetNodes, ForkJoinPool pool) {
+			searches_ = searches;
+			int[][] nodes = new int[targetNodes.length][];
+			double[][] distances = new double[targetNodes.length][];
+			pool.invoke(new TargetTask(searches_, targetNodes, nodes, distances, 0, targetNodes.length));
+
+			// The entries of all the targets are sorted into the buckets of
+			// their nodes in two passes: bucketStart_[u] first counts the
+			// entries of the nodes up to u, and is then decremented down to
+			// the start of the bucket of u as its entries are placed
+			int nodeCount = hierarchy.getGraph().getNodeCount();
+			bucketStart_ = bucketStart;
+			Arrays.fill(bucketStart_, 0);
+			for (int[] settled : nodes) {
+				for (int u : settled) {
+					bucketStart_[u]++;
+				}
+			}
+			for (int u = 1; u <= nodeCount; u++) {
+				bucketStart_[u] += bucketStart_[u - 1];
+			}
+			bucketColumn_ = new int[bucketStart_[nodeCount]];
+			bucketDistance_ = new double[bucketColumn_.length];
+			for (int j = 0; j < nodes.length; j++) {
+				for (int i = 0; i < nodes[j].length; i++) {
+					int b = --bucketStart_[nodes[j][i]];
+					bucketColumn_[b] = j;
+					bucketDistance_[b] = distances[j][i];
+				}
+			}
+		}
+
+		void computeRow(int source, double[] row) {
+			UpwardSearch search = searches_.get();
+			search.run(source);
+			for (int i = 0, count = search.settledCount(); i < count; i++) {
+				int u = search.settledNode(i);
+				double distance = search.settledDistance(i);
+				for (int b = bucketStart_[u], end = bucketStart_[u + 1]; b < end; b++) {
+					double candidate = distance + bucketDistance_[b];
+					if (candidate < row[bucketColumn_[b]]) {
+						row[bucketColumn_[b]] = candidate;
+					}
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * The working arrays of the upward searches of one thread. An upward
+	 * search runs until its heap is empty, and skips the arcs of stalled
+	 * nodes as HierarchyPlanner does. Stalled nodes are not on a shortest
+	 * route through their distance, so only the other settled nodes are
+	 * recorded.
+	 */
+	private static final class UpwardSearch {
+
+		private final ContractionHierarchy hierarchy_;
+		private final NodeHeap heap_;
+		private final double[] distances_;
+		private final int[] reached_;
+		private final int[] settledNodes_;
+		private final double[] settledDistances_;
+		private int settledCount_;
+		private int search_;
+
+		UpwardSearch(ContractionHierarchy hierarchy) {
+			hierarchy_ = hierarchy;
+			int nodeCount = hierarchy.getGraph().getNodeCount();
+			heap_ = new NodeHeap(nodeCount);
+			distances_ = new double[nodeCount];
+			reached_ = new int[nodeCount];
+			settledNodes_ = new int[nodeCount];
+			settledDistances_ = new double[nodeCount];
+		}
+
+		void run(int root) {
+			if (++search_ == Integer.MAX_VALUE) {
+				Arrays.fill(reached_, 0);
+				search_ = 1;
+			}
+			settledCount_ = 0;
+			reached_[root] = search_;
+			distances_[root] = 0;
+			heap_.update(root, 0);
+			while (!heap_.isEmpty()) {
+				int u = heap_.poll();
+				double distance = distances_[u];
+				if (isStalled(u, distance)) {
+					continue;
+				}
+				settledNodes_[settledCount_] = u;
+				settledDistances_[settledCount_] = distance;
+				settledCount_++;
+				for (int i = hierarchy_.firstUpward(u), end = hierarchy_.endUpward(u); i < end; i++) {
+					int v = hierarchy_.upwardTarget(i);
+					double candidate = distance + hierarchy_.upwardWeight(i);
+					if (reached_[v] != search_ || candidate < distances_[v]) {
+						reached_[v] = search_;
+						distances_[v] = candidate;
+						heap_.update(v, candidate);
+					}
+				}
+			}
+		}
+
+		private boolean isStalled(int u, double distance) {
+			for (int i = hierarchy_.firstUpward(u), end = hierarchy_.endUpward(u); i < end; i++) {
+				int v = hierarchy_.upwardTarget(i);
+				if (reached_[v] == search_ && distances_[v] + hierarchy_.upwardWeight(i) < distance) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		int settledCount() {
+			return settledCount_;
+		}
+
+		int settledNode(int i) {
+			return settledNodes_[i];
+		}
+
+		double settledDistance(int i) {
+			return settledDistances_[i];
+		}
+	}
+
+
+	/**
+	 * Runs the upward searches of targets from..to-1, splitting the range
+	 * in halves until at most GRAIN targets are left.
+	 */
+	private static final class TargetTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ThreadLocal<UpwardSearch> searches_;
+		private final int[] targetNodes_;
+		private final int[][] nodes_;
+		private final double[][] distances_;
+		private final int from_;
+		private final int to_;
+
+		TargetTask(ThreadLocal<UpwardSearch> searches, int[] targetNodes, int[][] nodes,
+				   double[][] distances, int from, int to) {
+			searches_ = searches;
+			targetNodes_ = targetNodes;
+			nodes_ = nodes;
+			distances_ = distances;
+			from_ = from;
+			to_ = to;
+		}
+
+		protected void compute() {
+			if (to_ - from_ > GRAIN) {
+				int middle = (from_ + to_) >>> 1;
+				invokeAll(new TargetTask(searches_, targetNodes_, nodes_, distances_, from_, middle),
+						  new TargetTask(searches_, targetNodes_, nodes_, distances_, middle, to_));
+				return;
+			}
+			UpwardSearch search = searches_.get();
+			for (int j = from_; j < to_; j++) {
+				if (targetNodes_[j] < 0) {
+					nodes_[j] = new int[0];
+					distances_[j] = new double[0];
+					continue;
+				}
+				search.run(targetNodes_[j]);
+				nodes_[j] = Arrays.copyOf(search.settledNodes_, search.settledCount_);
+				distances_[j] = Arrays.copyOf(search.settledDistances_, search.settledCount_);
+			}
+		}
+	}
+
+
+	/**
+	 * Computes rows from..to-1 of a matrix, splitting the range in halves
+	 * until at most GRAIN rows are left.
+	 */
+	private static final class RowTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final RowSearch search_;
+		private final int[] sourceNodes_;
+		private final double[][] matrix_;
+		private final AtomicInteger completedRows_;
+		private final int from_;
+		private final int to_;
+
+		RowTask(RowSearch search, int[] sourceNodes, double[][] matrix, AtomicInteger completedRows,
+				int from, int to) {
+			search_ = search;
+			sourceNodes_ = sourceNodes;
+			matrix_ = matrix;
+			completedRows_ = completedRows;
+			from_ = from;
+			to_ = to;
+		}
+
+		protected void compute() {
+			if (to_ - from_ > GRAIN) {
+				int middle = (from_ + to_) >>> 1;
+				invokeAll(new RowTask(search_, sourceNodes_, matrix_, completedRows_, from_, middle),
+						  new RowTask(search_, sourceNodes_, matrix_, completedRows_, middle, to_));
+				return;
+			}
+			for (int i = from_; i < to_; i++) {
+				Arrays.fill(matrix_[i], Double.POSITIVE_INFINITY);
+				if (sourceNodes_[i] >= 0) {
+					search_.computeRow(sourceNodes_[i], matrix_[i]);
+				}
+				completedRows_.incrementAndGet();
+			}
+		}
+	}
+
+}
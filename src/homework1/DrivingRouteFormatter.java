@@ -1,7 +1,5 @@
 package homework1;
 
-import java.text.DecimalFormat;
-
 /**
  * The DrivingDirections class creates a textual description of directions
  * for traversing a route that are suitable for a driver of a vehicle.
@@ -23,7 +21,7 @@ import java.text.DecimalFormat;
  * kilometer precision. Each line should be terminated by a newline and
  * should include no extra spaces other than those shown above.
  */
-public class DrivingRouteFormatter extends RouteFormatter {
+public class DrivingRouteFormatter extends StepRouteFormatter {
   
   	/**
      * Computes a single line of a multi-line directions String that
@@ -50,14 +48,26 @@ public class DrivingRouteFormatter extends RouteFormatter {
      * above.
      **/
   	public String computeLine(GeoFeature geoFeature, double origHeading) {
-  		String instructions = "";
-		instructions += getTurnString(origHeading, geoFeature.getStartHeading());
-		instructions += "onto " + geoFeature.getName() + " and go ";		
-		double distance = geoFeature.getLength();
-		String kilometers = new DecimalFormat("##.#").format(distance);
-		instructions += kilometers;
-		instructions += " kilometers.";		
-		return instructions;
+  		StringBuilder instructions = new StringBuilder();
+  		appendLine(instructions, geoFeature, origHeading);
+		return instructions.toString();
+  	}
+
+
+  	/**
+     * Appends the driving directions of a DirectionStep to a StringBuilder,
+     * in the format of computeLine.
+     * @requires step != null && out != null
+     * @param out the StringBuilder to append the line to.
+     * @param step the step to render.
+     * @modifies out
+     * @effects appends the line of directions of step to out.
+     **/
+  	protected void appendStep(StringBuilder out, DirectionStep step) {
+		out.append(step.getTurn().getText());
+		out.append(" onto ").append(step.getName()).append(" and go ");
+		FixedPointFormat.appendTenths(out, step.getDistance());
+		out.append(" kilometers.");
   	}
 
 }
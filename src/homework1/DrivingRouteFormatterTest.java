@@ -1,5 +1,9 @@
 package homework1;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
 public class DrivingRouteFormatterTest {
 	
 	private DrivingRouteFormatter mDirections;
@@ -25,10 +29,49 @@ public class DrivingRouteFormatterTest {
 		else
 			System.out.println("Test not passed correctly");
 	}
+
+
+
+	public void testCache() {
+		CachingRouteFormatter cached = new CachingRouteFormatter(mDirections, 2);
+		String directions = mDirections.computeDirections(mShortRoute, 0);
+		Route sameRoute = new Route(new GeoSegment("Trumpeldor Avenue",
+			new GeoPoint(32783098,35014528), new GeoPoint(32787081,35020735)))
+			.addSegment(new GeoSegment("Hagalil",
+			new GeoPoint(32787081,35020735), new GeoPoint(32795631,35010296)));
+
+		boolean ok = cached.computeDirections(mShortRoute, 0).equals(directions)
+			&& cached.computeDirections(sameRoute, 0).equals(directions)
+			&& cached.getHitCount() == 1 && cached.getMissCount() == 1;
+		// A different heading is a different entry; the third entry evicts
+		// the least recently used one
+		cached.computeDirections(mShortRoute, 90);
+		cached.computeDirections(mShortRoute, 180);
+		ok &= cached.getSize() == 2 && cached.getEvictionCount() == 1
+			&& cached.computeDirections(mShortRoute, 0).equals(directions)
+			&& cached.getMissCount() == 4;
+		// Every way of asking for the directions of a route is cached
+		ok &= cached.computeDirectionsParallel(sameRoute, 0).equals(directions)
+			&& cached.directionLines(mShortRoute, 0).map(line -> line + "\n")
+				.collect(Collectors.joining()).equals(directions)
+			&& cached.getHitCount() == 3;
+		BatchStatistics statistics = new BatchStatistics();
+		ok &= cached.computeDirectionsBatch(Arrays.asList(mShortRoute, sameRoute), 0,
+											ForkJoinPool.commonPool(), statistics)
+				.equals(Arrays.asList(directions, directions))
+			&& cached.getHitCount() == 5 && cached.getMissCount() == 4
+			&& statistics.getLineCount() == 4;
+
+		if (ok)
+			System.out.println("Cache test passed correctly");
+		else
+			System.out.println("Cache test not passed correctly");
+	}
   	
   	
 	public static void main(String[] args) {
 		DrivingRouteFormatterTest directionsTest = new DrivingRouteFormatterTest();
 		directionsTest.test();
+		directionsTest.testCache();
 	}
 }
@@ -0,0 +1,248 @@
+package homework1;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * FixedPointFormat writes the decimal numbers printed by the route classes
+ * directly into a StringBuilder, without creating a DecimalFormat for every
+ * call.
+ * <p>
+ * Each method produces exactly the text of <tt>new DecimalFormat(pattern).format</tt>
+ * for one of the patterns used by this package: values are rounded
+ * half-even on their exact binary value, and the digits, decimal separator,
+ * minus sign, NaN and infinity are taken from the default FORMAT locale, as
+ * DecimalFormat does.
+ * <p>
+ * FixedPointFormat is thread-safe. Every thread has its own reusable
+ * StringBuilder, returned by buffer(), and its own copy of the locale
+ * symbols, which it refreshes only when the default locale changes.
+ */
+final class FixedPointFormat {
+
+	// A larger buffer is dropped rather than kept alive by its thread
+	private static final int MAX_BUFFER_CAPACITY = 1 << 12;
+
+	// Values at least this large are formatted through BigDecimal, since
+	// their scaled value is not exact as a double
+	private static final double MAX_FAST_VALUE = 1e13;
+
+	private static final int[] POWERS_OF_TEN = { 1, 10, 100, 1000, 10000, 100000, 1000000 };
+
+	private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+
+	private FixedPointFormat() {
+	}
+
+
+	/**
+	 * Per-thread state: the reusable buffer and the symbols of the locale
+	 * it was last used with.
+	 */
+	private static final class State {
+		StringBuilder buffer_ = new StringBuilder(128);
+		Locale locale_;
+		char zeroDigit_;
+		char decimalSeparator_;
+		String minusSign_;
+		String nan_;
+		String infinity_;
+
+		State symbols() {
+			Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+			if (locale != locale_) {
+				DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+				zeroDigit_ = symbols.getZeroDigit();
+				decimalSeparator_ = symbols.getDecimalSeparator();
+				// The minus sign of some locales is more than one character,
+				// which only the negative prefix of a DecimalFormat exposes
+				minusSign_ = new DecimalFormat("0", symbols).getNegativePrefix();
+				nan_ = symbols.getNaN();
+				infinity_ = symbols.getInfinity();
+				locale_ = locale;
+			}
+			return this;
+		}
+	}
+
+
+	/**
+	 * Returns the reusable buffer of the current thread.
+	 * @effects clears the buffer of the current thread.
+	 * @return an empty StringBuilder owned by the current thread. It stays
+	 * 		   valid until the next call to buffer() on the same thread.
+	 */
+	static StringBuilder buffer() {
+		State state = STATE.get();
+		if (state.buffer_.capacity() > MAX_BUFFER_CAPACITY) {
+			state.buffer_ = new StringBuilder(128);
+		}
+		state.buffer_.setLength(0);
+		return state.buffer_;
+	}
+
+
+	/**
+	 * Appends a coordinate given in millionths of a degree, in degrees.
+	 * @requires out != null
+	 * @modifies out
+	 * @effects appends new DecimalFormat("#00.000000").format(microdegrees / 1000000.0)
+	 * 			to out.
+	 */
+	static void appendDegrees(StringBuilder out, int microdegrees) {
+		State symbols = STATE.get().symbols();
+		// microdegrees / 1000000.0 is always closer to microdegrees than to
+		// any other multiple of a millionth, so rounding it to 6 digits
+		// gives back microdegrees exactly
+		if (microdegrees < 0) {
+			out.append(symbols.minusSign_);
+		}
+		appendUnscaled(out, symbols, Math.abs((long) microdegrees), 6, 6, 2);
+	}
+
+
+	/**
+	 * Appends a value with at most one fraction digit.
+	 * @requires out != null
+	 * @modifies out
+	 * @effects appends new DecimalFormat("##.#").format(value) to out.
+	 */
+	static void appendTenths(StringBuilder out, double value) {
+		append(out, value, 1, 0);
+	}
+
+
+	/**
+	 * Appends a value with exactly two fraction digits.
+	 * @requires out != null
+	 * @modifies out
+	 * @effects appends new DecimalFormat("#0.00").format(value) to out.
+	 */
+	static void appendHundredths(StringBuilder out, double value) {
+		append(out, value, 2, 2);
+	}
+
+
+	/**
+	 * Appends value rounded half-even to maxFraction fraction digits, with
+	 * at least minFraction fraction digits and one integer digit.
+	 */
+	private static void append(StringBuilder out, double value, int maxFraction, int minFraction) {
+		State symbols = STATE.get().symbols();
+		if (Double.isNaN(value)) {
+			out.append(symbols.nan_);
+			return;
+		}
+		// DecimalFormat keeps the sign of negative values that round to zero
+		if (Double.doubleToRawLongBits(value) < 0) {
+			out.append(symbols.minusSign_);
+		}
+		double abs = Math.abs(value);
+		if (Double.isInfinite(abs)) {
+			out.append(symbols.infinity_);
+			return;
+		}
+		int scale = POWERS_OF_TEN[maxFraction];
+		long unscaled;
+		if (abs < MAX_FAST_VALUE) {
+			// abs * scale is rounded, so its floor may be one too large. The
+			// fused multiply-adds compute the exact sign of the residuals.
+			unscaled = (long) (abs * scale);
+			if (Math.fma(abs, scale, -unscaled) < 0) {
+				unscaled--;
+			}
+			double half = Math.fma(abs, scale, -(unscaled + 0.5));
+			if (half > 0 || (half == 0 && (unscaled & 1) != 0)) {
+				unscaled++;
+			}
+		}
+		else {
+			// DecimalFormat prints the shortest digits that identify a huge
+			// value, and rounds the exact value only when these have more
+			// fraction digits than the pattern allows
+			BigDecimal rounded = new BigDecimal(Double.toString(abs));
+			rounded = (rounded.scale() > maxFraction)
+					  ? new BigDecimal(abs).setScale(maxFraction, RoundingMode.HALF_EVEN)
+					  : rounded.setScale(maxFraction);
+			if (rounded.precision() > 18) {
+				appendDigits(out, symbols, rounded.toPlainString(), maxFraction, minFraction);
+				return;
+			}
+			unscaled = rounded.unscaledValue().longValueExact();
+		}
+		appendUnscaled(out, symbols, unscaled, maxFraction, minFraction, 1);
+	}
+
+
+	/**
+	 * Appends unscaled / 10^fraction, with trailing zero fraction digits
+	 * dropped down to minFraction digits, and with at least minInteger
+	 * integer digits.
+	 */
+	private static void appendUnscaled(StringBuilder out, State symbols, long unscaled,
+									   int fraction, int minFraction, int minInteger) {
+		long scale = POWERS_OF_TEN[fraction];
+		long integer = unscaled / scale;
+		long rest = unscaled % scale;
+		int digits = fraction;
+		while (digits > minFraction && rest % 10 == 0) {
+			rest /= 10;
+			digits--;
+		}
+		appendInteger(out, symbols, integer, minInteger);
+		if (digits > 0) {
+			out.append(symbols.decimalSeparator_);
+			appendInteger(out, symbols, rest, digits);
+		}
+	}
+
+
+	/**
+	 * Appends a non-negative integer, left-padded with zeros to minDigits
+	 * digits.
+	 */
+	private static void appendInteger(StringBuilder out, State symbols, long value, int minDigits) {
+		int start = out.length();
+		do {
+			out.append((char) (symbols.zeroDigit_ + (int) (value % 10)));
+			value /= 10;
+			minDigits--;
+		} while (value > 0 || minDigits > 0);
+		// The digits were appended least significant first
+		for (int i = start, j = out.length() - 1; i < j; i++, j--) {
+			char c = out.charAt(i);
+			out.setCharAt(i, out.charAt(j));
+			out.setCharAt(j, c);
+		}
+	}
+
+
+	/**
+	 * Appends the plain decimal String of a huge rounded value, converting
+	 * its digits and separator to the locale symbols.
+	 */
+	private static void appendDigits(StringBuilder out, State symbols, String plain,
+									 int fraction, int minFraction) {
+		int end = plain.length();
+		int point = end - fraction - 1;
+		while (end - point - 1 > minFraction && plain.charAt(end - 1) == '0') {
+			end--;
+		}
+		for (int i = 0; i < end; i++) {
+			char c = plain.charAt(i);
+			if (c == '.') {
+				if (i < end - 1) {
+					out.append(symbols.decimalSeparator_);
+				}
+			}
+			else {
+				out.append((char) (symbols.zeroDigit_ + (c - '0')));
+			}
+		}
+	}
+
+}
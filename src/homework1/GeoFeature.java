@@ -1,8 +1,8 @@
 package homework1;
 
 import java.util.Iterator;
-import java.text.DecimalFormat;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 /**
  * A GeoFeature represents a route from one location to another along a
  * single geographic feature. GeoFeatures are immutable.
@@ -42,21 +42,27 @@ public class GeoFeature {
   	private final GeoPoint end_;
   	private final double startHeading_;
   	private final double endHeading_;
-  	private final ArrayList<GeoSegment> geoSegments_;
-  	private final String name_;
+  	private final SegmentColumns columns_;
+  	private final int from_;
+  	private final int size_;
+  	private final int nameId_;
   	private final double length_;
+  	private final long fingerprint_;
 	
   	
 	// Abstraction Function:
-	// Represents a continuous geographical feature that starts at point start_, ends at point end_, named name_, length length_.
-  	// to traverse the feature one should head in azimuth startHeading_ and go through all segments in geoSegments_ list and head in endHeading_ azimuth at the last segment
+	// Represents a continuous geographical feature that starts at point start_, ends at point end_, named NameTable.nameOf(nameId_), length length_.
+  	// to traverse the feature one should head in azimuth startHeading_ and go through the segments from_..from_+size_-1 of columns_
+  	// and head in endHeading_ azimuth at the last segment
 	
 	// Representation invariant for every GeoFeature g:
-	// startHeading_ and endHeading_ numbers in range [0,360) and equal to geoSegments_.get(0).getHeading() and geoSegments_.get(geoSegments_.size()-1).getHeading() accordingly
-  	// name_ is nonempty string
-  	// length_ is the sum of all lengths of segments inside geoSegments_ list
-  	// geoSegments_ a nonempty list of GeoSegments with similar name and p2 of every segment in list equals to p1 of the next segment in list,
-  	// p1 of first segment in list equals to start_ and p2 of last segment in list equals to end_
+	// startHeading_ and endHeading_ numbers in range [0,360) and equal to the headings of the first and the last segment accordingly
+  	// nameId_ is the NameTable ID of a nonempty string
+  	// length_ is the sum of all lengths of the segments, in order
+  	// size_ >= 1 and all the segments are named nameId_; p2 of every segment equals to p1 of the next segment
+  	// (this holds by construction of columns_), point from_ of columns_ equals to start_ and point from_+size_ equals to end_
+  	// columns_ may be shared with the features and routes this feature was extended from or is a part of
+  	// fingerprint_ is the polynomial hash of the fingerprints of the segments, in order
   	
   	
   	
@@ -71,17 +77,16 @@ public class GeoFeature {
      *          r.end = gs.p2
      **/
   	public GeoFeature(GeoSegment gs) {
-  		name_ = gs.getName();
+  		nameId_ = gs.getNameId();
   		startHeading_ = gs.getHeading();
   		endHeading_ = gs.getHeading();
-  		start_ = new GeoPoint(gs.getP1().getLatitude() ,gs.getP1().getLongitude());
-  		end_ = new GeoPoint(gs.getP2().getLatitude() ,gs.getP2().getLongitude());
+  		start_ = gs.getP1();
+  		end_ = gs.getP2();
   		length_ = gs.getLength();
-  		geoSegments_ = new ArrayList<GeoSegment>();
-  		GeoPoint tmpPoint1 = new GeoPoint(gs.getP1().getLatitude() ,gs.getP1().getLongitude());
-  		GeoPoint tmpPoint2 = new GeoPoint(gs.getP2().getLatitude() ,gs.getP2().getLongitude());
-  		GeoSegment gsTmp = new GeoSegment(gs.getName(), tmpPoint1, tmpPoint2);
-  		geoSegments_.add(gsTmp);
+  		columns_ = SegmentColumns.of(gs, false);
+  		from_ = 0;
+  		size_ = 1;
+  		fingerprint_ = gs.getFingerprint();
   		checkRep();
   	}
   	
@@ -98,26 +103,47 @@ public class GeoFeature {
      *          r.geoSegments = gf.geoSegments.append(gs)
      **/
   	private GeoFeature(GeoFeature gf, GeoSegment gs) {
-  	  	start_ = new GeoPoint(gf.start_.getLatitude(), gf.start_.getLongitude());
-  	  	end_ = new GeoPoint(gs.getP2().getLatitude(), gs.getP2().getLongitude());
+  	  	start_ = gf.start_;
+  	  	end_ = gs.getP2();
   	  	startHeading_ = gf.startHeading_;
   	  	endHeading_ = gs.getHeading();
-  	  	name_ = gf.name_;
+  	  	nameId_ = gf.nameId_;
   	  	length_ = gf.length_ + gs.getLength();
-  	    geoSegments_ = new ArrayList<GeoSegment>();
-  	    
-  	    // Copying the segment list from original feature to constructed feature with addition of gs
-  		for(GeoSegment segment : gf.geoSegments_)
-  		{
-  	  		GeoPoint tmpPoint1 = new GeoPoint(segment.getP1().getLatitude() ,segment.getP1().getLongitude());
-  	  		GeoPoint tmpPoint2 = new GeoPoint(segment.getP2().getLatitude() ,segment.getP2().getLongitude());
-  	  		GeoSegment gsTmp = new GeoSegment(segment.getName(), tmpPoint1, tmpPoint2);
-  	  		geoSegments_.add(gsTmp);
-  		}
-	  	GeoPoint tmpPoint1 = new GeoPoint(gs.getP1().getLatitude() ,gs.getP1().getLongitude());
-	  	GeoPoint tmpPoint2 = new GeoPoint(gs.getP2().getLatitude() ,gs.getP2().getLongitude());
-	  	GeoSegment gsTmp = new GeoSegment(gs.getName(), tmpPoint1, tmpPoint2);
-  		geoSegments_.add(gsTmp);
+  	  	
+  	  	// The new feature shares the columns of gf if the slot after gf is
+  	  	// still free, and continues on a copy of gf's segments otherwise
+  	  	columns_ = gf.columns_.claim(gf.from_, gf.from_ + gf.size_, 0, 0);
+  	  	from_ = (columns_ == gf.columns_) ? gf.from_ : 0;
+  	  	size_ = gf.size_ + 1;
+  	  	columns_.setSegment(from_ + gf.size_, gs);
+  	  	fingerprint_ = GeoSegment.extendFingerprint(gf.fingerprint_, gs);
+  		checkRep();
+  	}
+
+
+  	/**
+     * Constructs a new GeoFeature over segments already stored in columns.
+     * @requires columns != null && size >= 1 && the segments
+     * 			 from..from+size-1 of columns are written, connected and
+     * 			 share a name && length and fingerprint are the length and
+     * 			 the fingerprint of those segments && start and end equal
+     * 			 the points from and from+size of columns
+     * @effects Constructs a new GeoFeature, r, whose segments are the
+     * 			segments from..from+size-1 of columns, with r.start = start
+     * 			and r.end = end.
+     **/
+  	GeoFeature(SegmentColumns columns, int from, int size, double length, long fingerprint,
+  			   GeoPoint start, GeoPoint end) {
+  		columns_ = columns;
+  		from_ = from;
+  		size_ = size;
+  		nameId_ = columns.nameId(from);
+  		start_ = start;
+  		end_ = end;
+  		startHeading_ = columns.heading(from);
+  		endHeading_ = columns.heading(from + size - 1);
+  		length_ = length;
+  		fingerprint_ = fingerprint;
   		checkRep();
   	}
   
@@ -128,7 +154,17 @@ public class GeoFeature {
      */
   	public String getName() {
   		checkRep();
-  		return name_;
+  		return NameTable.nameOf(nameId_);
+  	}
+
+
+ 	/**
+ 	 * Returns the NameTable ID of the name of geographic feature.
+     * @return NameTable.idOf(this.name)
+     */
+  	public int getNameId() {
+  		checkRep();
+  		return nameId_;
   	}
 
 
@@ -138,9 +174,7 @@ public class GeoFeature {
      */
   	public GeoPoint getStart() {
   		checkRep();
-  		GeoPoint gpTmp = new GeoPoint(start_.getLatitude() ,start_.getLongitude());
-  		checkRep();
-  		return gpTmp;
+  		return start_;
   	}
 
 
@@ -150,9 +184,7 @@ public class GeoFeature {
      */
   	public GeoPoint getEnd() {
   		checkRep();
-  		GeoPoint gpTmp = new GeoPoint(end_.getLatitude() ,end_.getLongitude());
-  		checkRep();
-  		return gpTmp;
+  		return end_;
   	}
 
 
@@ -228,17 +260,33 @@ public class GeoFeature {
      */
   	public Iterator<GeoSegment> getGeoSegments() {
   		checkRep();
-  		ArrayList<GeoSegment> newSegmentList = new ArrayList<GeoSegment>();
-  		// Copying the segment list to prevent rep exposure
-  		for(GeoSegment segment : geoSegments_)
-  		{
-  	  		GeoPoint tmpPoint1 = new GeoPoint(segment.getP1().getLatitude() ,segment.getP1().getLongitude());
-  	  		GeoPoint tmpPoint2 = new GeoPoint(segment.getP2().getLatitude() ,segment.getP2().getLongitude());
-  	  		GeoSegment gsTmp = new GeoSegment(segment.getName(), tmpPoint1, tmpPoint2);
-  	  		newSegmentList.add(gsTmp);
-  		}
+  		// The segments are materialized from the columns as they are read
+  		return columns_.segments(from_, from_ + size_, start_, end_);
+  	}
+
+
+  	/**
+     * Returns an unmodifiable List view of the GeoSegments of this
+     * GeoFeature, in order. The List holds the same elements as the
+     * Iterator returned by <tt>getGeoSegments()</tt>.
+     * @return an unmodifiable List of the GeoSegments of this GeoFeature.
+     * @see #getGeoSegments()
+     */
+  	public List<GeoSegment> getGeoSegmentList() {
+  		checkRep();
+  		return columns_.segmentList(from_, from_ + size_, start_, end_);
+  	}
+
+
+  	/**
+     * Returns a sequential Stream of the GeoSegments of this GeoFeature, in
+     * order.
+     * @return a Stream of the GeoSegments of this GeoFeature.
+     * @see #getGeoSegments()
+     */
+  	public Stream<GeoSegment> getGeoSegmentStream() {
   		checkRep();
-  		return newSegmentList.iterator();
+  		return getGeoSegmentList().stream();
   	}
 
 
@@ -255,18 +303,10 @@ public class GeoFeature {
   			return false;
   		}
   		GeoFeature gf = (GeoFeature)o;
-  		GeoSegment thisGeoSegment;
-  		GeoSegment inputGeoSegment;
-  		boolean result = false;
-  		Iterator<GeoSegment> thisIterator = geoSegments_.iterator();
-  		Iterator<GeoSegment> gfIterator = gf.getGeoSegments();
-  		while (thisIterator.hasNext() && gfIterator.hasNext())
-  		{
-  			thisGeoSegment = thisIterator.next();
-  			inputGeoSegment = gfIterator.next();
-  			result = ( thisGeoSegment.equals(inputGeoSegment) ) ? true : false;
-  			result = ( (geoSegments_.iterator().hasNext() && gf.getGeoSegments().hasNext()) || (!geoSegments_.iterator().hasNext() && !gf.getGeoSegments().hasNext()) ) ? true : false;
-  		}
+  		// Mismatching sizes or fingerprints are rejected in O(1), otherwise
+  		// the segments are compared in a single pass
+  		boolean result = (size_ == gf.size_ && fingerprint_ == gf.fingerprint_ &&
+  						  SegmentColumns.rangeEquals(columns_, from_, gf.columns_, gf.from_, size_));
   		checkRep();
   		return result;
   	}
@@ -277,9 +317,20 @@ public class GeoFeature {
      * @return a hash code for this.
      **/
   	public int hashCode() {
-  		
-    	
-    	return 1;
+  		checkRep();
+    	return (int) (fingerprint_ ^ (fingerprint_ >>> 32));
+  	}
+
+
+  	/**
+  	 * Returns a 64-bit content fingerprint of this, computed once at
+  	 * construction. Equal GeoFeatures have equal fingerprints; different
+  	 * GeoFeatures have different fingerprints with high probability.
+     * @return a content fingerprint of this.
+     **/
+  	public long getFingerprint() {
+  		checkRep();
+  		return fingerprint_;
   	}
 
 
@@ -289,10 +340,16 @@ public class GeoFeature {
      **/
   	public String toString() {
   		checkRep();
-  		String shortLength = new DecimalFormat("##.#").format(length_);
-  		String geoFeatureString = "Georaphical feature " + name_ + " starts at: " + start_.toString() + " and ends at: " + end_.toString() + ". The length of the feature is " + shortLength + " KM.";
+  		StringBuilder geoFeatureString = FixedPointFormat.buffer();
+  		geoFeatureString.append("Georaphical feature ").append(NameTable.nameOf(nameId_)).append(" starts at: ");
+  		start_.appendTo(geoFeatureString);
+  		geoFeatureString.append(" and ends at: ");
+  		end_.appendTo(geoFeatureString);
+  		geoFeatureString.append(". The length of the feature is ");
+  		FixedPointFormat.appendTenths(geoFeatureString, length_);
+  		geoFeatureString.append(" KM.");
   		checkRep();
-  		return geoFeatureString;
+  		return geoFeatureString.toString();
   	}
 
 
@@ -302,26 +359,27 @@ public class GeoFeature {
 	 * @throws AssertionError if representation invariant is violated.
 	 **/
 	private void checkRep() {
-		assert (startHeading_ >= 0 && startHeading_ < 360 && geoSegments_.get(0).getHeading() == startHeading_) :
+		assert (startHeading_ >= 0 && startHeading_ < 360 && columns_.heading(from_) == startHeading_) :
 			"Wrong start heading direction.";
-		assert (endHeading_ >= 0 && endHeading_ < 360 && geoSegments_.get(geoSegments_.size()-1).getHeading() == endHeading_) :
+		assert (endHeading_ >= 0 && endHeading_ < 360 && columns_.heading(from_ + size_ - 1) == endHeading_) :
 			"Wrong end heading direction.";
-		assert (name_.length() >= 1) :
+		assert (NameTable.nameOf(nameId_).length() >= 1) :
 			"Not viable feature name.";
-		double tmpLength = geoSegments_.get(0).getLength();
-		GeoPoint prevPoint = geoSegments_.get(0).getP2();
-		if (geoSegments_.size() > 1)
+		// Every prefix of the segments was already checked when the feature it
+		// belongs to was constructed, or, for a feature read from a Route, when
+		// the Route was checked, so only the newest segment is checked here
+		int last = from_ + size_ - 1;
+		assert (columns_.nameId(last) == nameId_) :
+			"Wrong segment name.";
+		assert (columns_.latitude(from_) == start_.getLatitude() && columns_.longitude(from_) == start_.getLongitude()) :
+			"Wrong segment sequence.";
+		assert (columns_.latitude(last + 1) == end_.getLatitude() && columns_.longitude(last + 1) == end_.getLongitude()) :
+			"Wrong segment sequence.";
+		if (size_ == 1)
 		{
-			for(GeoSegment segment : geoSegments_.subList(1, geoSegments_.size()))
-	  		{
-				assert (prevPoint.equals(segment.getP1())) :
-					"Wrong segment sequence.";
-	  	  		tmpLength += segment.getLength();
-	  	  		prevPoint = segment.getP2();
-	  		}
+			assert (columns_.length(from_) == length_) :
+				"Incorrect feature length.";
 		}
-		assert (tmpLength == length_) :
-			"Incorrect feature length.";
 		}
 
 }
\ No newline at end of file
@@ -1,8 +1,5 @@
 package homework1;
 
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
-
 /**
  * A GeoPoint is a point on the earth. GeoPoints are immutable.
  * <p>
@@ -173,7 +170,10 @@ public class GeoPoint {
    	 **/
   	public int hashCode() {
   		checkRep();
-  		int hashCode = latitude_ + longitude_;
+  		// Spreads both coordinates over all bits, so that nearby points and
+  		// points on the same diagonal do not collide
+  		long mixed = pack(latitude_, longitude_) * 0x9E3779B97F4A7C15L;
+  		int hashCode = (int) (mixed ^ (mixed >>> 32));
   		checkRep();
   		return hashCode;
   	}
@@ -185,19 +185,39 @@ public class GeoPoint {
      **/
   	public String toString() {
   		checkRep();
-  		int signLatitude = (int) Math.signum(latitude_);
-  		int signLongitude = (int) Math.signum(longitude_);
-
-  				
-  		String latitudeString = (signLatitude > 0) ? " N" : " S";
-  		String longitudeString = (signLongitude > 0) ? " E" : " W";
-  		
-  		NumberFormat formatter = new DecimalFormat("#00.000000");
-  		String geoPointString =  "(" + String.valueOf(formatter.format((double)latitude_/MILLION)) + latitudeString + ", " 
-  								     + String.valueOf(formatter.format((double)longitude_/MILLION)) + longitudeString + ")";
+  		StringBuilder geoPointString = FixedPointFormat.buffer();
+  		appendTo(geoPointString);
   		checkRep();
-  		return geoPointString;
+  		return geoPointString.toString();
+  	}
+
+
+  	/**
+  	 * Appends the string representation of this GeoPoint to out.
+  	 * @requires out != null
+  	 * @modifies out
+  	 * @effects appends toString() to out.
+  	 **/
+  	void appendTo(StringBuilder out) {
+  		out.append('(');
+  		FixedPointFormat.appendDegrees(out, latitude_);
+  		out.append((latitude_ > 0) ? " N" : " S").append(", ");
+  		FixedPointFormat.appendDegrees(out, longitude_);
+  		out.append((longitude_ > 0) ? " E" : " W").append(')');
   	}
+
+
+  	/**
+  	 * Packs a latitude and a longitude into a single long value.
+  	 * @return a long value that holds latitude in its upper 32 bits and
+  	 * 		   longitude in its lower 32 bits. Different coordinate pairs are
+  	 * 		   packed into different values.
+  	 **/
+  	static long pack(int latitude, int longitude) {
+  		return ((long) latitude << 32) | (longitude & 0xffffffffL);
+  	}
+
+
   	/**
      * Checks to see if the representation invariant is being violated.
      * @throws AssertionError if representation invariant is violated.
@@ -0,0 +1,182 @@
+package homework1;
+
+/**
+ * A GeoPointPool canonicalizes GeoPoints: it hands out one shared GeoPoint
+ * instance per coordinate pair, so that the many GeoSegments meeting at the
+ * same intersection can share a single GeoPoint instead of holding
+ * duplicates of it.
+ * <p>
+ * The pool is bounded. It is organized as a two-way set-associative cache
+ * keyed by the packed coordinates of a point: every coordinate pair maps to
+ * a set of two slots, and when both slots are taken the least recently used
+ * point of the set is evicted. An evicted point stays valid; it is simply
+ * no longer returned by the pool, and a later request for the same
+ * coordinates creates a new canonical instance.
+ * <p>
+ * GeoPointPool is thread-safe and lock-free. Concurrent requests for the
+ * same coordinates may occasionally return different instances; since
+ * GeoPoints are compared by value this only affects memory, never
+ * correctness.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   capacity : integer    // maximal number of points held by the pool
+ *   points : set          // the canonical GeoPoints currently held by the pool
+ * </pre>
+ */
+public final class GeoPointPool {
+
+	private static final int WAYS = 2;
+
+	private final GeoPoint[] slots_;
+	private final int setMask_;
+
+
+	// Abstraction Function:
+	// points = the non-null elements of slots_, capacity = slots_.length.
+	// The set of a coordinate pair (lat, lon) is
+	// slots_[WAYS*s], ..., slots_[WAYS*s + WAYS-1] where s = setOf(lat, lon),
+	// ordered from the most recently used to the least recently used.
+
+	// Representation invariant for every GeoPointPool p:
+	// slots_.length = WAYS * (setMask_ + 1) and setMask_ + 1 is a power of 2
+	// every non-null slots_[i] lies in the set of its own coordinates
+
+
+	/**
+	 * Constructs a new, empty GeoPointPool.
+	 * @requires capacity > 0
+	 * @effects Constructs a new, empty GeoPointPool that holds at least
+	 * 			capacity points (rounded up to a power of 2).
+	 */
+	public GeoPointPool(int capacity) {
+		int sets = Integer.highestOneBit(Math.max(1, (capacity + WAYS - 1) / WAYS));
+		if (sets * WAYS < capacity) {
+			sets *= 2;
+		}
+		slots_ = new GeoPoint[sets * WAYS];
+		setMask_ = sets - 1;
+		checkRep();
+	}
+
+
+	/**
+	 * Returns the canonical GeoPoint of a coordinate pair.
+	 * @requires the point given by (latitude, longitude) is valid as
+	 * 			 defined by the GeoPoint constructor
+	 * @modifies this.points
+	 * @effects adds the returned point to this.points, possibly evicting
+	 * 			the least recently used point with colliding coordinates.
+	 * @return a GeoPoint gp such that gp.latitude = latitude &&
+	 * 		   gp.longitude = longitude. Calls with the same coordinates
+	 * 		   return the same instance as long as it is not evicted.
+	 */
+	public GeoPoint get(int latitude, int longitude) {
+		GeoPoint gp = lookup(latitude, longitude);
+		return (gp != null) ? gp : insert(new GeoPoint(latitude, longitude));
+	}
+
+
+	/**
+	 * Returns the canonical GeoPoint equal to gp.
+	 * @requires gp != null
+	 * @modifies this.points
+	 * @effects adds gp to this.points if no point equal to it is held,
+	 * 			possibly evicting the least recently used point with
+	 * 			colliding coordinates.
+	 * @return the GeoPoint of this.points that equals gp.
+	 */
+	public GeoPoint intern(GeoPoint gp) {
+		GeoPoint canonical = lookup(gp.getLatitude(), gp.getLongitude());
+		return (canonical != null) ? canonical : insert(gp);
+	}
+
+
+	/**
+	 * Returns a GeoSegment equal to gs whose endpoints are canonical.
+	 * @requires gs != null
+	 * @modifies this.points
+	 * @effects interns gs.p1 and gs.p2 as defined by intern(GeoPoint).
+	 * @return a GeoSegment r such that r.equals(gs) and r.p1 and r.p2 are
+	 * 		   in this.points. gs itself is returned if its endpoints are
+	 * 		   already canonical.
+	 */
+	public GeoSegment intern(GeoSegment gs) {
+		GeoPoint p1 = intern(gs.getP1());
+		GeoPoint p2 = intern(gs.getP2());
+		if (p1 == gs.getP1() && p2 == gs.getP2()) {
+			return gs;
+		}
+		return new GeoSegment(gs.getNameId(), p1, p2);
+	}
+
+
+	/**
+	 * Returns the maximal number of points held by this pool.
+	 * @return this.capacity
+	 */
+	public int getCapacity() {
+		return slots_.length;
+	}
+
+
+	/**
+	 * Looks up the canonical GeoPoint of a coordinate pair, and marks it as
+	 * the most recently used point of its set.
+	 * @return the GeoPoint of this.points with the given coordinates, or
+	 * 		   null if there is none.
+	 */
+	private GeoPoint lookup(int latitude, int longitude) {
+		int first = setOf(latitude, longitude) * WAYS;
+		GeoPoint gp = slots_[first];
+		if (gp != null && gp.getLatitude() == latitude && gp.getLongitude() == longitude) {
+			return gp;
+		}
+		for (int i = first + 1; i < first + WAYS; i++) {
+			gp = slots_[i];
+			if (gp != null && gp.getLatitude() == latitude && gp.getLongitude() == longitude) {
+				// Move the hit to the front of its set
+				slots_[i] = slots_[i - 1];
+				slots_[i - 1] = gp;
+				return gp;
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Inserts gp as the most recently used point of its set, evicting the
+	 * least recently used point of the set.
+	 * @return gp
+	 */
+	private GeoPoint insert(GeoPoint gp) {
+		int first = setOf(gp.getLatitude(), gp.getLongitude()) * WAYS;
+		for (int i = first + WAYS - 1; i > first; i--) {
+			slots_[i] = slots_[i - 1];
+		}
+		slots_[first] = gp;
+		return gp;
+	}
+
+
+	/**
+	 * Returns the set a coordinate pair belongs to.
+	 * @return an integer s such that 0 <= s <= setMask_
+	 */
+	private int setOf(int latitude, int longitude) {
+		long mixed = GeoPoint.pack(latitude, longitude) * 0x9E3779B97F4A7C15L;
+		return (int) (mixed >>> 32) & setMask_;
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (slots_.length == WAYS * (setMask_ + 1) && Integer.bitCount(setMask_ + 1) == 1) :
+			"Wrong pool size.";
+	}
+
+}
@@ -1,8 +1,5 @@
 package homework1;
 
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
-
 /**
  * A GeoSegment models a straight line segment on the earth. GeoSegments 
  * are immutable.
@@ -29,8 +26,9 @@ import java.text.NumberFormat;
  * A name is given to all GeoSegment objects so that it is possible to
  * differentiate between two GeoSegment objects with identical
  * GeoPoint endpoints. Equality between GeoSegment objects requires
- * that the names be equal String objects and the end points be equal
- * GeoPoint objects.
+ * that the names be equal Strings and the end points be equal
+ * GeoPoint objects. Names are held in the NameTable and compared by
+ * their IDs.
  * </p>
  *
  * <b>The following fields are used in the specification:</b>
@@ -44,20 +42,24 @@ import java.text.NumberFormat;
  **/
 public class GeoSegment  {
 
-	private final String name_;
+	private static final long FINGERPRINT_MULTIPLIER = 0x100000001b3L;
+
+	private final int nameId_;
   	private final GeoPoint p1_;
   	private final GeoPoint p2_;
   	private final double length_;
   	private final double heading_;	
+  	private final long fingerprint_;
 	
   	
 	// Abstraction Function:
-	// Represents a straight line segment on the earth that starts at point p1_, heading in direction of heading_ and ends at point p2_, named name_and stretches over length length_.
+	// Represents a straight line segment on the earth that starts at point p1_, heading in direction of heading_ and ends at point p2_, named NameTable.nameOf(nameId_) and stretches over length length_.
 	
 	// Representation invariant for every GeoSegment s:
 	// heading_ is a number in range [0,360) 
-  	// name_ is nonempty string
+  	// nameId_ is the NameTable ID of a nonempty string
   	// length_ > 0
+  	// fingerprint_ is the 64-bit hash of the name, p1_ and p2_, computed once at construction
 	
 	
   	/**
@@ -66,11 +68,44 @@ public class GeoSegment  {
      * @effects constructs a new GeoSegment with the specified name and endpoints.
      **/
   	public GeoSegment(String name, GeoPoint p1, GeoPoint p2) {
-  		name_ = name;
-  		p1_ = new GeoPoint(p1.getLatitude(), p1.getLongitude());
-  		p2_ = new GeoPoint(p2.getLatitude(), p2.getLongitude());
-  		length_ = p1.distanceTo(p2);
-  		heading_ = p1.headingTo(p2);
+  		this(NameTable.idOf(name), p1, p2);
+  	}
+
+
+  	/**
+     * Constructs a new GeoSegment with the specified name ID and endpoints.
+     * @requires 0 <= nameId < NameTable.size() && p1 != null && p2 != null
+     * @effects constructs a new GeoSegment with the name
+     * 			NameTable.nameOf(nameId) and the specified endpoints.
+     **/
+  	GeoSegment(int nameId, GeoPoint p1, GeoPoint p2) {
+  		this(nameId, p1, p2, p1.distanceTo(p2), p1.headingTo(p2));
+  	}
+
+
+  	/**
+     * Constructs a new GeoSegment with the specified name ID, endpoints and
+     * precomputed length and heading. Used to materialize segments whose
+     * length and heading are already stored elsewhere.
+     * @requires 0 <= nameId < NameTable.size() && p1 != null && p2 != null
+     * 			 && length = p1.distanceTo(p2) && heading = p1.headingTo(p2)
+     * @effects constructs a new GeoSegment with the name
+     * 			NameTable.nameOf(nameId) and the specified endpoints.
+     **/
+  	GeoSegment(int nameId, GeoPoint p1, GeoPoint p2, double length, double heading) {
+  		nameId_ = nameId;
+  		// GeoPoints are immutable, so they can be shared without copying
+  		p1_ = p1;
+  		p2_ = p2;
+  		length_ = length;
+  		heading_ = heading;
+  		// The fingerprint hashes the name itself rather than its ID, so that
+  		// it does not depend on the order in which names were first seen
+  		long fingerprint = mix(NameTable.nameOf(nameId).hashCode());
+  		fingerprint = mix(fingerprint * FINGERPRINT_MULTIPLIER
+  						  + GeoPoint.pack(p1.getLatitude(), p1.getLongitude()));
+  		fingerprint_ = mix(fingerprint * FINGERPRINT_MULTIPLIER
+  						   + GeoPoint.pack(p2.getLatitude(), p2.getLongitude()));
   		checkRep();
   	}
 
@@ -82,9 +117,7 @@ public class GeoSegment  {
      **/
   	public GeoSegment reverse() {
   		checkRep();
-  		GeoPoint tmpP1 = new GeoPoint(p1_.getLatitude(), p1_.getLongitude());
-  		GeoPoint tmpP2 = new GeoPoint(p2_.getLatitude(), p2_.getLongitude());		
-  		GeoSegment reversedSegment = new GeoSegment(name_, tmpP2, tmpP1);
+  		GeoSegment reversedSegment = new GeoSegment(nameId_, p2_, p1_);
   		checkRep();
   		return reversedSegment;
   	}
@@ -96,7 +129,17 @@ public class GeoSegment  {
      */
   	public String getName() {
   		checkRep();
-  		return name_;
+  		return NameTable.nameOf(nameId_);
+  	}
+
+
+  	/**
+  	 * Returns the NameTable ID of the name of this GeoSegment.
+     * @return NameTable.idOf(this.name)
+     */
+  	public int getNameId() {
+  		checkRep();
+  		return nameId_;
   	}
 
 
@@ -106,9 +149,7 @@ public class GeoSegment  {
      */
   	public GeoPoint getP1() {
   		checkRep();
-  		GeoPoint tmpP1 = new GeoPoint(p1_.getLatitude(), p1_.getLongitude());
-  		checkRep();
-  		return tmpP1;
+  		return p1_;
   	}
 
 
@@ -118,9 +159,7 @@ public class GeoSegment  {
      */
   	public GeoPoint getP2() {
   		checkRep();
-  		GeoPoint tmpP2 = new GeoPoint(p2_.getLatitude(), p2_.getLongitude());
-  		checkRep();
-  		return tmpP2;
+  		return p2_;
   	}
 
 
@@ -158,7 +197,7 @@ public class GeoSegment  {
   			return false;
   		}
   		GeoSegment geoSegment = (GeoSegment)gs;
-  		boolean result = ( geoSegment.getName() == name_ && p1_.equals(geoSegment.getP1()) && p2_.equals(geoSegment.getP2())) ? true : false;
+  		boolean result = ( geoSegment.fingerprint_ == fingerprint_ && geoSegment.nameId_ == nameId_ && p1_.equals(geoSegment.p1_) && p2_.equals(geoSegment.p2_)) ? true : false;
   		checkRep();
   		return result;
   	}
@@ -169,10 +208,46 @@ public class GeoSegment  {
      * @return a hash code value for this.
      **/
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it 
-    	// for improved performance. 
+  		checkRep();
+    	return (int) (fingerprint_ ^ (fingerprint_ >>> 32));
+  	}
+
+
+  	/**
+  	 * Returns a 64-bit content fingerprint of this. Equal GeoSegments have
+  	 * equal fingerprints; different GeoSegments have different fingerprints
+  	 * with high probability.
+     * @return a content fingerprint of this.
+     **/
+  	public long getFingerprint() {
+  		checkRep();
+  		return fingerprint_;
+  	}
 
-    	return 1;
+
+  	/**
+  	 * Extends the fingerprint of a sequence of GeoSegments with one more
+  	 * GeoSegment.
+  	 * @requires gs != null
+     * @return the fingerprint of the sequence whose fingerprint is prefix,
+     * 		   with gs appended to its end.
+     **/
+  	static long extendFingerprint(long prefix, GeoSegment gs) {
+  		return prefix * FINGERPRINT_MULTIPLIER + gs.fingerprint_;
+  	}
+
+
+  	/**
+  	 * Scrambles the bits of a 64-bit value (the MurmurHash3 finalizer).
+     * @return a well-distributed 64-bit hash of value.
+     **/
+  	private static long mix(long value) {
+  		value ^= value >>> 33;
+  		value *= 0xff51afd7ed558ccdL;
+  		value ^= value >>> 33;
+  		value *= 0xc4ceb9fe1a85ec53L;
+  		value ^= value >>> 33;
+  		return value;
   	}
 
 
@@ -182,12 +257,16 @@ public class GeoSegment  {
      **/
   	public String toString() {
   		checkRep();
-
-  		NumberFormat formatter = new DecimalFormat("#0.00"); 
-  		String geoFeatureString = "\"" + name_ + "\" - " + p1_.toString() + " --> "
-  									   + p2_.toString() + ". Length: " + formatter.format(length_) + " [Km]";
+  		StringBuilder geoSegmentString = FixedPointFormat.buffer();
+  		geoSegmentString.append('"').append(NameTable.nameOf(nameId_)).append("\" - ");
+  		p1_.appendTo(geoSegmentString);
+  		geoSegmentString.append(" --> ");
+  		p2_.appendTo(geoSegmentString);
+  		geoSegmentString.append(". Length: ");
+  		FixedPointFormat.appendHundredths(geoSegmentString, length_);
+  		geoSegmentString.append(" [Km]");
   		checkRep();
-  		return geoFeatureString;
+  		return geoSegmentString.toString();
 }
   	
 	/**
@@ -197,7 +276,7 @@ public class GeoSegment  {
   	private void checkRep() {
 		assert (heading_ >= 0 && heading_ < 360) :
 			"Wrong heading direction.";
-		assert (name_.length() >= 1) :
+		assert (NameTable.nameOf(nameId_).length() >= 1) :
 			"Not viable feature name.";
 }
 
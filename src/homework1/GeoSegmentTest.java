@@ -1,5 +1,7 @@
 package homework1;
 
+import java.util.Arrays;
+
 public class GeoSegmentTest {
 	
 	private static final double tolerance = 0.01;
@@ -70,6 +72,8 @@ public class GeoSegmentTest {
 		GeoSegment gsNorth2 = new GeoSegment("North", gpZivSquare2, gpNorth2);
 		show("Segment equality should use value equality, not reference equality",
 			gsNorth.equals(gsNorth2));
+		show("Name equality should use value equality, not reference equality",
+			gsNorth.equals(new GeoSegment(new String("North"), gpZivSquare, gpNorth)));
 		show("equals(non-GeoSegment) should be false",
 		   !gsNorth2.equals("aString"));
 		show("equals(null) should be false",
@@ -78,6 +82,10 @@ public class GeoSegmentTest {
 		show("hashCode()");
 		show(".equals() objects must have the same .hashCode()",
 			gsNorth.hashCode() == gsNorth2.hashCode());
+		show("Segments with the same points and different names should have different .hashCode()",
+			gsEast2.hashCode() != gsWest2.hashCode());
+		show("Points on the same diagonal should have different .hashCode()",
+			new GeoPoint(32783098,35014528).hashCode() != new GeoPoint(32783099,35014527).hashCode());
 		   		
 		show("reverse()");
 		show("Reversed segment is equal to same segment reversed.",
@@ -97,6 +105,8 @@ public class GeoSegmentTest {
 			
 		show("getName()");
 		show("getName() works.", gsEast.getName().equals("East"));
+		show("getNameId() works.",
+			NameTable.nameOf(gsEast.getNameId()) == gsEast2.getName());
 				
 		show("getP1() & getP2()");
 		show("getP1() works.", gsEast.getP1().equals(gpZivSquare));
@@ -122,9 +132,76 @@ public class GeoSegmentTest {
 		 	same(gsNorth.reverse().getHeading(), 180.0));		
   	}
 
+  	
+  	public void testStore() {
+  		SegmentStore store = new SegmentStore(new GeoSegment[] {
+  				gsWest, gsEast2, gsNorth, gsEast, gsDiag });
+  		
+  		show("SegmentStore");
+  		show("Size", store.size() == 5 && store.get(3) == gsEast);
+  		show("Prefix \"ea\" finds both East segments in order",
+  			Arrays.equals(store.findByNamePrefix("ea"), new int[] {1, 3}));
+  		show("Empty prefix finds all segments",
+  			store.findByNamePrefix("").length == 5);
+  		show("Unknown prefix finds nothing",
+  			store.findByNamePrefix("South").length == 0);
+  		show("Endpoint finds the segments touching it",
+  			Arrays.equals(store.findByEndpoint(gpWest), new int[] {0, 1, 4}));
+  		show("Unknown endpoint finds nothing",
+  			store.findByEndpoint(new GeoPoint(0, 0)).length == 0);
+  		
+  		SegmentListModel model = new SegmentListModel(store);
+  		model.setFilter("", gpWest);
+  		show("Model shows the segments starting at a point",
+  			model.getSize() == 2 && model.getElementAt(0) == gsEast2);
+  		model.setFilter("n", gpWest);
+  		show("Model combines both filters",
+  			model.getSize() == 1 && model.getElementAt(0) == gsDiag);
+  		model.setFilter("", null);
+  		show("Model without filters shows all segments", model.getSize() == 5);
+  	}
+
+
+  	public void testPool() {
+  		GeoPointPool pool = new GeoPointPool(2);
+  		
+  		show("GeoPointPool");
+  		GeoPoint a = pool.get(32783098, 35014528);
+  		show("Same coordinates give the same instance",
+  			pool.get(32783098, 35014528) == a && a.equals(gpZivSquare));
+  		show("Interning an equal point gives the canonical instance",
+  			pool.intern(new GeoPoint(32783098, 35014528)) == a);
+  		GeoPoint b = pool.get(32783098, 35025202);
+  		pool.get(32783098, 35014528);
+  		GeoPoint c = pool.get(32792115, 35014528);
+  		show("The least recently used point of a set is evicted",
+  			pool.get(32783098, 35014528) == a && pool.get(32792115, 35014528) == c
+  			&& pool.get(32783098, 35025202) != b);
+  		show("An evicted point stays valid", b.equals(gpEast));
+  		show("Capacity is rounded up to a power of 2",
+  			new GeoPointPool(1).getCapacity() == 2 && new GeoPointPool(3).getCapacity() == 4
+  			&& new GeoPointPool(5).getCapacity() == 8 && new GeoPointPool(1000).getCapacity() == 1024);
+  		
+  		GeoPointPool segmentPool = new GeoPointPool(64);
+  		GeoSegment interned = segmentPool.intern(new GeoSegment("East",
+  				new GeoPoint(32783098, 35014528), new GeoPoint(32783098, 35025202)));
+  		show("Interning a segment gives canonical endpoints", interned.equals(gsEast)
+  			&& interned.getP1() == segmentPool.get(32783098, 35014528)
+  			&& interned.getP2() == segmentPool.get(32783098, 35025202));
+  		show("A segment with canonical endpoints is returned as is",
+  			segmentPool.intern(interned) == interned);
+  		
+  		Route route = new RouteBuilder(segmentPool).addSegment(gsWest.reverse()).addSegment(gsEast).build();
+  		show("A pooled RouteBuilder shares the endpoints of the route",
+  			route.getStart() == segmentPool.get(32783098, 35003854)
+  			&& route.getEnd() == segmentPool.get(32783098, 35025202));
+  	}
+
 
 	public static void main(String[] args) {
 		GeoSegmentTest segmentTest = new GeoSegmentTest();
 		segmentTest.test();
+		segmentTest.testStore();
+		segmentTest.testPool();
 	}
 }
@@ -2,6 +2,7 @@ package homework1;
 
 import javax.swing.*;
 import java.awt.*;
+import javax.swing.event.*;
 import java.awt.event.*;
 
 /**
@@ -17,8 +18,13 @@ public class GeoSegmentsDialog extends JDialog {
 	// the RouteDirectionsGUI that this JDialog was opened from
 	private RouteFormatterGUI parent;
 	
-	// a control contained in this 
+	// the segments that can be chosen, shown through segmentsModel
+	private SegmentListModel segmentsModel;
+	
+	// some of the controls contained in this 
 	private JList<GeoSegment> lstSegments;
+	private JTextField txtSearch;
+	private JCheckBox chkContinuing;
 	
 	/**
 	 * Creates a new GeoSegmentsDialog JDialog.
@@ -35,14 +41,18 @@ public class GeoSegmentsDialog extends JDialog {
 		
 		// create components
 		
-		DefaultListModel<GeoSegment> listModel = new DefaultListModel<>();
-		
-		for (GeoSegment segment : ExampleGeoSegments.segments) {
-	        listModel.addElement(segment);
-		}
+		// the segments are shown through a lazy model over an indexed store,
+		// instead of being copied into the list
+		segmentsModel = new SegmentListModel(new SegmentStore(ExampleGeoSegments.segments));
 		
-		lstSegments = new JList<>(listModel);
+		lstSegments = new JList<>(segmentsModel);
 		lstSegments.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		// with fixed cell sizes the list renders only its visible rows,
+		// instead of measuring every segment
+		if (segmentsModel.getSize() > 0) {
+			lstSegments.setPrototypeCellValue(segmentsModel.getElementAt(0));
+		}
+		lstSegments.setFixedCellWidth(1000);
 
 		JScrollPane scrlSegments = new JScrollPane(lstSegments);
 		scrlSegments.setPreferredSize(new Dimension(750, 150));
@@ -50,6 +60,27 @@ public class GeoSegmentsDialog extends JDialog {
 		JLabel lblSegments = new JLabel("GeoSegments:");
 		lblSegments.setLabelFor(lstSegments);
 		
+		txtSearch = new JTextField(20);
+		txtSearch.setToolTipText("Show only roads whose name starts with this text");
+		txtSearch.getDocument().addDocumentListener(new DocumentListener() {
+			public void insertUpdate(DocumentEvent e) {
+				updateFilter();
+			}
+			public void removeUpdate(DocumentEvent e) {
+				updateFilter();
+			}
+			public void changedUpdate(DocumentEvent e) {
+				updateFilter();
+			}
+		});
+		
+		chkContinuing = new JCheckBox("Only segments that continue the route");
+		chkContinuing.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				updateFilter();
+			}
+		});
+		
 		JButton btnAdd = new JButton("Add");
 		btnAdd.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {			
@@ -83,6 +114,24 @@ public class GeoSegmentsDialog extends JDialog {
 		gridbag.setConstraints(lblSegments, c);
 		this.add(lblSegments);
 		
+		c.gridx = 1;
+		c.gridy = 0;
+		c.gridwidth = 1;
+		c.gridheight = 1;
+		c.insets = new Insets(0,0,10,20);
+		
+		gridbag.setConstraints(txtSearch, c);
+		this.add(txtSearch);
+		
+		c.gridx = 2;
+		c.gridy = 0;
+		c.gridwidth = 1;
+		c.gridheight = 1;
+		c.insets = new Insets(0,0,10,0);
+		
+		gridbag.setConstraints(chkContinuing, c);
+		this.add(chkContinuing);
+		
 		c.gridx = 0;
 		c.gridy = 1;
 		c.gridwidth = 3;
@@ -112,4 +161,30 @@ public class GeoSegmentsDialog extends JDialog {
 		this.add(btnCancel);
 
 	}
-}
\ No newline at end of file
+
+
+	/**
+	 * Shows or hides this dialog. The segments shown are refreshed before
+	 * this dialog is shown, since the route may have changed.
+	 * @modifies this
+	 * @effects shows this dialog if visible, and hides it otherwise.
+	 */
+	public void setVisible(boolean visible) {
+		if (visible) {
+			updateFilter();
+		}
+		super.setVisible(visible);
+	}
+	
+	
+	/**
+	 * Filters the segments shown by the search text, and, if requested, by
+	 * the end of the route of the parent.
+	 * @modifies this
+	 * @effects sets the filters of segmentsModel.
+	 */
+	private void updateFilter() {
+		GeoPoint start = chkContinuing.isSelected() ? parent.getRouteEnd() : null;
+		segmentsModel.setFilter(txtSearch.getText().trim(), start);
+	}
+}
@@ -0,0 +1,285 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A HierarchyPlanner finds shortest routes with a ContractionHierarchy. It
+ * runs two Dijkstra searches at once, one from the start and one from the
+ * destination, each following only arcs that lead to nodes of higher rank,
+ * and they meet at the highest node of a shortest route. The shortcuts of
+ * the route are then unpacked into the segments of the graph.
+ * <p>
+ * A node whose distance is shown to be wrong by an arc from a node of
+ * higher rank cannot be on a shortest route, so its arcs are not followed
+ * (stall-on-demand); this keeps both searches in a small part of the
+ * hierarchy.
+ * <p>
+ * A HierarchyPlanner keeps the working arrays of its searches between
+ * queries. It is mutable and not thread-safe; concurrent queries should use
+ * a HierarchyPlanner per thread over a shared ContractionHierarchy.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   hierarchy : ContractionHierarchy    // the hierarchy searched
+ *   settled : integer                   // number of nodes settled by the last query
+ * </pre>
+ */
+public class HierarchyPlanner {
+
+	private static final int FORWARD = 0;
+	private static final int BACKWARD = 1;
+
+	private final ContractionHierarchy hierarchy_;
+	private final NodeHeap[] heaps_;
+	private final double[][] distances_;
+	private final int[][] parentNodes_;
+	private final int[][] parentArcs_;
+	private final int[][] reached_;
+	private int query_;
+	private int settledCount_;
+	private int meetingNode_;
+
+
+	// Abstraction Function:
+	// hierarchy = hierarchy_, settled = settledCount_.
+	// The forward search runs from the start and the backward search from
+	// the destination. Within the current query query_, node u was reached
+	// by search d iff reached_[d][u] = query_, and then distances_[d][u] is
+	// the length of the path found to it, whose last arc is
+	// parentArcs_[d][u] from node parentNodes_[d][u] (both -1 at the
+	// source of the search). The shortest route found passes through
+	// meetingNode_, or meetingNode_ = -1 if none was found.
+
+	// Representation invariant for every HierarchyPlanner p:
+	// heaps_, distances_, parentNodes_, parentArcs_ and reached_ hold one
+	// element per direction, each of hierarchy_.getGraph().getNodeCount() elements
+	// query_ >= 0 and no element of reached_ exceeds query_
+
+
+	/**
+	 * Constructs a new HierarchyPlanner.
+	 * @requires hierarchy != null
+	 * @effects Constructs a new HierarchyPlanner that searches hierarchy.
+	 */
+	public HierarchyPlanner(ContractionHierarchy hierarchy) {
+		hierarchy_ = hierarchy;
+		int nodeCount = hierarchy.getGraph().getNodeCount();
+		heaps_ = new NodeHeap[] { new NodeHeap(nodeCount), new NodeHeap(nodeCount) };
+		distances_ = new double[2][nodeCount];
+		parentNodes_ = new int[2][nodeCount];
+		parentArcs_ = new int[2][nodeCount];
+		reached_ = new int[2][nodeCount];
+		checkRep();
+	}
+
+
+	/**
+	 * Finds a shortest route between two points.
+	 * @requires from != null && to != null
+	 * @modifies this
+	 * @effects sets this.settled to the number of nodes settled by the
+	 * 			search.
+	 * @return a shortest Route of this.hierarchy.graph from from to to, or
+	 * 		   null if from or to is not a node of the graph, if from = to, or
+	 * 		   if there is no route between them.
+	 */
+	public Route findRoute(GeoPoint from, GeoPoint to) {
+		RoadGraph graph = hierarchy_.getGraph();
+		int source = graph.nodeOf(from);
+		int target = graph.nodeOf(to);
+		if (source < 0 || target < 0 || source == target
+				|| search(source, target) == Double.POSITIVE_INFINITY) {
+			return null;
+		}
+		int[] path = path();
+		return graph.buildRoute(path, path.length);
+	}
+
+
+	/**
+	 * Finds the length of a shortest route between two points.
+	 * @requires from != null && to != null
+	 * @modifies this
+	 * @effects sets this.settled to the number of nodes settled by the
+	 * 			search.
+	 * @return the length of a shortest route of this.hierarchy.graph from
+	 * 		   from to to, in kilometers: 0 if from = to, and
+	 * 		   Double.POSITIVE_INFINITY if from or to is not a node of the
+	 * 		   graph or there is no route between them.
+	 */
+	public double findDistance(GeoPoint from, GeoPoint to) {
+		RoadGraph graph = hierarchy_.getGraph();
+		int source = graph.nodeOf(from);
+		int target = graph.nodeOf(to);
+		if (source < 0 || target < 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return search(source, target);
+	}
+
+
+	/**
+	 * Returns the hierarchy searched by this planner.
+	 * @return this.hierarchy
+	 */
+	public ContractionHierarchy getHierarchy() {
+		return hierarchy_;
+	}
+
+
+	/**
+	 * Returns the number of nodes settled by the last query, in both
+	 * directions, a measure of its work.
+	 * @return this.settled
+	 */
+	public int getSettledCount() {
+		return settledCount_;
+	}
+
+
+	/**
+	 * Runs a bidirectional upward search between two nodes. After it
+	 * returns, path() gives the path found.
+	 * @requires 0 <= source, target < this.hierarchy.graph.getNodeCount()
+	 * @modifies this
+	 * @return the length of a shortest path from source to target, or
+	 * 		   Double.POSITIVE_INFINITY if there is none.
+	 */
+	double search(int source, int target) {
+		checkRep();
+		startQuery();
+		reach(FORWARD, source, 0, -1, -1);
+		heaps_[FORWARD].update(source, 0);
+		reach(BACKWARD, target, 0, -1, -1);
+		heaps_[BACKWARD].update(target, 0);
+		double best = Double.POSITIVE_INFINITY;
+		meetingNode_ = -1;
+		while (true) {
+			// Every search stops once it cannot improve the best route found
+			boolean forward = !heaps_[FORWARD].isEmpty() && heaps_[FORWARD].peekKey() < best;
+			boolean backward = !heaps_[BACKWARD].isEmpty() && heaps_[BACKWARD].peekKey() < best;
+			if (!forward && !backward) {
+				break;
+			}
+			int d = (forward && (!backward || heaps_[FORWARD].peekKey() <= heaps_[BACKWARD].peekKey()))
+					? FORWARD : BACKWARD;
+			int u = heaps_[d].poll();
+			settledCount_++;
+			double distance = distances_[d][u];
+			int other = 1 - d;
+			if (reached_[other][u] == query_ && distance + distances_[other][u] < best) {
+				best = distance + distances_[other][u];
+				meetingNode_ = u;
+			}
+			if (isStalled(d, u, distance)) {
+				continue;
+			}
+			for (int i = hierarchy_.firstUpward(u), end = hierarchy_.endUpward(u); i < end; i++) {
+				int v = hierarchy_.upwardTarget(i);
+				double candidate = distance + hierarchy_.upwardWeight(i);
+				if (reached_[d][v] != query_ || candidate < distances_[d][v]) {
+					reach(d, v, candidate, u, hierarchy_.upwardArc(i));
+					heaps_[d].update(v, candidate);
+				}
+			}
+		}
+		heaps_[FORWARD].clear();
+		heaps_[BACKWARD].clear();
+		checkRep();
+		return best;
+	}
+
+
+	/**
+	 * Returns the edges of the graph on the path found by the last search.
+	 * @requires the last search found a path
+	 * @return the edges of the path, from its source to its target.
+	 */
+	int[] path() {
+		int forwardCount = edgeCount(FORWARD);
+		int[] edges = new int[forwardCount + edgeCount(BACKWARD)];
+		// The forward part is unpacked from the meeting node back to the start
+		int end = forwardCount;
+		for (int u = meetingNode_; parentNodes_[FORWARD][u] >= 0; u = parentNodes_[FORWARD][u]) {
+			int arc = parentArcs_[FORWARD][u];
+			end -= hierarchy_.segmentCount(arc);
+			hierarchy_.unpack(arc, parentNodes_[FORWARD][u], edges, end);
+		}
+		int offset = forwardCount;
+		for (int u = meetingNode_; parentNodes_[BACKWARD][u] >= 0; u = parentNodes_[BACKWARD][u]) {
+			offset = hierarchy_.unpack(parentArcs_[BACKWARD][u], u, edges, offset);
+		}
+		return edges;
+	}
+
+
+	/**
+	 * Returns the number of graph edges on the path of a search to the
+	 * meeting node.
+	 */
+	private int edgeCount(int d) {
+		int count = 0;
+		for (int u = meetingNode_; parentNodes_[d][u] >= 0; u = parentNodes_[d][u]) {
+			count += hierarchy_.segmentCount(parentArcs_[d][u]);
+		}
+		return count;
+	}
+
+
+	/**
+	 * Returns whether a node reached by a search at a distance is reached
+	 * at a shorter distance through a node of higher rank. Since arcs are
+	 * symmetric, the upward arcs of u also lead into u from above.
+	 */
+	private boolean isStalled(int d, int u, double distance) {
+		for (int i = hierarchy_.firstUpward(u), end = hierarchy_.endUpward(u); i < end; i++) {
+			int v = hierarchy_.upwardTarget(i);
+			if (reached_[d][v] == query_ && distances_[d][v] + hierarchy_.upwardWeight(i) < distance) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Records that a node was reached by a search.
+	 */
+	private void reach(int d, int node, double distance, int parentNode, int parentArc) {
+		reached_[d][node] = query_;
+		distances_[d][node] = distance;
+		parentNodes_[d][node] = parentNode;
+		parentArcs_[d][node] = parentArc;
+	}
+
+
+	/**
+	 * Starts a new query, invalidating the state of the previous one.
+	 */
+	private void startQuery() {
+		if (query_ == Integer.MAX_VALUE) {
+			Arrays.fill(reached_[FORWARD], 0);
+			Arrays.fill(reached_[BACKWARD], 0);
+			query_ = 0;
+		}
+		query_++;
+		settledCount_ = 0;
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		int nodeCount = hierarchy_.getGraph().getNodeCount();
+		for (int d = FORWARD; d <= BACKWARD; d++) {
+			assert (distances_[d].length == nodeCount && parentNodes_[d].length == nodeCount
+					&& parentArcs_[d].length == nodeCount && reached_[d].length == nodeCount) :
+				"Wrong search array size.";
+		}
+		assert (query_ >= 0) :
+			"Wrong query number.";
+	}
+
+}
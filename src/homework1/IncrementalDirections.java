@@ -0,0 +1,249 @@
+package homework1;
+
+/**
+ * An IncrementalDirections keeps the directions of a growing route up to
+ * date with one or more RouteFormatters, as segments are appended to the
+ * route one at a time.
+ * <p>
+ * Appending a segment changes only the tail of the directions: a segment
+ * that continues the last geographic feature of the route replaces the
+ * last line, and a segment that starts a new feature adds a line. Each
+ * call to <tt>advance</tt> therefore renders a single line per formatter,
+ * regardless of the length of the route, and returns the change as a
+ * Delta that can be applied to a copy of the directions, such as a text
+ * component. A StepRouteFormatter renders the line from the last
+ * DirectionStep alone; any other formatter is given the last GeoFeature of
+ * the route.
+ * <p>
+ * IncrementalDirections is mutable and not thread-safe.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   route : Route                 // the route built so far, or null if no segment was appended
+ *   heading : angle               // the initial heading of the directions, in degrees
+ *   formatters : sequence         // the RouteFormatters rendering the directions
+ *   directions : sequence         // directions[i] = formatters[i].computeDirections(route, heading)
+ * </pre>
+ */
+public class IncrementalDirections {
+
+	private final double heading_;
+	private final RouteFormatter[] formatters_;
+	private final StringBuilder[] directions_;
+	private final int[] lastLineStart_;
+	private Route route_;
+	private int lineCount_;
+
+
+	// Abstraction Function:
+	// route = route_, heading = heading_, formatters = formatters_, and
+	// directions[i] = directions_[i].toString().
+	// The last line of directions[i] starts at offset lastLineStart_[i].
+
+	// Representation invariant for every IncrementalDirections d:
+	// formatters_.length = directions_.length = lastLineStart_.length
+	// route_ = null => lineCount_ = 0 and every directions_[i] is empty
+	// route_ != null => lineCount_ = the number of GeoFeatures of route_ and
+	//    0 <= lastLineStart_[i] < directions_[i].length() for all i
+
+
+	/**
+	 * Constructs a new IncrementalDirections.
+	 * @requires 0 <= heading < 360 && formatters != null &&
+	 * 			 no element of formatters is null
+	 * @effects Constructs a new IncrementalDirections with no route and
+	 * 			empty directions, that renders directions starting at
+	 * 			heading with each of formatters.
+	 */
+	public IncrementalDirections(double heading, RouteFormatter... formatters) {
+		heading_ = heading;
+		formatters_ = formatters.clone();
+		directions_ = new StringBuilder[formatters_.length];
+		lastLineStart_ = new int[formatters_.length];
+		for (int i = 0; i < formatters_.length; i++) {
+			directions_[i] = new StringBuilder();
+		}
+		checkRep();
+	}
+
+
+	/**
+	 * Appends a segment to the route and updates the directions.
+	 * @requires gs != null && (this.route = null || gs.p1 = this.route.end
+	 * 			 || gs.p2 = this.route.end)
+	 * @modifies this
+	 * @effects sets this.route to new Route(gs) if this.route = null, and
+	 * 			to this.route.addSegment(gs) otherwise, and updates
+	 * 			this.directions accordingly.
+	 * @return the change made to this.directions.
+	 */
+	public Delta advance(GeoSegment gs) {
+		checkRep();
+		boolean replaced;
+		if (route_ == null) {
+			route_ = new Route(gs);
+			replaced = false;
+		}
+		else {
+			route_ = route_.addSegment(gs);
+			// Counting the features is O(1), so an append never walks the route
+			replaced = (route_.getFeatureCount() == lineCount_);
+		}
+		if (!replaced) {
+			lineCount_++;
+		}
+		DirectionStep step = route_.computeLastStep(heading_);
+		int[] offsets = new int[formatters_.length];
+		int[] removedLengths = new int[formatters_.length];
+		String[] lines = new String[formatters_.length];
+		for (int i = 0; i < formatters_.length; i++) {
+			StringBuilder directions = directions_[i];
+			if (replaced) {
+				removedLengths[i] = directions.length() - lastLineStart_[i];
+				directions.setLength(lastLineStart_[i]);
+			}
+			else {
+				lastLineStart_[i] = directions.length();
+			}
+			offsets[i] = lastLineStart_[i];
+			formatters_[i].appendFeature(directions, route_, lineCount_ - 1, step);
+			directions.append('\n');
+			lines[i] = directions.substring(lastLineStart_[i]);
+		}
+		checkRep();
+		return new Delta(lineCount_ - 1, replaced, offsets, removedLengths, lines);
+	}
+
+
+	/**
+	 * Returns the route built so far.
+	 * @return this.route
+	 */
+	public Route getRoute() {
+		checkRep();
+		return route_;
+	}
+
+
+	/**
+	 * Returns the number of lines of the directions.
+	 * @return the number of lines of each of this.directions
+	 */
+	public int getLineCount() {
+		checkRep();
+		return lineCount_;
+	}
+
+
+	/**
+	 * Returns the directions rendered by one of the formatters.
+	 * @requires 0 <= formatter < this.formatters.length
+	 * @return this.directions[formatter]
+	 */
+	public String getDirections(int formatter) {
+		checkRep();
+		return directions_[formatter].toString();
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (formatters_.length == directions_.length && directions_.length == lastLineStart_.length) :
+			"Wrong number of directions.";
+		assert (route_ != null || lineCount_ == 0) :
+			"Lines without a route.";
+		for (int i = 0; i < formatters_.length; i++) {
+			assert (route_ == null || lastLineStart_[i] < directions_[i].length()) :
+				"Wrong last line.";
+		}
+	}
+
+
+	/**
+	 * A Delta is the change made to the directions by a single call to
+	 * <tt>IncrementalDirections.advance</tt>: the last line of the
+	 * directions was either replaced or added. For each formatter, the
+	 * change replaces removedLength characters at offset with text.
+	 * Deltas are immutable.
+	 * <p>
+	 * <b>The following fields are used in the specification:</b>
+	 * <pre>
+	 *   line : integer               // index of the replaced or added line
+	 *   replacement : boolean        // whether the line was replaced rather than added
+	 *   offsets : sequence           // offsets[i] = offset of the line in the directions of formatter i
+	 *   removedLengths : sequence    // removedLengths[i] = number of characters removed at offsets[i]
+	 *   texts : sequence             // texts[i] = newline-terminated line inserted at offsets[i]
+	 * </pre>
+	 */
+	public static final class Delta {
+
+		private final int line_;
+		private final boolean replacement_;
+		private final int[] offsets_;
+		private final int[] removedLengths_;
+		private final String[] texts_;
+
+
+		Delta(int line, boolean replacement, int[] offsets, int[] removedLengths, String[] texts) {
+			line_ = line;
+			replacement_ = replacement;
+			offsets_ = offsets;
+			removedLengths_ = removedLengths;
+			texts_ = texts;
+		}
+
+
+		/**
+		 * Returns the index of the changed line.
+		 * @return this.line
+		 */
+		public int getLine() {
+			return line_;
+		}
+
+
+		/**
+		 * Returns whether the last line was replaced rather than added.
+		 * @return this.replacement
+		 */
+		public boolean isReplacement() {
+			return replacement_;
+		}
+
+
+		/**
+		 * Returns the offset of the changed line in the directions of a
+		 * formatter.
+		 * @requires 0 <= formatter < number of formatters
+		 * @return this.offsets[formatter]
+		 */
+		public int getOffset(int formatter) {
+			return offsets_[formatter];
+		}
+
+
+		/**
+		 * Returns the number of characters removed from the directions of
+		 * a formatter. It is 0 if the line was added.
+		 * @requires 0 <= formatter < number of formatters
+		 * @return this.removedLengths[formatter]
+		 */
+		public int getRemovedLength(int formatter) {
+			return removedLengths_[formatter];
+		}
+
+
+		/**
+		 * Returns the line inserted into the directions of a formatter.
+		 * @requires 0 <= formatter < number of formatters
+		 * @return this.texts[formatter]
+		 */
+		public String getText(int formatter) {
+			return texts_[formatter];
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package homework1;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A NameTable maps the names of geographic features to compact integer
+ * IDs and back. It is a single symbol table shared by the whole program,
+ * so that GeoSegments, GeoFeatures and Routes can group and compare names
+ * by ID, and so that every distinct name is held by a single String
+ * instance no matter how many GeoSegments carry it.
+ * <p>
+ * IDs are assigned in the order names are first seen, starting at 0. Once
+ * assigned, the ID of a name never changes during the run of the program.
+ * NameTable is thread-safe.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   names : sequence    // the distinct names seen so far, indexed by ID
+ * </pre>
+ */
+public final class NameTable {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private static final ConcurrentHashMap<String, Integer> ids_ =
+			new ConcurrentHashMap<String, Integer>();
+	private static volatile String[] names_ = new String[INITIAL_CAPACITY];
+	private static int size_ = 0;	// guarded by NameTable.class
+
+
+	// Abstraction Function:
+	// names = names_[0], ..., names_[size_-1], and ids_ maps names_[i] to i.
+
+	// Representation invariant:
+	// ids_.size() == size_ <= names_.length
+	// names_[ids_.get(n)] is the unique String instance holding n, for every key n of ids_
+
+
+	/**
+	 * NameTable only has static members.
+	 */
+	private NameTable() {
+	}
+
+
+	/**
+	 * Returns the ID of a name, assigning it a new ID if it was not seen
+	 * before.
+	 * @requires name != null
+	 * @modifies this.names
+	 * @effects appends name to this.names if it is not already there.
+	 * @return the index i such that this.names[i].equals(name)
+	 */
+	public static int idOf(String name) {
+		Integer id = ids_.get(name);
+		if (id != null) {
+			return id;
+		}
+		synchronized (NameTable.class) {
+			id = ids_.get(name);
+			if (id == null) {
+				String[] names = names_;
+				if (size_ == names.length) {
+					String[] newNames = new String[names.length * 2];
+					System.arraycopy(names, 0, newNames, 0, size_);
+					names = newNames;
+				}
+				names[size_] = name;
+				names_ = names;
+				id = size_++;
+				// Publishing the ID last makes the name visible to every
+				// thread that can see the ID
+				ids_.put(name, id);
+			}
+			checkRep();
+		}
+		return id;
+	}
+
+
+	/**
+	 * Returns the name with a given ID.
+	 * @requires 0 <= id < this.names.length
+	 * @return this.names[id]. The same String instance is returned for all
+	 * 		   calls with the same id.
+	 */
+	public static String nameOf(int id) {
+		return names_[id];
+	}
+
+
+	/**
+	 * Returns the number of distinct names in the table.
+	 * @return this.names.length
+	 */
+	public static int size() {
+		return ids_.size();
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @requires the caller holds the lock of NameTable.class
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private static void checkRep() {
+		assert (ids_.size() == size_ && size_ <= names_.length) :
+			"Name table out of sync.";
+	}
+
+}
@@ -0,0 +1,176 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A NodeHeap is a binary min-heap of graph nodes keyed by doubles, that
+ * supports decreasing the key of a node already in the heap. Nodes are
+ * the integers 0..capacity-1, and the position of every node in the heap
+ * is kept in an array, so the heap holds no objects per node.
+ * <p>
+ * NodeHeap is mutable and not thread-safe.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   capacity : integer    // nodes are 0..capacity-1
+ *   entries : set         // the pairs (node, key) in the heap, with at most one pair per node
+ * </pre>
+ */
+final class NodeHeap {
+
+	private final int[] nodes_;			// nodes in heap order
+	private final double[] keys_;		// keys_[i] is the key of nodes_[i]
+	private final int[] positions_;		// position of every node in nodes_, or -1
+	private int size_;
+
+
+	// Abstraction Function:
+	// capacity = positions_.length, and
+	// entries = { (nodes_[i], keys_[i]) | 0 <= i < size_ }.
+
+	// Representation invariant for every NodeHeap h:
+	// nodes_.length = keys_.length = positions_.length
+	// positions_[nodes_[i]] = i for all 0 <= i < size_, and all other
+	// elements of positions_ are -1
+	// keys_[(i-1)/2] <= keys_[i] for all 0 < i < size_
+
+
+	/**
+	 * Constructs a new, empty NodeHeap.
+	 * @requires capacity >= 0
+	 * @effects Constructs a new NodeHeap with the specified capacity and an
+	 * 			empty entries.
+	 */
+	NodeHeap(int capacity) {
+		nodes_ = new int[capacity];
+		keys_ = new double[capacity];
+		positions_ = new int[capacity];
+		Arrays.fill(positions_, -1);
+	}
+
+
+	/**
+	 * Returns whether the heap is empty.
+	 * @return true iff this.entries is empty
+	 */
+	boolean isEmpty() {
+		return size_ == 0;
+	}
+
+
+	/**
+	 * Returns whether a node is in the heap.
+	 * @requires 0 <= node < this.capacity
+	 * @return true iff this.entries has a pair of node
+	 */
+	boolean contains(int node) {
+		return positions_[node] >= 0;
+	}
+
+
+	/**
+	 * Inserts a node, or decreases its key if it is already in the heap.
+	 * @requires 0 <= node < this.capacity && key is not NaN
+	 * @modifies this
+	 * @effects adds (node, key) to this.entries if it has no pair of node,
+	 * 			and otherwise sets the key of node to the smaller of its key
+	 * 			and key.
+	 */
+	void update(int node, double key) {
+		int position = positions_[node];
+		if (position < 0) {
+			position = size_++;
+		}
+		else if (keys_[position] <= key) {
+			return;
+		}
+		siftUp(position, node, key);
+	}
+
+
+	/**
+	 * Returns the smallest key in the heap.
+	 * @requires this.entries is not empty
+	 * @return the smallest key of this.entries
+	 */
+	double peekKey() {
+		return keys_[0];
+	}
+
+
+	/**
+	 * Removes the node with the smallest key from the heap.
+	 * @requires this.entries is not empty
+	 * @modifies this
+	 * @effects removes the pair with the smallest key from this.entries.
+	 * @return the node of the removed pair.
+	 */
+	int poll() {
+		int node = nodes_[0];
+		positions_[node] = -1;
+		size_--;
+		if (size_ > 0) {
+			siftDown(0, nodes_[size_], keys_[size_]);
+		}
+		return node;
+	}
+
+
+	/**
+	 * Removes all nodes from the heap, in time proportional to their number.
+	 * @modifies this
+	 * @effects sets this.entries to the empty set.
+	 */
+	void clear() {
+		for (int i = 0; i < size_; i++) {
+			positions_[nodes_[i]] = -1;
+		}
+		size_ = 0;
+	}
+
+
+	/**
+	 * Places a node at a position or at one of its ancestors, moving down
+	 * the ancestors whose keys are greater.
+	 */
+	private void siftUp(int position, int node, double key) {
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (keys_[parent] <= key) {
+				break;
+			}
+			place(position, nodes_[parent], keys_[parent]);
+			position = parent;
+		}
+		place(position, node, key);
+	}
+
+
+	/**
+	 * Places a node at a position or at one of its descendants, moving up
+	 * the descendants whose keys are smaller.
+	 */
+	private void siftDown(int position, int node, double key) {
+		int half = size_ >>> 1;
+		while (position < half) {
+			int child = 2 * position + 1;
+			if (child + 1 < size_ && keys_[child + 1] < keys_[child]) {
+				child++;
+			}
+			if (key <= keys_[child]) {
+				break;
+			}
+			place(position, nodes_[child], keys_[child]);
+			position = child;
+		}
+		place(position, node, key);
+	}
+
+
+	private void place(int position, int node, double key) {
+		nodes_[position] = node;
+		keys_[position] = key;
+		positions_[node] = position;
+	}
+
+}
@@ -0,0 +1,197 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A PointIndex numbers distinct coordinate pairs densely: the first pair
+ * added gets the ID 0, the next new pair gets the ID 1, and so on. It is an
+ * open-addressing hash table over the packed coordinates, holding no
+ * objects per point, so it serves as the point index of large segment
+ * collections.
+ * <p>
+ * PointIndex is mutable and not thread-safe; once no more points are added
+ * it may be read concurrently.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   points : sequence    // the distinct coordinate pairs added, in the order they were first added
+ * </pre>
+ */
+final class PointIndex {
+
+	private static final long EMPTY = Long.MIN_VALUE;	// not a valid packed point
+
+	private long[] keys_;		// packed coordinates, or EMPTY
+	private int[] ids_;			// the ID of keys_[i]
+	private long[] points_;		// packed coordinates of every ID
+	private int size_;
+
+
+	// Abstraction Function:
+	// points = the unpacked points_[0..size_-1], in order.
+
+	// Representation invariant for every PointIndex p:
+	// keys_.length = ids_.length is a power of 2 and keys_.length >= 2 * size_
+	// for all 0 <= id < size_, points_[id] is in keys_ at a slot i with ids_[i] = id,
+	// reachable by linear probing from slotOf(points_[id])
+	// keys_ has exactly size_ elements that are not EMPTY
+
+
+	/**
+	 * Constructs a new, empty PointIndex.
+	 * @requires expectedSize >= 0
+	 * @effects Constructs a new PointIndex with an empty points, sized to
+	 * 			hold expectedSize points without growing.
+	 */
+	PointIndex(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(8, expectedSize * 2 - 1)) * 2;
+		keys_ = new long[capacity];
+		Arrays.fill(keys_, EMPTY);
+		ids_ = new int[capacity];
+		points_ = new long[Math.max(8, expectedSize)];
+	}
+
+
+	/**
+	 * Adds a coordinate pair, if it is not already in this index.
+	 * @modifies this
+	 * @effects appends (latitude, longitude) to this.points if it is not
+	 * 			already an element.
+	 * @return the ID of (latitude, longitude): its index in this.points.
+	 */
+	int add(int latitude, int longitude) {
+		long key = GeoPoint.pack(latitude, longitude);
+		int mask = keys_.length - 1;
+		for (int i = slotOf(key, mask); ; i = (i + 1) & mask) {
+			if (keys_[i] == key) {
+				return ids_[i];
+			}
+			if (keys_[i] == EMPTY) {
+				if (size_ == points_.length) {
+					points_ = Arrays.copyOf(points_, size_ * 2);
+				}
+				int id = size_++;
+				points_[id] = key;
+				keys_[i] = key;
+				ids_[i] = id;
+				if (size_ * 2 > keys_.length) {
+					rehash();
+				}
+				return id;
+			}
+		}
+	}
+
+
+	/**
+	 * Adds a point, if it is not already in this index.
+	 * @requires gp != null
+	 * @modifies this
+	 * @effects as add(gp.latitude, gp.longitude)
+	 * @return the ID of gp.
+	 */
+	int add(GeoPoint gp) {
+		return add(gp.getLatitude(), gp.getLongitude());
+	}
+
+
+	/**
+	 * Returns the ID of a coordinate pair.
+	 * @return the index of (latitude, longitude) in this.points, or -1 if it
+	 * 		   is not an element.
+	 */
+	int idOf(int latitude, int longitude) {
+		long key = GeoPoint.pack(latitude, longitude);
+		int mask = keys_.length - 1;
+		for (int i = slotOf(key, mask); ; i = (i + 1) & mask) {
+			if (keys_[i] == key) {
+				return ids_[i];
+			}
+			if (keys_[i] == EMPTY) {
+				return -1;
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the ID of a point.
+	 * @requires gp != null
+	 * @return the index of gp in this.points, or -1 if it is not an element.
+	 */
+	int idOf(GeoPoint gp) {
+		return idOf(gp.getLatitude(), gp.getLongitude());
+	}
+
+
+	/**
+	 * Returns the number of points in this index.
+	 * @return the length of this.points
+	 */
+	int size() {
+		return size_;
+	}
+
+
+	/**
+	 * Returns the latitude of a point.
+	 * @requires 0 <= id < size()
+	 * @return the latitude of this.points[id]
+	 */
+	int latitude(int id) {
+		return (int) (points_[id] >> 32);
+	}
+
+
+	/**
+	 * Returns the longitude of a point.
+	 * @requires 0 <= id < size()
+	 * @return the longitude of this.points[id]
+	 */
+	int longitude(int id) {
+		return (int) points_[id];
+	}
+
+
+	/**
+	 * Returns a point of this index as a GeoPoint.
+	 * @requires 0 <= id < size()
+	 * @return a new GeoPoint equal to this.points[id]
+	 */
+	GeoPoint point(int id) {
+		return new GeoPoint(latitude(id), longitude(id));
+	}
+
+
+	/**
+	 * Doubles the hash table.
+	 */
+	private void rehash() {
+		long[] keys = keys_;
+		int[] ids = ids_;
+		keys_ = new long[keys.length * 2];
+		Arrays.fill(keys_, EMPTY);
+		ids_ = new int[keys.length * 2];
+		int mask = keys_.length - 1;
+		for (int j = 0; j < keys.length; j++) {
+			if (keys[j] != EMPTY) {
+				int i = slotOf(keys[j], mask);
+				while (keys_[i] != EMPTY) {
+					i = (i + 1) & mask;
+				}
+				keys_[i] = keys[j];
+				ids_[i] = ids[j];
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the home slot of a packed point.
+	 */
+	private static int slotOf(long key, int mask) {
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) (mixed >>> 32) & mask;
+	}
+
+}
@@ -0,0 +1,316 @@
+package homework1;
+
+import java.util.Collection;
+
+/**
+ * A RoadGraph is an immutable road network built from GeoSegments. Its
+ * nodes are the distinct endpoints of the segments, compared by GeoPoint
+ * equality, and every segment is an edge that can be travelled in both
+ * directions.
+ * <p>
+ * The graph is stored in compressed sparse row form: the edges leaving
+ * every node are consecutive elements of primitive arrays, so a graph with
+ * millions of edges holds no objects besides its segments. Every segment
+ * gives two directed edges, one per direction. Segments whose endpoints
+ * are equal lead nowhere and give no edges.
+ * <p>
+ * RoadGraph is thread-safe. Shortest paths are found by RoutePlanner.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   segments : sequence    // the segments of the graph, in the order they were given
+ *   nodes : sequence       // the distinct endpoints of segments, in the order they first appear
+ * </pre>
+ */
+public final class RoadGraph {
+
+	private final GeoSegment[] segments_;
+	private final PointIndex nodes_;
+	private final double[] northKm_;
+	private final double[] eastKm_;
+	private final int[] edgeStart_;
+	private final int[] edgeTarget_;
+	private final int[] edgeSegment_;
+	private final double[] edgeLength_;
+
+
+	// Abstraction Function:
+	// segments = segments_, nodes = the points of nodes_.
+	// The edges leaving node u are edgeStart_[u]..edgeStart_[u+1]-1. Edge e
+	// leads to node edgeTarget_[e] along segments_[edgeSegment_[e]] if
+	// edgeSegment_[e] >= 0, and along segments_[~edgeSegment_[e]] reversed
+	// otherwise; its length is edgeLength_[e].
+	// northKm_[u] and eastKm_[u] are the coordinates of node u in kilometers,
+	// as used by GeoPoint.distanceTo.
+
+	// Representation invariant for every RoadGraph g:
+	// edgeStart_.length = nodes_.size() + 1 and edgeStart_ is nondecreasing
+	// edgeTarget_, edgeSegment_ and edgeLength_ have edgeStart_[nodes_.size()] elements
+	// northKm_.length = eastKm_.length = nodes_.size()
+
+
+	/**
+	 * Constructs a new RoadGraph.
+	 * @requires segments != null && no element of segments is null
+	 * @effects Constructs a new RoadGraph whose segments are the elements of
+	 * 			segments, in iteration order.
+	 */
+	public RoadGraph(Collection<GeoSegment> segments) {
+		this(segments.toArray(new GeoSegment[0]));
+	}
+
+
+	/**
+	 * Constructs a new RoadGraph.
+	 * @requires segments != null && no element of segments is null
+	 * @effects Constructs a new RoadGraph whose segments are the elements of
+	 * 			segments, in order.
+	 */
+	public RoadGraph(GeoSegment[] segments) {
+		segments_ = segments.clone();
+		int n = segments_.length;
+
+		// Endpoints are numbered and the degree of every node counted in one
+		// pass; the edges are then placed at the rows of their sources
+		nodes_ = new PointIndex(n + 1);
+		int[] p1 = new int[n];
+		int[] p2 = new int[n];
+		int[] degrees = new int[2 * n + 1];
+		for (int i = 0; i < n; i++) {
+			p1[i] = nodes_.add(segments_[i].getP1());
+			p2[i] = nodes_.add(segments_[i].getP2());
+			if (p1[i] != p2[i]) {
+				degrees[p1[i]]++;
+				degrees[p2[i]]++;
+			}
+		}
+		int nodeCount = nodes_.size();
+		edgeStart_ = new int[nodeCount + 1];
+		for (int u = 0; u < nodeCount; u++) {
+			edgeStart_[u + 1] = edgeStart_[u] + degrees[u];
+		}
+		int edgeCount = edgeStart_[nodeCount];
+		edgeTarget_ = new int[edgeCount];
+		edgeSegment_ = new int[edgeCount];
+		edgeLength_ = new double[edgeCount];
+		int[] next = degrees;
+		System.arraycopy(edgeStart_, 0, next, 0, nodeCount);
+		for (int i = 0; i < n; i++) {
+			if (p1[i] != p2[i]) {
+				double length = segments_[i].getLength();
+				int forward = next[p1[i]]++;
+				edgeTarget_[forward] = p2[i];
+				edgeSegment_[forward] = i;
+				edgeLength_[forward] = length;
+				int backward = next[p2[i]]++;
+				edgeTarget_[backward] = p1[i];
+				edgeSegment_[backward] = ~i;
+				edgeLength_[backward] = length;
+			}
+		}
+
+		northKm_ = new double[nodeCount];
+		eastKm_ = new double[nodeCount];
+		for (int u = 0; u < nodeCount; u++) {
+			northKm_[u] = (((double) nodes_.latitude(u)) / GeoPoint.MILLION) * GeoPoint.KM_PER_DEGREE_LATITUDE;
+			eastKm_[u] = (((double) nodes_.longitude(u)) / GeoPoint.MILLION) * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		}
+		checkRep();
+	}
+
+
+	/**
+	 * Returns the number of nodes of this graph.
+	 * @return the length of this.nodes
+	 */
+	public int getNodeCount() {
+		return nodes_.size();
+	}
+
+
+	/**
+	 * Returns the number of segments of this graph.
+	 * @return the length of this.segments
+	 */
+	public int getSegmentCount() {
+		return segments_.length;
+	}
+
+
+	/**
+	 * Returns the number of directed edges of this graph, two for every
+	 * segment whose endpoints differ.
+	 * @return the number of directed edges of this graph
+	 */
+	public int getEdgeCount() {
+		return edgeTarget_.length;
+	}
+
+
+	/**
+	 * Returns the node of a point.
+	 * @requires gp != null
+	 * @return the index of gp in this.nodes, or -1 if gp is not a node.
+	 */
+	public int nodeOf(GeoPoint gp) {
+		return nodes_.idOf(gp);
+	}
+
+
+	/**
+	 * Returns the location of a node.
+	 * @requires 0 <= node < getNodeCount()
+	 * @return a GeoPoint equal to this.nodes[node]
+	 */
+	public GeoPoint getNode(int node) {
+		return nodes_.point(node);
+	}
+
+
+	/**
+	 * Returns a segment of this graph.
+	 * @requires 0 <= index < getSegmentCount()
+	 * @return this.segments[index]
+	 */
+	public GeoSegment getSegment(int index) {
+		return segments_[index];
+	}
+
+
+	/**
+	 * Returns the first edge leaving a node.
+	 * @requires 0 <= node < getNodeCount()
+	 */
+	int firstEdge(int node) {
+		return edgeStart_[node];
+	}
+
+
+	/**
+	 * Returns the edge following the last edge leaving a node.
+	 * @requires 0 <= node < getNodeCount()
+	 */
+	int endEdge(int node) {
+		return edgeStart_[node + 1];
+	}
+
+
+	/**
+	 * Returns the node an edge leads to.
+	 * @requires 0 <= edge < getEdgeCount()
+	 */
+	int target(int edge) {
+		return edgeTarget_[edge];
+	}
+
+
+	/**
+	 * Returns the length of an edge, in kilometers.
+	 * @requires 0 <= edge < getEdgeCount()
+	 */
+	double length(int edge) {
+		return edgeLength_[edge];
+	}
+
+
+	/**
+	 * Returns the heading of an edge.
+	 * @requires 0 <= edge < getEdgeCount()
+	 * @return the heading of the segment of edge, oriented in the direction
+	 * 		   of the edge, as given by GeoSegment.getHeading().
+	 */
+	double heading(int edge) {
+		int segment = edgeSegment_[edge];
+		if (segment >= 0) {
+			return segments_[segment].getHeading();
+		}
+		// As computed by GeoSegment.reverse(), without creating the segment
+		GeoSegment gs = segments_[~segment];
+		return gs.getP2().headingTo(gs.getP1());
+	}
+
+
+	/**
+	 * Returns the index in this.segments of the segment of an edge.
+	 * @requires 0 <= edge < getEdgeCount()
+	 */
+	int segmentIndex(int edge) {
+		int segment = edgeSegment_[edge];
+		return (segment >= 0) ? segment : ~segment;
+	}
+
+
+	/**
+	 * Returns the edge that travels the segment of an edge in the opposite
+	 * direction.
+	 * @requires 0 <= edge < getEdgeCount()
+	 */
+	int twin(int edge) {
+		int twinSegment = ~edgeSegment_[edge];
+		int from = edgeTarget_[edge];
+		int e = edgeStart_[from];
+		while (edgeSegment_[e] != twinSegment) {
+			e++;
+		}
+		return e;
+	}
+
+
+	/**
+	 * Returns the segment of an edge, oriented in the direction of the edge.
+	 * @requires 0 <= edge < getEdgeCount()
+	 * @return the segment of edge if it is travelled from p1 to p2, and a
+	 * 		   new reversed copy of it otherwise.
+	 */
+	GeoSegment segmentAlong(int edge) {
+		int segment = edgeSegment_[edge];
+		return (segment >= 0) ? segments_[segment] : segments_[~segment].reverse();
+	}
+
+
+	/**
+	 * Returns the straight-line distance between two nodes, computed as
+	 * GeoPoint.distanceTo does. It never exceeds the length of a path
+	 * between them, so it is an admissible heuristic for shortest paths.
+	 * @requires 0 <= from, to < getNodeCount()
+	 * @return this.nodes[from].distanceTo(this.nodes[to])
+	 */
+	double distance(int from, int to) {
+		double north = northKm_[to] - northKm_[from];
+		double east = eastKm_[to] - eastKm_[from];
+		return Math.sqrt(north * north + east * east);
+	}
+
+
+	/**
+	 * Builds the Route that follows a path of edges.
+	 * @requires 0 < count <= edges.length && edges[0..count-1] is a path
+	 * 			 of this graph
+	 * @return a new Route whose segments are the segments of
+	 * 		   edges[0..count-1], oriented along the path.
+	 */
+	Route buildRoute(int[] edges, int count) {
+		RouteBuilder builder = new RouteBuilder();
+		for (int i = 0; i < count; i++) {
+			builder.addSegment(segmentAlong(edges[i]));
+		}
+		return builder.build();
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		int nodeCount = nodes_.size();
+		assert (edgeStart_.length == nodeCount + 1) :
+			"Wrong edge index size.";
+		assert (edgeTarget_.length == edgeStart_[nodeCount] && edgeSegment_.length == edgeTarget_.length
+				&& edgeLength_.length == edgeTarget_.length) :
+			"Wrong number of edges.";
+		assert (northKm_.length == nodeCount && eastKm_.length == nodeCount) :
+			"Wrong number of node coordinates.";
+	}
+
+}
@@ -1,8 +1,14 @@
 package homework1;
 
-import java.text.DecimalFormat;
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
 
 /**
  * A Route is a path that traverses arbitrary GeoSegments, regardless
@@ -40,22 +46,35 @@ public class Route {
   	private final GeoPoint end_;
   	private final double startHeading_;
   	private final double endHeading_;
-  	private final ArrayList<GeoFeature> geoFeatures_;
-  	private final ArrayList<GeoSegment> geoSegments_;
+  	private final SegmentColumns columns_;
+  	private final int segmentCount_;
+  	private final int featureCount_;
+  	private final int lastFeatureStart_;
+  	private final double lastFeatureLength_;
+  	private final long lastFeatureFingerprint_;
   	private final double length_;
-  	private final GeoSegment lastGeoSegment_;
+  	private final long fingerprint_;
+  	private volatile List<GeoFeature> features_;
 	
   	
 	// Abstraction Function:
 	// Represents a route that starts at geographical point start_ with heading startHeading_, ends at point end_ with heading endHeading_ and stretches length length_.
-  	// The route is constructed from a series of segments geoSegments_ which end with segment lastGeoSegment_ that also could be seen as series of geographical features geoFeatures_/
+  	// The route is constructed from the series of segments 0..segmentCount_-1 of columns_, the last of which is endingGeoSegment.
+  	// The segments are grouped into the geographical features 0..featureCount_-1 of columns_, followed by a last feature that
+  	// starts at segment lastFeatureStart_ and has length lastFeatureLength_ and fingerprint lastFeatureFingerprint_.
+  	// The last feature is kept apart because it is the only feature that may still be extended by addSegment.
+  	// GeoSegment and GeoFeature objects are materialized from columns_ only when they are requested.
+  	// The GeoFeatures are materialized all at once, on the first request, and kept in features_; they share
+  	// start_, end_ and their common boundary points. features_ is null until then.
 	
-	// Representation invariant for every GeoFeature g:
-	// startHeading_ and endHeading_ numbers in range [0,360) and equal to geoSegments_.get(0).getHeading() and geoSegments_.get(geoSegments_.size()-1).getHeading() accordinly
-  	// start_ equals to geoSegments_.get(0).getP1() and end_ equals to geoSegments_.get(geoSegments.size()-1).getP2()
-  	// length_ is the sum of all lengths of segments inside geoSegments_ list
-  	// geoSegments_ and geoFeatures_ a nonempty lists of GeoSegments/GeoFeatures
-  	// lastGeoSegment_ is the last segment in geoSegments_ list
+	// Representation invariant for every Route r:
+	// startHeading_ and endHeading_ numbers in range [0,360) and equal to the headings of segment 0 and segment segmentCount_-1 accordingly
+  	// start_ equals to point 0 of columns_ and end_ equals to point segmentCount_ of columns_
+  	// length_ is the sum of the lengths of all segments, in order
+  	// segmentCount_ >= 1, 0 <= featureCount_ <= lastFeatureStart_ < segmentCount_
+  	// no two consecutive features have the same name, and all segments of a feature have the same name
+  	// fingerprint_ is the polynomial hash of the fingerprints of all segments, in order
+  	// columns_ may be shared with the routes this route was extended from
 
 
   	/**
@@ -72,16 +91,14 @@ public class Route {
   		endHeading_ = gs.getHeading();
   		start_ = gs.getP1();
   		end_ = gs.getP2();
-  		geoSegments_ = new ArrayList<GeoSegment>();
-  		GeoPoint tmpPoint1 = gs.getP1();
-  		GeoPoint tmpPoint2 = gs.getP2();
-  		GeoSegment gsTmp = new GeoSegment(gs.getName(), tmpPoint1, tmpPoint2);
-  		geoSegments_.add(gsTmp);
-  		lastGeoSegment_ = gsTmp;
-  		geoFeatures_ = new ArrayList<GeoFeature>();
-  		GeoFeature gfTmp = new GeoFeature(gsTmp);
-  		geoFeatures_.add(gfTmp);
+  		columns_ = SegmentColumns.of(gs, true);
+  		segmentCount_ = 1;
+  		featureCount_ = 0;
+  		lastFeatureStart_ = 0;
+  		lastFeatureLength_ = gs.getLength();
+  		lastFeatureFingerprint_ = gs.getFingerprint();
   		length_ = gs.getLength();
+  		fingerprint_ = gs.getFingerprint();
   		checkRep();
   	}
   	
@@ -102,56 +119,91 @@ public class Route {
      *          
      **/
   	private Route(Route rt, GeoSegment gs) { 		
-  	  	start_ = new GeoPoint(rt.getStart().getLatitude(), rt.getStart().getLongitude());
-  	  	end_ = new GeoPoint(gs.getP2().getLatitude(), gs.getP2().getLongitude());
+  	  	start_ = rt.start_;
+  	  	end_ = gs.getP2();
   	  	startHeading_ = rt.startHeading_;
   	  	endHeading_ = gs.getHeading();
   	  	length_ = rt.length_ + gs.getLength();
-  	    geoSegments_ = new ArrayList<GeoSegment>();
-  	    geoFeatures_ = new ArrayList<GeoFeature>();
   	    
-  	    // Copying the segment list from original feature to constructed feature with addition of gs
-  		for(GeoSegment segment : rt.geoSegments_)
-  		{
-  	  		GeoPoint tmpPoint1 = new GeoPoint(segment.getP1().getLatitude() ,segment.getP1().getLongitude());
-  	  		GeoPoint tmpPoint2 = new GeoPoint(segment.getP2().getLatitude() ,segment.getP2().getLongitude());
-  	  		GeoSegment gsTmp = new GeoSegment(segment.getName(), tmpPoint1, tmpPoint2);
-  	  		geoSegments_.add(gsTmp);
-  		}
-	  	GeoPoint tmpPoint1 = new GeoPoint(gs.getP1().getLatitude() ,gs.getP1().getLongitude());
-	  	GeoPoint tmpPoint2 = new GeoPoint(gs.getP2().getLatitude() ,gs.getP2().getLongitude());
-	  	GeoSegment gsTmp = new GeoSegment(gs.getName(), tmpPoint1, tmpPoint2);
-  		geoSegments_.add(gsTmp);
-
-  	    // Copying the feature list from original route to constructed route with addition or change to last feature
-  		String prevName = geoSegments_.get(0).getName();
-  		GeoFeature gf = new GeoFeature(geoSegments_.get(0));
-  		if(geoSegments_.size() > 1 )
-  		{	
-  			for(GeoSegment segment : this.geoSegments_.subList(1, geoSegments_.size()))
-  	  		{
-  	  	  		if(segment.getName() == prevName)
-  	  	  		{
-  	  	  			gf = gf.addSegment(segment);
-  	  	  		}
-  	  	  		else
-  	  	  		{
-  	  	  			geoFeatures_.add(gf);
-  	  	  			gf = new GeoFeature(segment);
-  	  	  		}
-  	  	  		prevName = segment.getName();
-  	  		}
-  	  		if(geoFeatures_.size() == 0 || geoFeatures_.get(geoFeatures_.size()-1).equals(gf))
-  	  		{
-  	  			geoFeatures_.add(gf);
-  	  		}
-  		}
-  		else
+  	    // The new route shares the columns of rt if the slot after rt is
+  	    // still free, and continues on a copy of rt's columns otherwise
+  	    columns_ = rt.columns_.claim(0, rt.segmentCount_, 0, rt.featureCount_);
+  	    segmentCount_ = rt.segmentCount_ + 1;
+  	    columns_.setSegment(rt.segmentCount_, gs);
+
+  	    // Only the last feature of rt is affected by gs: either gs continues it,
+  	    // or the last feature is closed and gs starts a new one
+  	    if(gs.getNameId() == columns_.nameId(rt.lastFeatureStart_))
+  	    {
+  	    	featureCount_ = rt.featureCount_;
+  	    	lastFeatureStart_ = rt.lastFeatureStart_;
+  	    	lastFeatureLength_ = rt.lastFeatureLength_ + gs.getLength();
+  	    	lastFeatureFingerprint_ = GeoSegment.extendFingerprint(rt.lastFeatureFingerprint_, gs);
+  	    }
+  	    else
+  	    {
+  	    	columns_.setFeature(rt.featureCount_, rt.lastFeatureStart_,
+  	    						rt.lastFeatureLength_, rt.lastFeatureFingerprint_);
+  	    	featureCount_ = rt.featureCount_ + 1;
+  	    	lastFeatureStart_ = rt.segmentCount_;
+  	    	lastFeatureLength_ = gs.getLength();
+  	    	lastFeatureFingerprint_ = gs.getFingerprint();
+  	    }
+  		// Routes with equal features have equal segment sequences, so the
+  		// fingerprint can be extended segment by segment
+  		fingerprint_ = GeoSegment.extendFingerprint(rt.fingerprint_, gs);
+  		checkRep();
+  	}
+
+
+  	/**
+  	 * Constructs a new Route over segments already stored in columns. Used
+  	 * by RouteBuilder to produce a Route in one step.
+     * @requires columns != null && segmentCount >= 1 && the other arguments
+     * 			 describe the segments 0..segmentCount-1 of columns and their
+     * 			 features as defined by the representation invariant of Route
+     * @effects Constructs a new Route, r, whose segments are the segments
+     * 			0..segmentCount-1 of columns.
+     **/
+  	Route(SegmentColumns columns, int segmentCount, int featureCount,
+  		  int lastFeatureStart, double lastFeatureLength, long lastFeatureFingerprint,
+  		  GeoPoint start, GeoPoint end, double length, long fingerprint) {
+  		columns_ = columns;
+  		segmentCount_ = segmentCount;
+  		featureCount_ = featureCount;
+  		lastFeatureStart_ = lastFeatureStart;
+  		lastFeatureLength_ = lastFeatureLength;
+  		lastFeatureFingerprint_ = lastFeatureFingerprint;
+  		start_ = start;
+  		end_ = end;
+  		startHeading_ = columns.heading(0);
+  		endHeading_ = columns.heading(segmentCount - 1);
+  		length_ = length;
+  		fingerprint_ = fingerprint;
+  		checkRep();
+  		checkAll();
+  	}
+
+
+  	/**
+  	 * Creates a new Route from a sequence of segments, in one pass.
+     * @requires segments != null && segments contains at least one segment
+     * 			 && every segment after the first has an endpoint equal to
+     * 			 the end of the route made of the segments before it
+     * @return a new Route equal to the Route built by passing the first
+     * 		   segment to the Route constructor and each following segment
+     * 		   to addSegment, in order.
+     * @throws IllegalArgumentException if a segment has no endpoint equal
+     * 		   to the end of the route made of the segments before it
+     * @see homework1.RouteBuilder
+     **/
+  	public static Route of(Iterable<GeoSegment> segments) {
+  		RouteBuilder builder = new RouteBuilder();
+  		for(GeoSegment gs : segments)
   		{
-  			geoFeatures_.add(gf);
+  			builder.addSegment(gs);
   		}
-  		lastGeoSegment_ = new GeoSegment(gs.getName(), gs.getP1(), gs.getP2());
-  		checkRep();
+  		return builder.build();
   	}
 
 
@@ -161,9 +213,7 @@ public class Route {
      **/
   	public GeoPoint getStart() {
   		checkRep();
-  		GeoPoint gp = new GeoPoint(geoSegments_.get(0).getP1().getLatitude(), geoSegments_.get(0).getP1().getLongitude());
-  		checkRep();
-  		return gp;
+  		return start_;
   	}
 
 
@@ -173,9 +223,7 @@ public class Route {
      **/
   	public GeoPoint getEnd() {
   		checkRep();
-  		GeoPoint gp = new GeoPoint(lastGeoSegment_.getP2().getLatitude(), lastGeoSegment_.getP2().getLongitude());
-  		checkRep();
-  		return gp;
+  		return end_;
   	}
 
 
@@ -259,38 +307,127 @@ public class Route {
      **/
   	public Iterator<GeoFeature> getGeoFeatures() {
   		checkRep();
-  		ArrayList<GeoFeature> newFeatureList = new ArrayList<GeoFeature>();
-  		// Copying the Feature list to prevent rep exposure
-  		
-  	    // Copying the feature list from original route to constructed route with addition or change to last feature
-  		String prevName = geoSegments_.get(0).getName();
-  		GeoFeature gf = new GeoFeature(geoSegments_.get(0));
-  		if(geoSegments_.size() > 1 )
-  		{	
-  			for(GeoSegment segment : this.geoSegments_.subList(1, geoSegments_.size()))
-  	  		{
-  	  	  		if(segment.getName() == prevName)
-  	  	  		{
-  	  	  			gf = gf.addSegment(segment);
-  	  	  		}
-  	  	  		else
-  	  	  		{
-  	  	  		newFeatureList.add(gf);
-  	  	  			gf = new GeoFeature(segment);
-  	  	  		}
-  	  	  		prevName = segment.getName();
-  	  		}
-  	  		if(newFeatureList.size() == 0 || newFeatureList.get(newFeatureList.size()-1).equals(gf))
-  	  		{
-  	  			newFeatureList.add(gf);
-  	  		}
+  		// The feature boundaries are maintained incrementally by addSegment;
+  		// the GeoFeatures are materialized over the columns once per route
+  		return getGeoFeatureList().iterator();
+  	}
+
+
+  	/**
+     * Returns an unmodifiable List view of the GeoFeatures of this route, in
+     * order. The List holds the same elements as the Iterator returned by
+     * <tt>getGeoFeatures()</tt>. Every call returns the same GeoFeature
+     * instances, and the first and last of them start and end at the
+     * instances returned by <tt>getStart()</tt> and <tt>getEnd()</tt>.
+     * @return an unmodifiable List of the GeoFeatures of this route.
+     * @see #getGeoFeatures()
+     **/
+  	public List<GeoFeature> getGeoFeatureList() {
+  		checkRep();
+  		// Concurrent first requests may both materialize the features; the
+  		// features are immutable, and one of the lists is kept
+  		List<GeoFeature> features = features_;
+  		if(features == null)
+  		{
+  			features = new FeatureList(materializeFeatures());
+  			features_ = features;
   		}
-  		else
+  		return features;
+  	}
+
+
+  	/**
+     * Returns a sequential Stream of the GeoFeatures of this route, in order.
+     * @return a Stream of the GeoFeatures of this route.
+     * @see #getGeoFeatures()
+     **/
+  	public Stream<GeoFeature> getGeoFeatureStream() {
+  		checkRep();
+  		return getGeoFeatureList().stream();
+  	}
+
+
+  	/**
+     * Returns the number of GeoFeatures of this route, in O(1) and without
+     * materializing them.
+     * @return getGeoFeatureList().size()
+     **/
+  	int getFeatureCount() {
+  		checkRep();
+  		return featureCount_ + 1;
+  	}
+
+
+  	/**
+     * Returns a single GeoFeature of this route. Unless the features of
+     * this route were already materialized, only the requested feature is,
+     * in O(its number of segments).
+     * @requires 0 <= index < getFeatureCount()
+     * @return getGeoFeatureList().get(index)
+     **/
+  	GeoFeature getGeoFeature(int index) {
+  		checkRep();
+  		List<GeoFeature> features = features_;
+  		if(features != null)
+  		{
+  			return features.get(index);
+  		}
+  		int from = (index < featureCount_) ? columns_.featureStart(index) : lastFeatureStart_;
+  		int to = (index + 1 < featureCount_) ? columns_.featureStart(index + 1)
+  			   : (index + 1 == featureCount_) ? lastFeatureStart_ : segmentCount_;
+  		return materializeFeature(index, (from == 0) ? start_ : columns_.point(from),
+  								  (to == segmentCount_) ? end_ : columns_.point(to));
+  	}
+
+
+  	/**
+     * Returns the steps of the directions for following this route,
+     * starting at its start point and facing in the specified heading. The
+     * steps are computed in one pass over the features of this route,
+     * without materializing them.
+     * @requires 0 <= heading < 360
+     * @return an unmodifiable List of DirectionSteps s such that, for the
+     * 		   GeoFeatures a of getGeoFeatures(),
+     * <pre>
+     *      s.length = a.length &&
+     *      for all integers 0 <= i < a.length
+     *          (s[i].name = a[i].name &&
+     *           s[i].distance = a[i].length &&
+     *           s[i].turn = Turn.of(h[i], a[i].startHeading))
+     * </pre>
+     * where h[0] = heading and h[i] = a[i-1].endHeading for i > 0.
+     **/
+  	public List<DirectionStep> computeSteps(double heading) {
+  		checkRep();
+  		DirectionStep[] steps = new DirectionStep[featureCount_ + 1];
+  		for(int k = 0; k <= featureCount_; k++)
   		{
-  			newFeatureList.add(gf);
+  			int from = (k < featureCount_) ? columns_.featureStart(k) : lastFeatureStart_;
+  			int to = (k + 1 < featureCount_) ? columns_.featureStart(k + 1)
+  				   : (k + 1 == featureCount_) ? lastFeatureStart_ : segmentCount_;
+  			double length = (k < featureCount_) ? columns_.featureLength(k) : lastFeatureLength_;
+  			steps[k] = new DirectionStep(Turn.of(heading, columns_.heading(from)),
+  										 columns_.nameId(from), length, heading);
+  			heading = columns_.heading(to - 1);
   		}
   		checkRep();
-  		return newFeatureList.iterator();
+  		return Collections.unmodifiableList(Arrays.asList(steps));
+  	}
+
+
+  	/**
+     * Returns the last step of the directions for following this route,
+     * starting at its start point and facing in the specified heading. The
+     * last step is computed in O(1), from the last feature and the heading
+     * before it.
+     * @requires 0 <= heading < 360
+     * @return the last element of computeSteps(heading).
+     **/
+  	public DirectionStep computeLastStep(double heading) {
+  		checkRep();
+  		double origHeading = (lastFeatureStart_ == 0) ? heading : columns_.heading(lastFeatureStart_ - 1);
+  		return new DirectionStep(Turn.of(origHeading, columns_.heading(lastFeatureStart_)),
+  								 columns_.nameId(lastFeatureStart_), lastFeatureLength_, origHeading);
   	}
 
 
@@ -310,18 +447,32 @@ public class Route {
      **/
   	public Iterator<GeoSegment> getGeoSegments() {
   		checkRep();
-  		ArrayList<GeoSegment> newSegmentList = new ArrayList<GeoSegment>();
-  		// Copying the segment list to prevent rep exposure
-  		for(GeoSegment segment : geoSegments_)
-  		{
-  	  		GeoPoint tmpPoint1 = new GeoPoint(segment.getP1().getLatitude() ,segment.getP1().getLongitude());
-  	  		GeoPoint tmpPoint2 = new GeoPoint(segment.getP2().getLatitude() ,segment.getP2().getLongitude());
-  	  		GeoSegment gsTmp = new GeoSegment(segment.getName(), tmpPoint1, tmpPoint2);
-  	  		newSegmentList.add(gsTmp);
-  		}
+  		// The segments are materialized from the columns as they are read
+  		return columns_.segments(0, segmentCount_, start_, end_);
+  	}
+
+
+  	/**
+     * Returns an unmodifiable List view of the GeoSegments of this route, in
+     * order. The List holds the same elements as the Iterator returned by
+     * <tt>getGeoSegments()</tt>.
+     * @return an unmodifiable List of the GeoSegments of this route.
+     * @see #getGeoSegments()
+     **/
+  	public List<GeoSegment> getGeoSegmentList() {
   		checkRep();
+  		return columns_.segmentList(0, segmentCount_, start_, end_);
+  	}
+
+
+  	/**
+     * Returns a sequential Stream of the GeoSegments of this route, in order.
+     * @return a Stream of the GeoSegments of this route.
+     * @see #getGeoSegments()
+     **/
+  	public Stream<GeoSegment> getGeoSegmentStream() {
   		checkRep();
-  		return newSegmentList.iterator();
+  		return getGeoSegmentList().stream();
   	}
 
 
@@ -337,19 +488,14 @@ public class Route {
   		{
   			return false;
   		}
-  		GeoFeature thisGeoFeature;
-		GeoFeature inputGeoFeature;
-		boolean result = false;
   		Route rt = (Route)o;
-  		Iterator<GeoFeature> thisIterator = geoFeatures_.iterator();
-  		Iterator<GeoFeature> rtIterator = rt.getGeoFeatures();
-  		while (thisIterator.hasNext() && rtIterator.hasNext())
-  		{
-  			thisGeoFeature = thisIterator.next();
-  			inputGeoFeature = rtIterator.next();
-  			result = ( thisGeoFeature.equals(inputGeoFeature) ) ? true : false;
-  			result = ( (geoFeatures_.iterator().hasNext() && rt.getGeoFeatures().hasNext()) || (!geoFeatures_.iterator().hasNext() && !rt.getGeoFeatures().hasNext()) ) ? true : false;
-  		}
+  		// Features are grouped from the segments by name, so two routes have
+  		// the same features iff they have the same segments. Mismatching sizes
+  		// or fingerprints are rejected in O(1), otherwise the segment columns
+  		// are compared in a single pass. Routes extended from the same route
+  		// share their columns and are recognized without comparing them.
+  		boolean result = (segmentCount_ == rt.segmentCount_ && fingerprint_ == rt.fingerprint_ &&
+  						  SegmentColumns.rangeEquals(columns_, 0, rt.columns_, 0, segmentCount_));
   		checkRep();
   		return result;
   	}
@@ -360,10 +506,20 @@ public class Route {
      * @return a hash code for this.
      **/
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it
-    	// for improved performance.
+  		checkRep();
+    	return (int) (fingerprint_ ^ (fingerprint_ >>> 32));
+  	}
+
 
-    	return 1;
+  	/**
+  	 * Returns a 64-bit content fingerprint of this, computed once at
+  	 * construction. Equal Routes have equal fingerprints; different
+  	 * Routes have different fingerprints with high probability.
+     * @return a content fingerprint of this.
+     **/
+  	public long getFingerprint() {
+  		checkRep();
+  		return fingerprint_;
   	}
 
 
@@ -373,46 +529,163 @@ public class Route {
      **/
   	public String toString() {
   		checkRep();
-  		String shortLength = new DecimalFormat("##.#").format(length_);
-  		String geoFeatureString = "Route starts at: " + start_.toString() + " and ends at: " + end_.toString() + ". The length of the route is " + shortLength + " KM.";
-  		geoFeatureString += " The route contains the next features: ";
-  		for(GeoFeature feature : geoFeatures_)
+  		StringBuilder routeString = FixedPointFormat.buffer();
+  		routeString.append("Route starts at: ");
+  		start_.appendTo(routeString);
+  		routeString.append(" and ends at: ");
+  		end_.appendTo(routeString);
+  		routeString.append(". The length of the route is ");
+  		FixedPointFormat.appendTenths(routeString, length_);
+  		routeString.append(" KM. The route contains the next features: ");
+  		for(int k = 0; k < featureCount_; k++)
   		{
-  			geoFeatureString += feature.getName() + ", ";
+  			routeString.append(NameTable.nameOf(columns_.nameId(columns_.featureStart(k)))).append(", ");
   		}
+  		routeString.append(NameTable.nameOf(columns_.nameId(lastFeatureStart_))).append(", ");
   		checkRep();
-  		return geoFeatureString;
+  		return routeString.toString();
   	}
 
+  	/**
+  	 * Materializes the GeoFeatures of this route: the closed features
+  	 * 0..featureCount_-1 of columns_ followed by the last feature.
+  	 * Consecutive features share their common GeoPoint.
+  	 */
+  	private GeoFeature[] materializeFeatures() {
+  		GeoFeature[] features = new GeoFeature[featureCount_ + 1];
+  		GeoPoint start = start_;
+  		for(int k = 0; k < featureCount_; k++)
+  		{
+  			int to = (k + 1 < featureCount_) ? columns_.featureStart(k + 1) : lastFeatureStart_;
+  			GeoPoint end = columns_.point(to);
+  			features[k] = materializeFeature(k, start, end);
+  			start = end;
+  		}
+  		features[featureCount_] = materializeFeature(featureCount_, start, end_);
+  		return features;
+  	}
+
+  	/**
+  	 * Materializes the GeoFeature index of this route, from start to end.
+  	 */
+  	private GeoFeature materializeFeature(int index, GeoPoint start, GeoPoint end) {
+  		if(index == featureCount_)
+  		{
+  			return new GeoFeature(columns_, lastFeatureStart_, segmentCount_ - lastFeatureStart_,
+  								  lastFeatureLength_, lastFeatureFingerprint_, start, end);
+  		}
+  		int from = columns_.featureStart(index);
+  		int to = (index + 1 < featureCount_) ? columns_.featureStart(index + 1) : lastFeatureStart_;
+  		return new GeoFeature(columns_, from, to - from, columns_.featureLength(index),
+  							  columns_.featureFingerprint(index), start, end);
+  	}
+
+  	/**
+  	 * An unmodifiable, random access List of the materialized GeoFeatures
+  	 * of a route, whose Spliterator is IMMUTABLE.
+  	 */
+  	private static final class FeatureList extends AbstractList<GeoFeature> implements RandomAccess {
+
+  		private final GeoFeature[] features_;
+
+  		FeatureList(GeoFeature[] features) {
+  			features_ = features;
+  		}
+
+  		public GeoFeature get(int index) {
+  			return features_[index];
+  		}
+
+  		public int size() {
+  			return features_.length;
+  		}
+
+  		public Spliterator<GeoFeature> spliterator() {
+  			return Spliterators.spliterator(features_, Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+  		}
+  	}
+
+	/**
+	 * Checks the parts of the representation invariant that involve every
+	 * segment, in one pass. Called once for every route that is built in one
+	 * step, whose prefixes were never routes of their own.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkAll() {
+		double length = 0;
+		long fingerprint = 0;
+		assert ((featureCount_ > 0) ? columns_.featureStart(0) == 0 : lastFeatureStart_ == 0) :
+			"Wrong feature boundaries.";
+		int k = 0;
+		int featureEnd = (featureCount_ > 1) ? columns_.featureStart(1)
+					   : (featureCount_ == 1) ? lastFeatureStart_ : segmentCount_;
+		double featureLength = 0;
+		long featureFingerprint = 0;
+		Iterator<GeoSegment> segments = columns_.segments(0, segmentCount_, start_, end_);
+		for (int i = 0; i < segmentCount_; i++)
+		{
+			GeoSegment gs = segments.next();
+			length = (i == 0) ? gs.getLength() : length + gs.getLength();
+			fingerprint = (i == 0) ? gs.getFingerprint() : GeoSegment.extendFingerprint(fingerprint, gs);
+			if (i == featureEnd)
+			{
+				// Feature k ends before segment i
+				assert (featureLength == columns_.featureLength(k) && featureFingerprint == columns_.featureFingerprint(k)) :
+					"Incorrect feature length.";
+				assert (columns_.nameId(i) != columns_.nameId(i - 1)) :
+					"Consecutive features with the same name.";
+				k++;
+				featureEnd = (k + 1 < featureCount_) ? columns_.featureStart(k + 1)
+						   : (k + 1 == featureCount_) ? lastFeatureStart_ : segmentCount_;
+			}
+			else if (i > 0)
+			{
+				assert (columns_.nameId(i) == columns_.nameId(i - 1)) :
+					"Wrong feature sequence.";
+			}
+			boolean first = (i == ((k < featureCount_) ? columns_.featureStart(k) : lastFeatureStart_));
+			featureLength = first ? gs.getLength() : featureLength + gs.getLength();
+			featureFingerprint = first ? gs.getFingerprint() : GeoSegment.extendFingerprint(featureFingerprint, gs);
+		}
+		assert (k == featureCount_ && featureLength == lastFeatureLength_ && featureFingerprint == lastFeatureFingerprint_) :
+			"Incorrect feature length.";
+		assert (length == length_) :
+			"Incorrect route length.";
+		assert (fingerprint == fingerprint_) :
+			"Incorrect route fingerprint.";
+	}
+
 	/**
 	 * Checks to see if the representation invariant is being violated.
 	 * @throws AssertionError if representation invariant is violated.
 	 **/
 	private void checkRep() {
-		assert (startHeading_ >= 0 && startHeading_ < 360 && geoSegments_.get(0).getHeading() == startHeading_) :
+		int last = segmentCount_ - 1;
+		assert (startHeading_ >= 0 && startHeading_ < 360 && columns_.heading(0) == startHeading_) :
 			"Wrong start heading direction.";
-		assert (endHeading_ >= 0 && endHeading_ < 360 && geoSegments_.get(geoSegments_.size()-1).getHeading() == endHeading_) :
+		assert (endHeading_ >= 0 && endHeading_ < 360 && columns_.heading(last) == endHeading_) :
 			"Wrong end heading direction.";
-		assert (lastGeoSegment_.equals(geoSegments_.get(geoSegments_.size()-1)) ) :
-			"Last segments do not match.";
-		double tmpLength = geoSegments_.get(0).getLength();
-		GeoPoint prevPoint = geoSegments_.get(0).getP2();
-		for(GeoSegment segment : geoSegments_.subList(1, geoSegments_.size()))
-  		{
-			assert (prevPoint.equals(segment.getP1())) :
-				"Wrong segment sequence.";
-  	  		tmpLength += segment.getLength();
-  	  		prevPoint = segment.getP2();
-  		}
-		prevPoint = geoFeatures_.get(0).getEnd();
-		for(GeoFeature feature : geoFeatures_.subList(1, geoFeatures_.size()))
-  		{
-			assert (prevPoint.equals(feature.getStart())) :
-				"Wrong feature sequence.";
-  	  		prevPoint = feature.getEnd();
-  		}
-		assert (tmpLength == length_) :
-			"Incorrect feature length.";
+		assert (columns_.latitude(0) == start_.getLatitude() && columns_.longitude(0) == start_.getLongitude()) :
+			"Wrong start point.";
+		assert (columns_.latitude(segmentCount_) == end_.getLatitude() && columns_.longitude(segmentCount_) == end_.getLongitude()) :
+			"Wrong end point.";
+		// A route extended by addSegment had its prefix checked when that prefix
+		// was constructed, and a route built in one step by RouteBuilder is
+		// checked in full by checkAll(), so only the newest segment is checked here
+		assert (featureCount_ <= lastFeatureStart_ && lastFeatureStart_ <= last) :
+			"Wrong feature boundaries.";
+		assert (columns_.nameId(last) == columns_.nameId(lastFeatureStart_)) :
+			"Wrong feature sequence.";
+		if (segmentCount_ == 1)
+		{
+			assert (columns_.length(0) == length_) :
+				"Incorrect feature length.";
+		}
+		if (featureCount_ > 0)
+		{
+			assert (columns_.nameId(columns_.featureStart(featureCount_ - 1)) != columns_.nameId(lastFeatureStart_)) :
+				"Consecutive features with the same name.";
+		}
 		}
   	
-}
\ No newline at end of file
+}
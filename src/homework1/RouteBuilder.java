@@ -0,0 +1,221 @@
+package homework1;
+
+/**
+ * A RouteBuilder assembles a Route from many GeoSegments in one pass.
+ * <p>
+ * Chaining <tt>new Route(gs).addSegment(...)</tt> creates a complete
+ * intermediate Route for every segment. A RouteBuilder instead accumulates
+ * the segments, the length, the fingerprint and the feature boundaries of
+ * the route directly into its storage, and creates the immutable Route once,
+ * at the end.
+ * <p>
+ * Segments are added with the same rule as <tt>Route.addSegment</tt>: a
+ * segment whose p1 is not the current end of the route is added reversed.
+ * A segment with neither endpoint at the current end is rejected, since
+ * the route stores every point only once and could not record the gap.
+ * <p>
+ * A RouteBuilder is mutable and single-use: after <tt>build()</tt> is
+ * called it accepts no more segments. RouteBuilder is not thread-safe.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   geoSegments : sequence   // the segments added so far, properly oriented
+ *   end : GeoPoint           // location of the end of the route built so far
+ *   built : boolean          // whether build() was called
+ * </pre>
+ */
+public class RouteBuilder {
+
+	private final GeoPointPool pool_;
+	private SegmentColumns columns_;
+	private int segmentCount_;
+	private int featureCount_;
+	private int lastFeatureStart_;
+	private double lastFeatureLength_;
+	private long lastFeatureFingerprint_;
+	private GeoPoint start_;
+	private GeoPoint end_;
+	private double length_;
+	private long fingerprint_;
+	private boolean built_;
+
+
+	// Abstraction Function:
+	// geoSegments = the segments 0..segmentCount_-1 of columns_, end = end_,
+	// built = built_. The remaining fields hold the summary of the route
+	// built so far, exactly as the fields of the same names in Route.
+	// If pool_ != null, the endpoints of the built route are interned in it.
+
+	// Representation invariant for every RouteBuilder b:
+	// segmentCount_ = 0 => columns_ = null && start_ = null && end_ = null
+	// segmentCount_ > 0 => the fields satisfy the representation invariant of Route
+
+
+	/**
+	 * Constructs a new, empty RouteBuilder.
+	 * @effects Constructs a new RouteBuilder with an empty geoSegments.
+	 */
+	public RouteBuilder() {
+		this(null);
+	}
+
+
+	/**
+	 * Constructs a new, empty RouteBuilder that shares the endpoints of the
+	 * built Route through a GeoPointPool. Only the start and end points are
+	 * pooled; the other points of the route are stored as coordinates, and
+	 * segments read from the route are materialized from them.
+	 * @effects Constructs a new RouteBuilder with an empty geoSegments. If
+	 * 			pool != null, the start and end points of the built Route are
+	 * 			canonical points of pool.
+	 */
+	public RouteBuilder(GeoPointPool pool) {
+		pool_ = pool;
+		checkRep();
+	}
+
+
+	/**
+	 * Appends a segment to the route being built.
+	 * @requires gs != null && (this.geoSegments is empty || gs.p1 = this.end
+	 * 			 || gs.p2 = this.end)
+	 * @modifies this
+	 * @effects appends gs to this.geoSegments if this.geoSegments is empty
+	 * 			or gs.p1 = this.end, and appends gs.reverse() otherwise.
+	 * @return this
+	 * @throws IllegalStateException if this.built
+	 * @throws IllegalArgumentException if this.geoSegments is not empty
+	 * 		   and neither endpoint of gs is this.end
+	 */
+	public RouteBuilder addSegment(GeoSegment gs) {
+		checkRep();
+		if (built_) {
+			throw new IllegalStateException("Route was already built.");
+		}
+		if (segmentCount_ == 0) {
+			columns_ = SegmentColumns.of(gs, true);
+			segmentCount_ = 1;
+			lastFeatureStart_ = 0;
+			lastFeatureLength_ = gs.getLength();
+			lastFeatureFingerprint_ = gs.getFingerprint();
+			start_ = gs.getP1();
+			end_ = gs.getP2();
+			length_ = gs.getLength();
+			fingerprint_ = gs.getFingerprint();
+		}
+		else {
+			if (!gs.getP1().equals(end_)) {
+				gs = gs.reverse();
+				if (!gs.getP1().equals(end_)) {
+					throw new IllegalArgumentException("Segment " + gs.getName() + " does not continue the route.");
+				}
+			}
+			// The builder owns its columns, so claiming only fails when they
+			// are full, and then grows them by doubling
+			columns_ = columns_.claim(0, segmentCount_, 0, featureCount_);
+			columns_.setSegment(segmentCount_, gs);
+			if (gs.getNameId() == columns_.nameId(lastFeatureStart_)) {
+				lastFeatureLength_ += gs.getLength();
+				lastFeatureFingerprint_ = GeoSegment.extendFingerprint(lastFeatureFingerprint_, gs);
+			}
+			else {
+				columns_.setFeature(featureCount_, lastFeatureStart_,
+									lastFeatureLength_, lastFeatureFingerprint_);
+				featureCount_++;
+				lastFeatureStart_ = segmentCount_;
+				lastFeatureLength_ = gs.getLength();
+				lastFeatureFingerprint_ = gs.getFingerprint();
+			}
+			segmentCount_++;
+			end_ = gs.getP2();
+			length_ += gs.getLength();
+			fingerprint_ = GeoSegment.extendFingerprint(fingerprint_, gs);
+		}
+		checkRep();
+		return this;
+	}
+
+
+	/**
+	 * Appends segments to the route being built, in order.
+	 * @requires segments != null && every segment satisfies the requirement
+	 * 			 of addSegment(GeoSegment) when it is added
+	 * @modifies this
+	 * @effects adds every segment of segments as defined by
+	 * 			addSegment(GeoSegment), in order.
+	 * @return this
+	 * @throws IllegalStateException if this.built
+	 * @throws IllegalArgumentException if a segment does not continue the
+	 * 		   route, as defined by addSegment(GeoSegment)
+	 */
+	public RouteBuilder addSegments(Iterable<GeoSegment> segments) {
+		for (GeoSegment gs : segments) {
+			addSegment(gs);
+		}
+		return this;
+	}
+
+
+	/**
+	 * Returns the number of segments added so far.
+	 * @return the length of this.geoSegments
+	 */
+	public int size() {
+		checkRep();
+		return segmentCount_;
+	}
+
+
+	/**
+	 * Returns the end of the route built so far.
+	 * @return this.end, or null if this.geoSegments is empty.
+	 */
+	public GeoPoint getEnd() {
+		checkRep();
+		return end_;
+	}
+
+
+	/**
+	 * Creates the Route made of the segments added so far.
+	 * @requires this.geoSegments is not empty
+	 * @modifies this
+	 * @effects sets this.built
+	 * @return a new Route whose segments are this.geoSegments.
+	 * @throws IllegalStateException if this.built or this.geoSegments is
+	 * 		   empty.
+	 */
+	public Route build() {
+		checkRep();
+		if (built_) {
+			throw new IllegalStateException("Route was already built.");
+		}
+		if (segmentCount_ == 0) {
+			throw new IllegalStateException("Route has no segments.");
+		}
+		built_ = true;
+		GeoPoint start = (pool_ != null) ? pool_.intern(start_) : start_;
+		GeoPoint end = (pool_ != null) ? pool_.intern(end_) : end_;
+		Route route = new Route(columns_, segmentCount_, featureCount_, lastFeatureStart_,
+								lastFeatureLength_, lastFeatureFingerprint_,
+								start, end, length_, fingerprint_);
+		checkRep();
+		return route;
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * Connectivity is checked by addSegment as segments are added; the
+	 * lengths, fingerprints and features of the built route are checked in
+	 * full, once, by the Route constructor called from build().
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (segmentCount_ > 0 || (columns_ == null && start_ == null && end_ == null)) :
+			"Empty builder holds segments.";
+		assert (segmentCount_ == 0 || (featureCount_ <= lastFeatureStart_ && lastFeatureStart_ < segmentCount_)) :
+			"Wrong feature boundaries.";
+	}
+
+}
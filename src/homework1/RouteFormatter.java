@@ -1,14 +1,54 @@
 package homework1;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * A RouteFormatter class knows how to create a textual description of
  * directions from one location to another. The class is abstract to
  * support different textual descriptions.
+ * <p>
+ * Every line of directions is the line computed by computeLine for a
+ * GeoFeature of the route, followed by a newline. Formatters that can
+ * render a line from a DirectionStep alone extend StepRouteFormatter
+ * instead, and then render routes without materializing their GeoFeatures.
  */
 public abstract class RouteFormatter {
 
+	/**
+	 * The least number of steps that computeDirectionsParallel renders in
+	 * parallel.
+	 */
+	public static final int PARALLEL_THRESHOLD = 2048;
+
+	// Number of steps rendered by a single fork/join task
+	private static final int CHUNK_SIZE = 512;
+
+	// Number of batch tasks, or of pending routes, per thread of a batch
+	private static final int BATCH_TASKS_PER_THREAD = 4;
+
+	// A larger batch buffer is dropped rather than kept alive by its thread
+	private static final int MAX_BATCH_BUFFER_CAPACITY = 1 << 16;
+
+	// Reused by every thread that renders the routes of a batch
+	private static final ThreadLocal<StringBuilder> BATCH_BUFFER =
+			ThreadLocal.withInitial(StringBuilder::new);
+
+
   	/**
      * Give directions for following this Route, starting at its start point
      * and facing in the specified heading.
@@ -20,19 +60,299 @@ public abstract class RouteFormatter {
      * 	       human-readable directions from start to end along this route.
      **/
   	public String computeDirections(Route route, double heading) {
-  		Iterator<GeoFeature> iterator = route.getGeoFeatures();
-  		GeoFeature itrGeoFeature;
-  		String directions = "";
-  		while(iterator.hasNext())
+  		StringBuilder directions = new StringBuilder();
+  		appendFeatures(directions, route, route.computeSteps(heading));
+  		return directions.toString();
+  	}
+
+
+  	/**
+     * Writes directions for following this Route, starting at its start
+     * point and facing in the specified heading, to an Appendable. The
+     * directions are written line by line, so they are never held in memory
+     * as a whole.
+     * @requires route != null && out != null &&
+     * 			0 <= heading < 360
+     * @param route the route for which to print directions.
+   	 * @param heading the initial heading.
+   	 * @param out the Appendable (for example, a Writer) to write to.
+     * @modifies out
+     * @effects appends to out the String returned by
+     * 			computeDirections(route, heading).
+     * @throws IOException if out throws an IOException.
+     **/
+  	public void computeDirections(Route route, double heading, Appendable out) throws IOException {
+  		List<DirectionStep> steps = route.computeSteps(heading);
+  		StringBuilder line = new StringBuilder();
+  		for(int k = 0; k < steps.size(); k++)
+  		{
+  			line.setLength(0);
+  			appendFeature(line, route, k, steps.get(k));
+  			line.append('\n');
+  			out.append(line);
+  		}
+  	}
+
+
+  	/**
+     * Returns the directions for following this Route as a lazy Stream of
+     * lines. Each line is rendered only when the Stream reaches it.
+     * @requires route != null &&
+     * 			0 <= heading < 360
+     * @param route the route for which to print directions.
+   	 * @param heading the initial heading.
+     * @return a Stream whose i-th element is the i-th line of
+     * 		   computeDirections(route, heading), without its terminating
+     * 		   newline.
+     **/
+  	public Stream<String> directionLines(Route route, double heading) {
+  		List<DirectionStep> steps = route.computeSteps(heading);
+  		return IntStream.range(0, steps.size()).mapToObj(k -> {
+  			StringBuilder line = new StringBuilder();
+  			appendFeature(line, route, k, steps.get(k));
+  			return line.toString();
+  		});
+  	}
+
+
+  	/**
+     * Gives directions for following this Route, like
+     * computeDirections(route, heading), rendering the lines of long routes
+     * in parallel.
+     * @requires route != null &&
+     * 			0 <= heading < 360
+     * @param route the route for which to print directions.
+   	 * @param heading the initial heading.
+     * @return computeDirections(route, heading)
+     * @see #renderParallel(Route, List)
+     **/
+  	public String computeDirectionsParallel(Route route, double heading) {
+  		return renderParallel(route, route.computeSteps(heading));
+  	}
+
+
+  	/**
+     * Renders the lines of the steps of a route on a fork/join pool. The
+     * steps are split into chunks that are rendered in parallel and
+     * concatenated in order. Lists shorter than PARALLEL_THRESHOLD are
+     * rendered sequentially.
+     * <p>
+     * The chunks run in the pool of the calling fork/join task, or in the
+     * common pool when called from any other thread. Since every line
+     * depends only on its own feature, computeLine must not depend on the
+     * order in which features are rendered.
+     * @requires steps is route.computeSteps(h) for some heading h, and
+     * 			 route may be null only if this is a StepRouteFormatter
+     * @return the directions of steps, one newline-terminated line per step
+     **/
+  	String renderParallel(Route route, List<DirectionStep> steps) {
+  		if(steps.size() < PARALLEL_THRESHOLD)
+  		{
+  			StringBuilder directions = new StringBuilder();
+  			appendFeatures(directions, route, steps);
+  			return directions.toString();
+  		}
+  		if(!(steps instanceof RandomAccess))
+  		{
+  			steps = new ArrayList<DirectionStep>(steps);
+  		}
+  		String[] chunks = new String[(steps.size() + CHUNK_SIZE - 1) / CHUNK_SIZE];
+  		new RenderTask(route, steps, chunks, 0, chunks.length).invoke();
+  		int length = 0;
+  		for(String chunk : chunks)
   		{
-  			itrGeoFeature = iterator.next();
-  			directions += computeLine(itrGeoFeature, heading) + "\n";
-  			heading = itrGeoFeature.getEndHeading();
+  			length += chunk.length();
+  		}
+  		StringBuilder directions = new StringBuilder(length);
+  		for(String chunk : chunks)
+  		{
+  			directions.append(chunk);
+  		}
+  		return directions.toString();
+  	}
+
+
+  	/**
+     * Gives directions for following each of a batch of routes. The routes
+     * are rendered concurrently on the given fork/join pool, and every
+     * thread of the pool reuses its own buffer, across batches as long as
+     * the thread lives. A long-lived pool, such as ForkJoinPool.commonPool(),
+     * should therefore be preferred over a new pool per batch.
+     * @requires routes != null && no element of routes is null &&
+     * 			 pool != null && 0 <= heading < 360
+     * @param routes the routes for which to print directions.
+   	 * @param heading the initial heading of every route.
+   	 * @param pool the pool rendering the batch.
+   	 * @param statistics the statistics to record the batch in, or null.
+     * @modifies statistics
+     * @effects records every route and the whole batch in statistics, if
+     * 			statistics != null.
+     * @return an unmodifiable List d, in the iteration order of routes,
+     * 		   such that d.get(i) equals computeDirections(r[i], heading)
+     * 		   for the i-th route r[i] of routes.
+     **/
+  	public List<String> computeDirectionsBatch(Collection<Route> routes, double heading,
+  											   ForkJoinPool pool, BatchStatistics statistics) {
+  		long start = System.nanoTime();
+  		Route[] batch = routes.toArray(new Route[0]);
+  		String[] directions = new String[batch.length];
+  		int grain = Math.max(1, batch.length / (pool.getParallelism() * BATCH_TASKS_PER_THREAD));
+  		pool.invoke(new BatchTask(batch, heading, statistics, directions, 0, batch.length, grain));
+  		if(statistics != null)
+  		{
+  			statistics.recordBatch(System.nanoTime() - start);
+  		}
+  		return Collections.unmodifiableList(Arrays.asList(directions));
+  	}
+
+
+  	/**
+     * Gives directions for following each of a stream of routes, and passes
+     * them to a callback as soon as they are rendered. The routes are
+     * rendered concurrently on the given fork/join pool, as in
+     * computeDirectionsBatch(Collection, double, ForkJoinPool, BatchStatistics).
+     * The stream is consumed by the calling thread, which must not be a
+     * thread of the pool, with at most a few routes per thread of the pool
+     * pending at any time, so it may hold more routes than fit in memory.
+     * <p>
+     * The callback is called from the threads of the pool, concurrently
+     * and in no particular order; it must be thread-safe. If it throws,
+     * no further routes are taken from the stream and the exception is
+     * rethrown once the pending routes are done; a checked exception is
+     * rethrown wrapped in a CompletionException.
+     * @requires routes != null && no element of routes is null &&
+     * 			 pool != null && callback != null && 0 <= heading < 360
+     * @param routes the routes for which to print directions.
+   	 * @param heading the initial heading of every route.
+   	 * @param pool the pool rendering the batch.
+   	 * @param statistics the statistics to record the batch in, or null.
+   	 * @param callback the consumer of every route and its directions.
+     * @modifies statistics
+     * @effects calls callback.accept(r, computeDirections(r, heading)) for
+     * 			every route r of routes, and records every route and the
+     * 			whole batch in statistics, if statistics != null.
+     * @throws CompletionException if callback throws a checked exception.
+     **/
+  	public void computeDirectionsBatch(Stream<Route> routes, double heading, ForkJoinPool pool,
+  									   BatchStatistics statistics, BiConsumer<Route, String> callback) {
+  		long start = System.nanoTime();
+  		int maxPending = pool.getParallelism() * BATCH_TASKS_PER_THREAD;
+  		Semaphore pending = new Semaphore(maxPending);
+  		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+  		Iterator<Route> iterator = routes.iterator();
+  		while(failure.get() == null && iterator.hasNext())
+  		{
+  			Route route = iterator.next();
+  			pending.acquireUninterruptibly();
+  			pool.execute(() -> {
+  				try
+  				{
+  					callback.accept(route, renderBatchRoute(route, heading, statistics));
+  				}
+  				catch(Throwable t)
+  				{
+  					failure.compareAndSet(null, t);
+  				}
+  				finally
+  				{
+  					pending.release();
+  				}
+  			});
+  		}
+  		// Every pending route holds a permit until it is done
+  		pending.acquireUninterruptibly(maxPending);
+  		if(statistics != null)
+  		{
+  			statistics.recordBatch(System.nanoTime() - start);
+  		}
+  		Throwable t = failure.get();
+  		if(t instanceof Error)
+  		{
+  			throw (Error) t;
+  		}
+  		if(t instanceof RuntimeException)
+  		{
+  			throw (RuntimeException) t;
+  		}
+  		if(t != null)
+  		{
+  			throw new CompletionException(t);
+  		}
+  	}
+
+
+  	/**
+     * Renders the directions of a single route of a batch in the buffer of
+     * the current thread, and records it in statistics. Long routes are
+     * rendered by renderParallel, in the pool of the batch. Both
+     * variants of computeDirectionsBatch render every route here.
+     * @return computeDirections(route, heading)
+     **/
+  	String renderBatchRoute(Route route, double heading, BatchStatistics statistics) {
+  		long start = System.nanoTime();
+  		List<DirectionStep> steps = route.computeSteps(heading);
+  		String directions;
+  		if(steps.size() >= PARALLEL_THRESHOLD)
+  		{
+  			directions = renderParallel(route, steps);
+  		}
+  		else
+  		{
+  			StringBuilder buffer = BATCH_BUFFER.get();
+  			if(buffer.capacity() > MAX_BATCH_BUFFER_CAPACITY)
+  			{
+  				buffer = new StringBuilder();
+  				BATCH_BUFFER.set(buffer);
+  			}
+  			buffer.setLength(0);
+  			appendFeatures(buffer, route, steps);
+  			directions = buffer.toString();
+  		}
+  		if(statistics != null)
+  		{
+  			statistics.recordRoute(steps.size(), directions.length(), System.nanoTime() - start);
   		}
   		return directions;
   	}
 
 
+  	/**
+     * Gives directions for following this Route with several RouteFormatters
+     * at once. The route is traversed, and every turn classified, only once;
+     * each step is then rendered by all the formatters.
+     * @requires route != null && formatters != null &&
+     * 			 no element of formatters is null &&
+     * 			 0 <= heading < 360
+     * @param route the route for which to print directions.
+   	 * @param heading the initial heading.
+   	 * @param formatters the formatters to render the directions with.
+     * @return an array d with d.length = formatters.length, such that
+     * 		   d[i] equals formatters[i].computeDirections(route, heading).
+     **/
+  	public static String[] computeAllDirections(Route route, double heading, RouteFormatter... formatters) {
+  		List<DirectionStep> steps = route.computeSteps(heading);
+  		StringBuilder[] directions = new StringBuilder[formatters.length];
+  		for(int i = 0; i < formatters.length; i++)
+  		{
+  			directions[i] = new StringBuilder();
+  		}
+  		for(int k = 0; k < steps.size(); k++)
+  		{
+  			for(int i = 0; i < formatters.length; i++)
+  			{
+  				formatters[i].appendFeature(directions[i], route, k, steps.get(k));
+  				directions[i].append('\n');
+  			}
+  		}
+  		String[] result = new String[formatters.length];
+  		for(int i = 0; i < formatters.length; i++)
+  		{
+  			result[i] = directions[i].toString();
+  		}
+  		return result;
+  	}
+
+
   	/**
      * Computes a single line of a multi-line directions String that
      * represents the instructions for traversing a single geographic
@@ -46,6 +366,37 @@ public abstract class RouteFormatter {
   	public abstract String computeLine(GeoFeature geoFeature, double origHeading);
 
 
+  	/**
+     * Appends the line of directions of a single GeoFeature of a route to a
+     * StringBuilder. Every line of directions of a route is rendered here.
+     * The line is computeLine(f, step.heading), as is, where f is the
+     * GeoFeature of route traversed by step.
+     * @requires route != null && out != null &&
+     * 			 0 <= feature < route.getFeatureCount() &&
+     * 			 step is the DirectionStep of that feature
+     * @modifies out
+     * @effects appends the line of the feature to out.
+     */
+  	void appendFeature(StringBuilder out, Route route, int feature, DirectionStep step) {
+  		out.append(computeLine(route.getGeoFeature(feature), step.getHeading()));
+  	}
+
+
+  	/**
+     * Appends the lines of the steps of a route, each followed by a newline,
+     * to a StringBuilder.
+     * @requires steps is route.computeSteps(h) for some heading h, and
+     * 			 route may be null only if this is a StepRouteFormatter
+     **/
+  	void appendFeatures(StringBuilder out, Route route, List<DirectionStep> steps) {
+  		for(int k = 0; k < steps.size(); k++)
+  		{
+  			appendFeature(out, route, k, steps.get(k));
+  			out.append('\n');
+  		}
+  	}
+
+
   	/**
      * Computes directions to turn based on the heading change.
      * @requires 0 <= oldHeading < 360 &&
@@ -64,44 +415,95 @@ public abstract class RouteFormatter {
      * U-turn               if 179 <= a
      * </pre>
      * and likewise for left turns.
+     * @see homework1.Turn
      */
   	protected String getTurnString(double origHeading, double newHeading) {
-  		double normalizedHeading = newHeading - origHeading;
-  		normalizedHeading = (normalizedHeading >=0) ? normalizedHeading : normalizedHeading +360;
-  		String direction = "Something went wrong";
-  		if(normalizedHeading < 10 || normalizedHeading > 350)
-  		{
-  			direction = "Continue ";
-  		}
-  		else if(normalizedHeading >= 179 && normalizedHeading <= 181 )
-  		{
-  			direction = "U-turn ";
-  		}
-  		else if(normalizedHeading >= 120 && normalizedHeading < 179 )
-  		{
-  			direction = "Turn sharp right ";
-  		}
-  		else if(normalizedHeading >= 60 && normalizedHeading < 120 )
-  		{
-  			direction = "Turn right ";
-  		}
-  		else if(normalizedHeading >= 10 && normalizedHeading < 60 )
-  		{
-  			direction = "Turn slight right ";
+  		return Turn.of(origHeading, newHeading).getText() + " ";
+  	}
+
+
+  	/**
+  	 * Renders the chunks from..to-1 of the steps of route into chunks,
+  	 * splitting the range in halves until a single chunk is left.
+  	 */
+  	private final class RenderTask extends RecursiveAction {
+
+  		private static final long serialVersionUID = 1L;
+
+  		private final Route route_;
+  		private final List<DirectionStep> steps_;
+  		private final String[] chunks_;
+  		private final int from_;
+  		private final int to_;
+
+  		RenderTask(Route route, List<DirectionStep> steps, String[] chunks, int from, int to) {
+  			route_ = route;
+  			steps_ = steps;
+  			chunks_ = chunks;
+  			from_ = from;
+  			to_ = to;
   		}
-  		else if(normalizedHeading > 181 && normalizedHeading <= 240 )
-  		{
-  			direction = "Turn sharp left ";
+
+  		protected void compute() {
+  			if(to_ - from_ > 1)
+  			{
+  				int middle = (from_ + to_) >>> 1;
+  				invokeAll(new RenderTask(route_, steps_, chunks_, from_, middle),
+  						  new RenderTask(route_, steps_, chunks_, middle, to_));
+  				return;
+  			}
+  			StringBuilder chunk = new StringBuilder();
+  			int end = Math.min(steps_.size(), (from_ + 1) * CHUNK_SIZE);
+  			for(int i = from_ * CHUNK_SIZE; i < end; i++)
+  			{
+  				appendFeature(chunk, route_, i, steps_.get(i));
+  				chunk.append('\n');
+  			}
+  			chunks_[from_] = chunk.toString();
   		}
-  		else if(normalizedHeading > 240 && normalizedHeading <= 300 )
-  		{
-  			direction = "Turn left ";
+  	}
+
+
+  	/**
+  	 * Renders the routes from..to-1 of batch into directions, splitting the
+  	 * range in halves until at most grain routes are left.
+  	 */
+  	private final class BatchTask extends RecursiveAction {
+
+  		private static final long serialVersionUID = 1L;
+
+  		private final Route[] batch_;
+  		private final double heading_;
+  		private final BatchStatistics statistics_;
+  		private final String[] directions_;
+  		private final int from_;
+  		private final int to_;
+  		private final int grain_;
+
+  		BatchTask(Route[] batch, double heading, BatchStatistics statistics,
+  				  String[] directions, int from, int to, int grain) {
+  			batch_ = batch;
+  			heading_ = heading;
+  			statistics_ = statistics;
+  			directions_ = directions;
+  			from_ = from;
+  			to_ = to;
+  			grain_ = grain;
   		}
-  		else if(normalizedHeading > 300 && normalizedHeading <= 350 )
-  		{
-  			direction = "Turn slight left ";
+
+  		protected void compute() {
+  			if(to_ - from_ > grain_)
+  			{
+  				int middle = (from_ + to_) >>> 1;
+  				invokeAll(new BatchTask(batch_, heading_, statistics_, directions_, from_, middle, grain_),
+  						  new BatchTask(batch_, heading_, statistics_, directions_, middle, to_, grain_));
+  				return;
+  			}
+  			for(int i = from_; i < to_; i++)
+  			{
+  				directions_[i] = renderBatchRoute(batch_[i], heading_, statistics_);
+  			}
   		}
-  		return direction;
   	}
 
 }
@@ -3,6 +3,11 @@ package homework1;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A JPanel GUI for representing a Route. This Route is shown as a list of
@@ -15,7 +20,27 @@ public class RouteFormatterGUI extends JPanel {
 
 	private static final long serialVersionUID = 1L;
 
+	private static final int WALKING = 0;	// formatter indices in directions
+	private static final int DRIVING = 1;
+
 	private Route route = null;				// Route shown in this
+	private GeoPoint routeEnd = null;		// end of route with all its pending segments
+
+	// Directions are computed off the event dispatch thread, one worker at a
+	// time. directions and advancedSegments are confined to the worker thread.
+	private final ExecutorService directionsExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "RouteFormatterGUI directions");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final IncrementalDirections directions = new IncrementalDirections(0,
+			new WalkingRouteFormatter(), new DrivingRouteFormatter());
+	private int advancedSegments = 0;
+	// segments added on the EDT and not yet taken by a worker
+	private final Queue<GeoSegment> pendingSegments = new ConcurrentLinkedQueue<>();
+	// number of segments whose directions are shown, written on the EDT
+	private volatile int shownSegments = 0;
+	private DirectionsWorker worker = null;	// the latest worker
 
 	private GeoSegmentsDialog dlgSegments;	// secondary window
 
@@ -23,6 +48,7 @@ public class RouteFormatterGUI extends JPanel {
 	private JList<GeoSegment> lstSegments;
 	private JTextArea txtWalkingDirections;
 	private JTextArea txtDrivingDirections;
+	private JLabel lblComputationTime;
 
 
 	/**
@@ -58,6 +84,8 @@ public class RouteFormatterGUI extends JPanel {
 		JLabel lblDrivingDirections = new JLabel("Driving Directions:");
 		lblDrivingDirections.setLabelFor(txtDrivingDirections);
 
+		lblComputationTime = new JLabel(" ");
+
 		JButton btnAddSegment = new JButton("Add GeoSegment");
 		btnAddSegment.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
@@ -121,6 +149,15 @@ public class RouteFormatterGUI extends JPanel {
 		gridbag.setConstraints(scrlDrivingDirections, c);
 		this.add(scrlDrivingDirections);
 
+		c.gridx = 1;
+		c.gridy = 4;
+		c.gridwidth = 1;
+		c.gridheight = 1;
+		c.insets = new Insets(0,20,0,0);
+		c.anchor = GridBagConstraints.SOUTH;
+		gridbag.setConstraints(lblComputationTime, c);
+		this.add(lblComputationTime);
+
 		c.gridx = 2;
 		c.gridy = 4;
 		c.gridwidth = 1;
@@ -139,36 +176,157 @@ public class RouteFormatterGUI extends JPanel {
 	 * 			defined by Route.addSegment(). In addition, updates the
 	 * 			walking direction and the driving direction of the GUI
 	 * 			with the return value of
-	 * 			RouteDirection.computeDirections(this.route,0)
+	 * 			RouteDirection.computeDirections(this.route,0).
+	 * 			The directions are computed by a background worker and
+	 * 			shown when it is done.
 	 */
 	public void addSegment(GeoSegment segment) {
 		DefaultListModel<GeoSegment> model =
 				(DefaultListModel<GeoSegment>)(this.lstSegments.getModel());
 		
-		if (route == null) {
-			route = new Route(segment);
-			model.addElement(segment);
-			dlgSegments.setVisible(false);
-		}
-		
-		
-		else if (segment.getP1().equals(route.getEnd())) {
-			route = route.addSegment(segment);
-			model.addElement(segment);
-			dlgSegments.setVisible(false);
-		}
-		
-		else {
+		// Segments are validated against the end of the route including the
+		// segments whose directions are still being computed
+		if (routeEnd != null && !segment.getP1().equals(routeEnd)) {
 			JOptionPane.showMessageDialog(this, "Segment cannot be added to this route. Please choose again.");
 			return;
 		}
 		
-		txtWalkingDirections.setText(new WalkingRouteFormatter().computeDirections(route, 0));
-		txtDrivingDirections.setText(new DrivingRouteFormatter().computeDirections(route, 0));
+		routeEnd = segment.getP2();
+		model.addElement(segment);
+		dlgSegments.setVisible(false);
+		
+		pendingSegments.add(segment);
+		startWorker();
 		
 	}
 
 
+	/**
+	 * Returns the end of the route shown by this, including the segments
+	 * whose directions are still being computed.
+	 * @return the end of the route, or null if it has no segments.
+	 */
+	GeoPoint getRouteEnd() {
+		return routeEnd;
+	}
+
+
+	/**
+	 * Starts a worker that computes the directions of the pending segments.
+	 * A worker that has not finished yet is cancelled: the new worker takes
+	 * over all the segments it did not take, and shows the directions of
+	 * the whole route when it is done.
+	 */
+	private void startWorker() {
+		if (worker != null) {
+			// Never interrupted, so that the directions are never left in
+			// the middle of an update
+			worker.cancel(false);
+		}
+		worker = new DirectionsWorker();
+		directionsExecutor.execute(worker);
+	}
+
+
+	/**
+	 * Computes the directions of the pending segments off the event dispatch
+	 * thread, and shows them when it is done.
+	 */
+	private final class DirectionsWorker extends SwingWorker<DirectionsUpdate, Void> {
+
+		protected DirectionsUpdate doInBackground() {
+			long start = System.nanoTime();
+			int before = advancedSegments;
+			IncrementalDirections.Delta delta = null;
+			for (GeoSegment segment; (segment = pendingSegments.poll()) != null; ) {
+				delta = directions.advance(segment);
+				advancedSegments++;
+			}
+			// A single delta can be applied only to the directions it was
+			// computed from; otherwise the whole directions are shown
+			String[] texts = null;
+			if (advancedSegments - before != 1 || before != shownSegments) {
+				texts = new String[] { directions.getDirections(WALKING),
+									   directions.getDirections(DRIVING) };
+			}
+			return new DirectionsUpdate(directions.getRoute(), before, advancedSegments,
+										delta, texts, System.nanoTime() - start);
+		}
+
+		protected void done() {
+			if (isCancelled()) {
+				return;
+			}
+			DirectionsUpdate update;
+			try {
+				update = get();
+			} catch (InterruptedException | ExecutionException e) {
+				throw new IllegalStateException("Directions could not be computed.", e);
+			}
+			if (update.texts_ != null) {
+				txtWalkingDirections.setText(update.texts_[WALKING]);
+				txtDrivingDirections.setText(update.texts_[DRIVING]);
+			}
+			else if (update.before_ == shownSegments) {
+				applyDelta(txtWalkingDirections, update.delta_, WALKING);
+				applyDelta(txtDrivingDirections, update.delta_, DRIVING);
+			}
+			else {
+				// Cannot happen, since stale workers never show their results;
+				// resynchronize the whole directions to be safe
+				startWorker();
+				return;
+			}
+			route = update.route_;
+			shownSegments = update.after_;
+			StringBuilder time = new StringBuilder("Computed in ");
+			FixedPointFormat.appendTenths(time, update.nanos_ / 1e6);
+			lblComputationTime.setText(time.append(" ms").toString());
+		}
+	}
+
+
+	/**
+	 * The result of a DirectionsWorker: the route after the worker, and
+	 * either the change to the shown directions or the whole directions.
+	 */
+	private static final class DirectionsUpdate {
+
+		private final Route route_;
+		private final int before_;
+		private final int after_;
+		private final IncrementalDirections.Delta delta_;
+		private final String[] texts_;
+		private final long nanos_;
+
+		DirectionsUpdate(Route route, int before, int after, IncrementalDirections.Delta delta,
+						 String[] texts, long nanos) {
+			route_ = route;
+			before_ = before;
+			after_ = after;
+			delta_ = delta;
+			texts_ = texts;
+			nanos_ = nanos;
+		}
+	}
+
+
+	/**
+	 * Applies the change made to the directions of a formatter to the text
+	 * area that shows them.
+	 * @requires txtDirections shows the directions of formatter before the
+	 * 			 change
+	 * @modifies txtDirections
+	 * @effects replaces the changed line of txtDirections as defined by delta.
+	 */
+	private static void applyDelta(JTextArea txtDirections, IncrementalDirections.Delta delta,
+								   int formatter) {
+		int offset = delta.getOffset(formatter);
+		txtDirections.replaceRange(delta.getText(formatter), offset,
+								   offset + delta.getRemovedLength(formatter));
+	}
+
+
     public static void main(String[] args) {
 		JFrame frame = new JFrame("Route Formatter GUI");
 		Container contentPane = frame.getContentPane();
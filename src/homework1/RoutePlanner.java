@@ -0,0 +1,224 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A RoutePlanner finds shortest routes in a RoadGraph with the A* search
+ * algorithm. The straight-line distance to the destination, as computed by
+ * GeoPoint.distanceTo, never exceeds the length of the remaining route, so
+ * A* returns a shortest route while settling only the nodes around the
+ * straight line between the start and the destination.
+ * <p>
+ * A RoutePlanner keeps the working arrays of its searches between queries,
+ * so a query allocates only the returned Route. It is mutable and not
+ * thread-safe; concurrent queries should use a RoutePlanner per thread
+ * over a shared RoadGraph.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph     // the graph searched
+ *   settled : integer     // number of nodes settled by the last query
+ * </pre>
+ */
+public class RoutePlanner {
+
+	private final RoadGraph graph_;
+	private final NodeHeap heap_;
+	private final double[] distances_;
+	private final int[] parentNodes_;
+	private final int[] parentEdges_;
+	private final int[] reached_;
+	private final int[] settledAt_;
+	private int query_;
+	private int settledCount_;
+
+
+	// Abstraction Function:
+	// graph = graph_, settled = settledCount_.
+	// Within the current query query_, node u was reached iff
+	// reached_[u] = query_, and then distances_[u] is the length of the
+	// shortest path found to it, whose last edge is parentEdges_[u] from
+	// node parentNodes_[u] (both -1 at the source). Node u was settled iff
+	// settledAt_[u] = query_.
+
+	// Representation invariant for every RoutePlanner p:
+	// distances_, parentNodes_, parentEdges_, reached_ and settledAt_ have
+	// graph_.getNodeCount() elements
+	// query_ >= 0 and no element of reached_ or settledAt_ exceeds query_
+
+
+	/**
+	 * Constructs a new RoutePlanner.
+	 * @requires graph != null
+	 * @effects Constructs a new RoutePlanner that searches graph.
+	 */
+	public RoutePlanner(RoadGraph graph) {
+		graph_ = graph;
+		int nodeCount = graph.getNodeCount();
+		heap_ = new NodeHeap(nodeCount);
+		distances_ = new double[nodeCount];
+		parentNodes_ = new int[nodeCount];
+		parentEdges_ = new int[nodeCount];
+		reached_ = new int[nodeCount];
+		settledAt_ = new int[nodeCount];
+		checkRep();
+	}
+
+
+	/**
+	 * Finds a shortest route between two points.
+	 * @requires from != null && to != null
+	 * @modifies this
+	 * @effects sets this.settled to the number of nodes settled by the
+	 * 			search.
+	 * @return a shortest Route of this.graph from from to to, or null if
+	 * 		   from or to is not a node of this.graph, if from = to, or if
+	 * 		   there is no route between them.
+	 */
+	public Route findRoute(GeoPoint from, GeoPoint to) {
+		int source = graph_.nodeOf(from);
+		int target = graph_.nodeOf(to);
+		if (source < 0 || target < 0 || source == target
+				|| search(source, target) == Double.POSITIVE_INFINITY) {
+			return null;
+		}
+		int[] path = pathTo(target);
+		return graph_.buildRoute(path, path.length);
+	}
+
+
+	/**
+	 * Finds the length of a shortest route between two points.
+	 * @requires from != null && to != null
+	 * @modifies this
+	 * @effects sets this.settled to the number of nodes settled by the
+	 * 			search.
+	 * @return the length of a shortest route of this.graph from from to to,
+	 * 		   in kilometers: 0 if from = to, and Double.POSITIVE_INFINITY if
+	 * 		   from or to is not a node of this.graph or there is no route
+	 * 		   between them.
+	 */
+	public double findDistance(GeoPoint from, GeoPoint to) {
+		int source = graph_.nodeOf(from);
+		int target = graph_.nodeOf(to);
+		if (source < 0 || target < 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return search(source, target);
+	}
+
+
+	/**
+	 * Returns the graph searched by this planner.
+	 * @return this.graph
+	 */
+	public RoadGraph getGraph() {
+		return graph_;
+	}
+
+
+	/**
+	 * Returns the number of nodes settled by the last query, a measure of
+	 * its work.
+	 * @return this.settled
+	 */
+	public int getSettledCount() {
+		return settledCount_;
+	}
+
+
+	/**
+	 * Runs an A* search between two nodes. After it returns, pathTo(target)
+	 * gives the path found.
+	 * @requires 0 <= source, target < this.graph.getNodeCount()
+	 * @modifies this
+	 * @return the length of a shortest path from source to target, or
+	 * 		   Double.POSITIVE_INFINITY if there is none.
+	 */
+	double search(int source, int target) {
+		checkRep();
+		startQuery();
+		reach(source, 0, -1, -1);
+		heap_.update(source, graph_.distance(source, target));
+		while (!heap_.isEmpty()) {
+			int u = heap_.poll();
+			settledAt_[u] = query_;
+			settledCount_++;
+			if (u == target) {
+				break;
+			}
+			double distance = distances_[u];
+			for (int e = graph_.firstEdge(u), end = graph_.endEdge(u); e < end; e++) {
+				int v = graph_.target(e);
+				double candidate = distance + graph_.length(e);
+				if (reached_[v] != query_
+						|| (candidate < distances_[v] && settledAt_[v] != query_)) {
+					reach(v, candidate, u, e);
+					heap_.update(v, candidate + graph_.distance(v, target));
+				}
+			}
+		}
+		heap_.clear();
+		checkRep();
+		return (settledAt_[target] == query_) ? distances_[target] : Double.POSITIVE_INFINITY;
+	}
+
+
+	/**
+	 * Returns the edges of the path found to a node by the last search.
+	 * @requires the last search settled target
+	 * @return the edges of the path, from its source to target.
+	 */
+	int[] pathTo(int target) {
+		int count = 0;
+		for (int u = target; parentNodes_[u] >= 0; u = parentNodes_[u]) {
+			count++;
+		}
+		int[] path = new int[count];
+		for (int u = target; parentNodes_[u] >= 0; u = parentNodes_[u]) {
+			path[--count] = parentEdges_[u];
+		}
+		return path;
+	}
+
+
+	/**
+	 * Records that a node was reached.
+	 */
+	private void reach(int node, double distance, int parentNode, int parentEdge) {
+		reached_[node] = query_;
+		distances_[node] = distance;
+		parentNodes_[node] = parentNode;
+		parentEdges_[node] = parentEdge;
+	}
+
+
+	/**
+	 * Starts a new query, invalidating the state of the previous one.
+	 */
+	private void startQuery() {
+		if (query_ == Integer.MAX_VALUE) {
+			Arrays.fill(reached_, 0);
+			Arrays.fill(settledAt_, 0);
+			query_ = 0;
+		}
+		query_++;
+		settledCount_ = 0;
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		int nodeCount = graph_.getNodeCount();
+		assert (distances_.length == nodeCount && parentNodes_.length == nodeCount
+				&& parentEdges_.length == nodeCount
+				&& reached_.length == nodeCount && settledAt_.length == nodeCount) :
+			"Wrong search array size.";
+		assert (query_ >= 0) :
+			"Wrong query number.";
+	}
+
+}
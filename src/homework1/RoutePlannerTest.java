@@ -0,0 +1,460 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class RoutePlannerTest {
+
+	private static final double tolerance = 0.000001;
+
+	private RoadGraph mExampleGraph;
+	private RoadGraph mGrid;
+	private List<GeoSegment> mGridSegments;
+
+
+	public RoutePlannerTest() {
+		mExampleGraph = new RoadGraph(ExampleGeoSegments.segments);
+		mGridSegments = gridSegments(40, new Random(21));
+		mGrid = new RoadGraph(mGridSegments);
+	}
+
+
+	boolean same(double x, double y) {
+		return (x == y) || Math.abs(x - y) <= tolerance;
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	/**
+	 * A size x size grid of streets, about 100 meters apart, with a fifth
+	 * of its segments missing.
+	 */
+	static List<GeoSegment> gridSegments(int size, Random random) {
+		List<GeoSegment> segments = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				GeoPoint p = gridPoint(i, j);
+				if (i + 1 < size && random.nextInt(5) != 0) {
+					segments.add(new GeoSegment("Street " + j, p, gridPoint(i + 1, j)));
+				}
+				if (j + 1 < size && random.nextInt(5) != 0) {
+					segments.add(new GeoSegment("Avenue " + i, p, gridPoint(i, j + 1)));
+				}
+			}
+		}
+		return segments;
+	}
+
+
+	static GeoPoint gridPoint(int i, int j) {
+		// Slightly irregular blocks, so that shortest routes are unique
+		return new GeoPoint(32780000 + 900 * i + (j * 37) % 11, 35000000 + 1100 * j + (i * 53) % 13);
+	}
+
+
+	/**
+	 * The length of a shortest route, by a plain Dijkstra search over maps.
+	 */
+	static double referenceDistance(List<GeoSegment> segments, GeoPoint from, GeoPoint to) {
+		Map<GeoPoint, List<GeoSegment>> edges = new HashMap<>();
+		for (GeoSegment gs : segments) {
+			edges.computeIfAbsent(gs.getP1(), p -> new ArrayList<>()).add(gs);
+			edges.computeIfAbsent(gs.getP2(), p -> new ArrayList<>()).add(gs.reverse());
+		}
+		Map<GeoPoint, Double> distances = new HashMap<>();
+		Set<GeoPoint> settled = new HashSet<>();
+		distances.put(from, 0.0);
+		while (true) {
+			GeoPoint u = null;
+			for (Map.Entry<GeoPoint, Double> entry : distances.entrySet()) {
+				if (!settled.contains(entry.getKey())
+						&& (u == null || entry.getValue() < distances.get(u))) {
+					u = entry.getKey();
+				}
+			}
+			if (u == null) {
+				return Double.POSITIVE_INFINITY;
+			}
+			if (u.equals(to)) {
+				return distances.get(u);
+			}
+			settled.add(u);
+			for (GeoSegment gs : edges.getOrDefault(u, new ArrayList<>())) {
+				double candidate = distances.get(u) + gs.getLength();
+				if (candidate < distances.getOrDefault(gs.getP2(), Double.POSITIVE_INFINITY)) {
+					distances.put(gs.getP2(), candidate);
+				}
+			}
+		}
+	}
+
+
+	public void test() {
+		GeoPoint[] points = ExampleGeoSegments.points;
+		RoutePlanner planner = new RoutePlanner(mExampleGraph);
+
+		show("RoadGraph");
+		show("Nodes are the distinct endpoints",
+			mExampleGraph.getNodeCount() == points.length);
+		show("Every segment gives two edges",
+			mExampleGraph.getEdgeCount() == 2 * mExampleGraph.getSegmentCount());
+		show("Nodes are found by GeoPoint equality",
+			mExampleGraph.getNode(mExampleGraph.nodeOf(new GeoPoint(32783098,35014528))).equals(points[1]));
+		show("Unknown points are not nodes",
+			mExampleGraph.nodeOf(new GeoPoint(0, 0)) == -1);
+
+		show("findRoute()");
+		boolean all = true;
+		for (GeoPoint from : points) {
+			for (GeoPoint to : points) {
+				Route route = planner.findRoute(from, to);
+				double expected = referenceDistance(Arrays.asList(ExampleGeoSegments.segments), from, to);
+				if (from.equals(to)) {
+					all &= (route == null) && planner.findDistance(from, to) == 0;
+				}
+				else {
+					all &= route != null && route.getStart().equals(from) && route.getEnd().equals(to)
+						   && same(route.getLength(), expected)
+						   && same(planner.findDistance(from, to), expected);
+				}
+			}
+		}
+		show("Shortest routes between all example points", all);
+		show("No route from an unknown point",
+			planner.findRoute(new GeoPoint(0, 0), points[0]) == null
+			&& planner.findDistance(new GeoPoint(0, 0), points[0]) == Double.POSITIVE_INFINITY);
+
+		RoadGraph islands = new RoadGraph(new GeoSegment[] {
+				new GeoSegment("A", points[0], points[1]),
+				new GeoSegment("B", points[2], points[3]) });
+		show("No route between disconnected points",
+			new RoutePlanner(islands).findRoute(points[0], points[3]) == null);
+
+		Route route = planner.findRoute(points[9], points[3]);
+		boolean connected = true;
+		GeoPoint end = points[9];
+		for (Iterator<GeoSegment> segments = route.getGeoSegments(); segments.hasNext(); ) {
+			GeoSegment gs = segments.next();
+			connected &= gs.getP1().equals(end);
+			end = gs.getP2();
+		}
+		show("Route segments are oriented along the route", connected);
+	}
+
+
+	public void testGrid() {
+		RoutePlanner planner = new RoutePlanner(mGrid);
+		Random random = new Random(7);
+
+		show("findRoute() on a grid");
+		boolean all = true;
+		int settled = 0;
+		for (int k = 0; k < 20; k++) {
+			GeoPoint from = gridPoint(random.nextInt(40), random.nextInt(40));
+			GeoPoint to = gridPoint(random.nextInt(40), random.nextInt(40));
+			double expected = referenceDistance(mGridSegments, from, to);
+			Route route = planner.findRoute(from, to);
+			settled += planner.getSettledCount();
+			if (expected == Double.POSITIVE_INFINITY || from.equals(to)) {
+				all &= (route == null);
+			}
+			else {
+				all &= route != null && same(route.getLength(), expected);
+			}
+		}
+		show("A* agrees with Dijkstra", all);
+		show("A* settles fewer nodes than the whole grid", settled < 20 * mGrid.getNodeCount());
+	}
+
+
+	public void testHierarchy() {
+		ContractionHierarchy hierarchy = new ContractionHierarchy(mGrid, 4);
+		HierarchyPlanner planner = new HierarchyPlanner(hierarchy);
+		RoutePlanner reference = new RoutePlanner(mGrid);
+		Random random = new Random(22);
+
+		show("ContractionHierarchy");
+		boolean ranks = true;
+		boolean[] ranked = new boolean[mGrid.getNodeCount()];
+		for (int u = 0; u < mGrid.getNodeCount(); u++) {
+			int rank = hierarchy.getRank(u);
+			ranks &= rank >= 0 && rank < ranked.length && !ranked[rank];
+			ranked[rank] = true;
+		}
+		show("Ranks are a permutation of the nodes", ranks);
+
+		boolean distances = true;
+		boolean routes = true;
+		for (int k = 0; k < 300; k++) {
+			GeoPoint from = gridPoint(random.nextInt(40), random.nextInt(40));
+			GeoPoint to = gridPoint(random.nextInt(40), random.nextInt(40));
+			double expected = reference.findDistance(from, to);
+			distances &= same(planner.findDistance(from, to), expected);
+			Route route = planner.findRoute(from, to);
+			Route aStar = reference.findRoute(from, to);
+			if (aStar == null) {
+				routes &= (route == null);
+			}
+			else {
+				routes &= route != null && route.getStart().equals(from) && route.getEnd().equals(to)
+						  && same(route.getLength(), aStar.getLength());
+			}
+		}
+		show("Hierarchy distances agree with A*", distances);
+		show("Unpacked routes agree with A*", routes);
+
+		HierarchyPlanner example = new HierarchyPlanner(new ContractionHierarchy(mExampleGraph, 1));
+		RoutePlanner exampleReference = new RoutePlanner(mExampleGraph);
+		boolean all = true;
+		for (GeoPoint from : ExampleGeoSegments.points) {
+			for (GeoPoint to : ExampleGeoSegments.points) {
+				Route route = example.findRoute(from, to);
+				Route aStar = exampleReference.findRoute(from, to);
+				all &= (route == null) ? aStar == null : route.equals(aStar);
+			}
+		}
+		show("Hierarchy routes between all example points", all);
+	}
+
+
+	/**
+	 * The cost of a route under turn costs, as defined by TurnCostPlanner.
+	 */
+	static double routeCost(Route route, TurnCosts costs, double heading) {
+		double cost = route.getLength();
+		for (Iterator<GeoSegment> segments = route.getGeoSegments(); segments.hasNext(); ) {
+			GeoSegment gs = segments.next();
+			if (!Double.isNaN(heading)) {
+				cost += costs.getCost(Turn.of(heading, gs.getHeading()));
+			}
+			heading = gs.getHeading();
+		}
+		return cost;
+	}
+
+
+	public void testTurnCosts() {
+		TurnCostPlanner shortest = new TurnCostPlanner(mGrid, TurnCosts.NONE);
+		TurnCostPlanner driving = new TurnCostPlanner(mGrid, TurnCosts.DRIVING);
+		RoutePlanner reference = new RoutePlanner(mGrid);
+		Random random = new Random(23);
+
+		show("TurnCostPlanner");
+		boolean free = true;
+		boolean consistent = true;
+		boolean cheaper = true;
+		for (int k = 0; k < 100; k++) {
+			GeoPoint from = gridPoint(random.nextInt(40), random.nextInt(40));
+			GeoPoint to = gridPoint(random.nextInt(40), random.nextInt(40));
+			double heading = random.nextInt(360);
+			Route aStar = reference.findRoute(from, to);
+			Route route = shortest.findRoute(from, to);
+			free &= (aStar == null) ? route == null : same(route.getLength(), aStar.getLength());
+			route = driving.findRoute(from, to, heading);
+			if (aStar != null) {
+				consistent &= route.getStart().equals(from) && route.getEnd().equals(to)
+							  && same(driving.getCost(), routeCost(route, TurnCosts.DRIVING, heading));
+				cheaper &= driving.getCost() <= routeCost(aStar, TurnCosts.DRIVING, heading) + tolerance;
+			}
+		}
+		show("Without turn costs routes are shortest", free);
+		show("The cost of a route is its length and the costs of its turns", consistent);
+		show("No shortest route is cheaper", cheaper);
+
+		// From the middle of a street, facing away from the destination
+		GeoPoint[] points = ExampleGeoSegments.points;
+		TurnCostPlanner noUTurns = new TurnCostPlanner(mExampleGraph,
+				TurnCosts.NONE.withCost(Turn.U_TURN, 100));
+		Route route = noUTurns.findRoute(points[1], points[0], points[0].headingTo(points[1]));
+		show("An expensive U-turn is avoided",
+			route != null && noUTurns.getCost() < 100 && route.getGeoSegments().hasNext());
+		boolean rejected = false;
+		try {
+			TurnCosts.NONE.withCost(Turn.LEFT, -1);
+		}
+		catch (IllegalArgumentException e) {
+			rejected = true;
+		}
+		show("Negative turn costs are rejected", rejected);
+	}
+
+
+	public void testAlternatives() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		ForkJoinPool single = new ForkJoinPool(1);
+		AlternativeRoutes alternatives = new AlternativeRoutes(mGrid, 0.3, pool);
+		AlternativeRoutes shortest = new AlternativeRoutes(mGrid, 0, pool);
+		AlternativeRoutes sequential = new AlternativeRoutes(mGrid, 0.3, single);
+		RoutePlanner reference = new RoutePlanner(mGrid);
+		Random random = new Random(24);
+
+		show("AlternativeRoutes");
+		boolean first = true;
+		boolean ordered = true;
+		boolean loopless = true;
+		boolean dissimilar = true;
+		boolean distinct = true;
+		boolean deterministic = true;
+		for (int k = 0; k < 20; k++) {
+			GeoPoint from = gridPoint(random.nextInt(40), random.nextInt(40));
+			GeoPoint to = gridPoint(random.nextInt(40), random.nextInt(40));
+			Route aStar = reference.findRoute(from, to);
+			List<Route> routes = alternatives.findRoutes(from, to, 4);
+			if (aStar == null) {
+				first &= routes.isEmpty();
+				continue;
+			}
+			first &= !routes.isEmpty() && same(routes.get(0).getLength(), aStar.getLength());
+			List<Set<GeoSegment>> accepted = new ArrayList<>();
+			for (int i = 0; i < routes.size(); i++) {
+				Route route = routes.get(i);
+				ordered &= (i == 0) || routes.get(i - 1).getLength() <= route.getLength() + tolerance;
+				Set<GeoPoint> passed = new HashSet<>();
+				passed.add(from);
+				Set<GeoSegment> used = new HashSet<>();
+				for (Iterator<GeoSegment> segments = route.getGeoSegments(); segments.hasNext(); ) {
+					GeoSegment gs = segments.next();
+					loopless &= passed.add(gs.getP2());
+					used.add(gs);
+					used.add(gs.reverse());
+				}
+				loopless &= route.getStart().equals(from) && route.getEnd().equals(to);
+				for (Set<GeoSegment> other : accepted) {
+					double shared = 0;
+					for (Iterator<GeoSegment> segments = route.getGeoSegments(); segments.hasNext(); ) {
+						GeoSegment gs = segments.next();
+						if (other.contains(gs)) {
+							shared += gs.getLength();
+						}
+					}
+					dissimilar &= shared <= 0.7 * route.getLength() + tolerance;
+				}
+				accepted.add(used);
+			}
+			List<Route> others = sequential.findRoutes(from, to, 4);
+			deterministic &= others.size() == routes.size();
+			for (int i = 0; deterministic && i < routes.size(); i++) {
+				deterministic &= routes.get(i).equals(others.get(i));
+			}
+			routes = shortest.findRoutes(from, to, 5);
+			Set<Route> found = new HashSet<>(routes);
+			distinct &= routes.size() == found.size();
+			for (int i = 1; i < routes.size(); i++) {
+				ordered &= routes.get(i - 1).getLength() <= routes.get(i).getLength() + tolerance;
+			}
+		}
+		show("The first route is a shortest route", first);
+		show("Routes are in order of length", ordered);
+		show("Routes are loopless and join the points", loopless);
+		show("Routes are dissimilar enough", dissimilar);
+		show("Routes are distinct", distinct);
+		show("Parallel spur searches give the same routes", deterministic);
+		show("Alternatives on the common pool",
+			new AlternativeRoutes(mGrid, 0.3).findRoutes(gridPoint(0, 0), gridPoint(5, 5), 2).size() == 2);
+		show("No alternatives between equal points",
+			alternatives.findRoutes(gridPoint(0, 0), gridPoint(0, 0), 3).isEmpty());
+		boolean rejected = false;
+		try {
+			new AlternativeRoutes(mGrid, 1.5);
+		}
+		catch (IllegalArgumentException e) {
+			rejected = true;
+		}
+		show("Dissimilarity above 1 is rejected", rejected);
+		pool.shutdown();
+		single.shutdown();
+	}
+
+
+	public void testMatrix() {
+		RoutePlanner reference = new RoutePlanner(mGrid);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		DistanceMatrix trees = new DistanceMatrix(mGrid, pool);
+		DistanceMatrix buckets = new DistanceMatrix(new ContractionHierarchy(mGrid, 4), pool);
+		Random random = new Random(25);
+
+		show("DistanceMatrix");
+		GeoPoint[] sources = new GeoPoint[30];
+		GeoPoint[] targets = new GeoPoint[25];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = gridPoint(random.nextInt(40), random.nextInt(40));
+		}
+		for (int j = 0; j < targets.length; j++) {
+			targets[j] = gridPoint(random.nextInt(40), random.nextInt(40));
+		}
+		sources[7] = targets[3];
+		targets[11] = targets[4];
+		sources[13] = new GeoPoint(0, 0);
+		targets[17] = new GeoPoint(0, 0);
+		double[][] fromTrees = trees.compute(sources, targets);
+		double[][] fromBuckets = buckets.compute(sources, targets);
+		boolean agree = fromTrees.length == sources.length && fromBuckets.length == sources.length;
+		boolean hierarchyAgrees = agree;
+		for (int i = 0; agree && i < sources.length; i++) {
+			for (int j = 0; j < targets.length; j++) {
+				double distance = reference.findDistance(sources[i], targets[j]);
+				agree &= same(fromTrees[i][j], distance);
+				hierarchyAgrees &= same(fromBuckets[i][j], distance);
+			}
+		}
+		show("One-to-many distances agree with A*", agree);
+		show("Bucket distances agree with A*", hierarchyAgrees);
+		show("Equal points are at distance 0", fromTrees[7][3] == 0 && fromBuckets[7][3] == 0);
+		show("Unknown points are unreachable",
+			fromTrees[13][0] == Double.POSITIVE_INFINITY && fromBuckets[0][17] == Double.POSITIVE_INFINITY);
+		show("All rows are completed",
+			trees.getCompletedRows() == sources.length && buckets.getRowCount() == sources.length
+			&& buckets.getCompletedRows() == sources.length);
+		show("Timing is recorded",
+			trees.getElapsedNanos() > 0 && trees.getBucketNanos() == 0
+			&& buckets.getBucketNanos() > 0 && buckets.getBucketNanos() <= buckets.getElapsedNanos());
+		show("An empty matrix has no rows", trees.compute(new GeoPoint[0], targets).length == 0);
+		// The working arrays are reused, so later matrices must not see the
+		// targets or buckets of earlier ones
+		GeoPoint[] fewTargets = Arrays.copyOfRange(targets, 20, 25);
+		double[][] fewFromTrees = trees.compute(sources, fewTargets);
+		double[][] fewFromBuckets = buckets.compute(sources, fewTargets);
+		boolean reused = true;
+		for (int i = 0; i < sources.length; i++) {
+			reused &= Arrays.equals(fewFromTrees[i], Arrays.copyOfRange(fromTrees[i], 20, 25))
+					  && Arrays.equals(fewFromBuckets[i], Arrays.copyOfRange(fromBuckets[i], 20, 25));
+		}
+		show("Later matrices reuse the working arrays correctly", reused
+			&& Arrays.deepEquals(trees.compute(sources, targets), fromTrees)
+			&& Arrays.deepEquals(new DistanceMatrix(mGrid).compute(sources, targets), fromTrees));
+		pool.shutdown();
+	}
+
+
+	public static void main(String[] args) {
+		RoutePlannerTest plannerTest = new RoutePlannerTest();
+		plannerTest.test();
+		plannerTest.testGrid();
+		plannerTest.testHierarchy();
+		plannerTest.testTurnCosts();
+		plannerTest.testAlternatives();
+		plannerTest.testMatrix();
+	}
+}
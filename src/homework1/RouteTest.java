@@ -0,0 +1,262 @@
+package homework1;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class RouteTest {
+
+	private static final double tolerance = 0.01;
+
+  	private GeoPoint gpZivSquare;
+  	private GeoPoint gpEast;			// 1 km east to gpZivSquare
+  	private GeoPoint gpEast2;			// 2 km east to gpZivSquare
+  	private GeoPoint gpNorth;			// 1 km north to gpEast2
+
+  	private GeoSegment gsEast;
+  	private GeoSegment gsEast2;
+  	private GeoSegment gsNorth;
+
+
+  	public RouteTest() {
+		gpZivSquare = new GeoPoint(32783098,35014528);
+		gpEast = new GeoPoint(32783098,35025202);
+		gpEast2 = new GeoPoint(32783098,35035876);
+		gpNorth = new GeoPoint(32792115,35035876);
+
+		gsEast = new GeoSegment("East", gpZivSquare, gpEast);
+		gsEast2 = new GeoSegment("East", gpEast, gpEast2);
+		gsNorth = new GeoSegment("North", gpEast2, gpNorth);
+  	}
+
+
+  	boolean same(double x, double y) {
+  		return ((y >= x-tolerance) && (y <= x+tolerance));
+  	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+  	public void test() {
+  		Route route = new Route(gsEast);
+  		Route longRoute = route.addSegment(gsEast2).addSegment(gsNorth);
+
+  		show("addSegment()");
+  		show("Start is kept", longRoute.getStart().equals(gpZivSquare));
+  		show("End is moved", longRoute.getEnd().equals(gpNorth));
+  		show("Length is accumulated", same(longRoute.getLength(), 3.0));
+  		show("End heading is the heading of the last segment",
+  			same(longRoute.getEndHeading(), gsNorth.getHeading()));
+  		show("Reversed segment is added in the right direction",
+  			route.addSegment(gsEast2.reverse()).getEnd().equals(gpEast2));
+  		show("Original route is not changed", route.getEnd().equals(gpEast)
+  			&& same(route.getLength(), 1.0));
+
+  		show("Route.of()");
+  		Route builtRoute = Route.of(java.util.Arrays.asList(gsEast, gsEast2.reverse(), gsNorth));
+  		show("Built route equals the chained route", builtRoute.equals(longRoute)
+  			&& builtRoute.hashCode() == longRoute.hashCode());
+  		show("Built route has the same features",
+  			builtRoute.getGeoFeatureList().equals(longRoute.getGeoFeatureList()));
+  		show("Built route can be extended", builtRoute.addSegment(gsNorth.reverse())
+  			.getEnd().equals(gpEast2));
+
+  		boolean rejected = false;
+  		try {
+  			new RouteBuilder().addSegment(gsEast).addSegment(gsNorth);
+  		} catch (IllegalArgumentException e) {
+  			rejected = true;
+  		}
+  		show("A segment that does not continue the route is rejected", rejected);
+  		Route manyFeatures = Route.of(java.util.Arrays.asList(gsEast, gsEast2, gsNorth, gsNorth.reverse(),
+  			gsEast2.reverse(), gsEast.reverse()));
+  		show("A route with several features is built and checked", manyFeatures.getGeoFeatureList().size() == 3
+  			&& same(manyFeatures.getLength(), 6.0) && manyFeatures.getEnd().equals(gpZivSquare));
+
+  		show("equals() & hashCode()");
+  		Route sameRoute = new Route(new GeoSegment("East", gpZivSquare, gpEast))
+  			.addSegment(gsEast2).addSegment(gsNorth);
+  		show("Routes with the same segments are equal", longRoute.equals(sameRoute));
+  		show(".equals() routes must have the same .hashCode()",
+  			longRoute.hashCode() == sameRoute.hashCode());
+  		show(".equals() routes must have the same fingerprint",
+  			longRoute.getFingerprint() == sameRoute.getFingerprint());
+  		show("Routes with the same segments in a different order have different fingerprints",
+  			new Route(gsEast).addSegment(gsEast2.reverse()).getFingerprint() !=
+  			new Route(gsEast2.reverse()).addSegment(gsEast).getFingerprint());
+  		show("Prefix of a route is not equal to the route", !route.equals(longRoute)
+  			&& !longRoute.equals(route));
+  		show("Routes with different names are not equal",
+  			!route.addSegment(gsEast2).equals(route.addSegment(new GeoSegment("Other", gpEast, gpEast2))));
+  		show("equals(null) should be false", !route.equals(null));
+
+  		show("getGeoFeatures()");
+  		Iterator<GeoFeature> features = longRoute.getGeoFeatures();
+  		GeoFeature east = features.next();
+  		show("Segments with the same name are grouped",
+  			east.getName().equals("East") && same(east.getLength(), 2.0));
+  		GeoFeature north = features.next();
+  		show("Segment with a new name starts a new feature",
+  			north.getName().equals("North") && north.getStart().equals(gpEast2));
+  		show("No extra features", !features.hasNext());
+
+  		Route branch = route.addSegment(gsEast2);
+  		Route otherBranch = route.addSegment(new GeoSegment("Other", gpEast, gpEast2));
+  		show("Routes extended from the same route do not affect each other",
+  			branch.getGeoFeatures().next().getName().equals("East") &&
+  			otherBranch.getGeoFeatures().next().getLength() < 1.5);
+
+  		show("getGeoSegments()");
+  		Iterator<GeoSegment> segments = longRoute.getGeoSegments();
+  		show("Segments are returned in order", segments.next().equals(gsEast) &&
+  			segments.next().equals(gsEast2) && segments.next().equals(gsNorth) &&
+  			!segments.hasNext());
+  		show("Segment list view matches the Iterator",
+  			longRoute.getGeoSegmentList().size() == 3 &&
+  			longRoute.getGeoSegmentList().get(2).equals(gsNorth));
+  		show("Feature stream matches the Iterator",
+  			longRoute.getGeoFeatureStream().count() == 2);
+  		boolean unmodifiable = false;
+  		try {
+  			longRoute.getGeoSegmentList().remove(0);
+  		} catch (UnsupportedOperationException e) {
+  			unmodifiable = true;
+  		}
+  		show("Segment list view is unmodifiable", unmodifiable);
+
+  		show("Shared instances");
+  		List<GeoFeature> featureList = longRoute.getGeoFeatureList();
+  		show("Features are the same instances on every request",
+  			featureList.get(0) == longRoute.getGeoFeatureList().get(0)
+  			&& longRoute.getGeoFeatures().next() == featureList.get(0)
+  			&& longRoute.getGeoFeatureStream().skip(1).findFirst().get() == featureList.get(1));
+  		show("Features share the endpoints of the route and their boundaries",
+  			featureList.get(0).getStart() == longRoute.getStart()
+  			&& featureList.get(1).getEnd() == longRoute.getEnd()
+  			&& featureList.get(0).getEnd() == featureList.get(1).getStart());
+  		show("Segments share the endpoints of the route",
+  			longRoute.getGeoSegments().next().getP1() == longRoute.getStart()
+  			&& longRoute.getGeoSegmentList().get(2).getP2() == longRoute.getEnd());
+  		show("Feature list is immutable", featureList.spliterator()
+  			.hasCharacteristics(java.util.Spliterator.IMMUTABLE));
+
+  		show("computeSteps()");
+  		List<DirectionStep> steps = longRoute.computeSteps(0);
+  		show("One step per feature", steps.size() == 2);
+  		show("First step turns from the initial heading",
+  			steps.get(0).getTurn() == Turn.RIGHT && steps.get(0).getName().equals("East") &&
+  			same(steps.get(0).getDistance(), 2.0) && same(steps.get(0).getDuration(), 40.0));
+  		show("Next step turns from the end heading of the previous feature",
+  			steps.get(1).getTurn() == Turn.LEFT && steps.get(1).getName().equals("North"));
+  		show("Rendered steps equal the directions",
+  			new WalkingRouteFormatter().renderSteps(steps).equals(
+  				new WalkingRouteFormatter().computeDirections(longRoute, 0)));
+  		RouteFormatter lineFormatter = new RouteFormatter() {
+  			public String computeLine(GeoFeature geoFeature, double origHeading) {
+  				return getTurnString(origHeading, geoFeature.getStartHeading())
+  					+ geoFeature.getName();
+  			}
+  		};
+  		String lines = "Turn right East\nTurn left North\n";
+  		show("A formatter implementing only computeLine renders its lines",
+  			lineFormatter.computeDirections(longRoute, 0).equals(lines)
+  			&& lineFormatter.computeDirectionsParallel(longRoute, 0).equals(lines)
+  			&& RouteFormatter.computeAllDirections(longRoute, 0, lineFormatter)[0].equals(lines)
+  			&& lineFormatter.directionLines(longRoute, 0).collect(Collectors.joining("\n", "", "\n")).equals(lines));
+  		RouteFormatter newlineFormatter = new RouteFormatter() {
+  			public String computeLine(GeoFeature geoFeature, double origHeading) {
+  				return geoFeature.getName() + "\n";
+  			}
+  		};
+  		show("Lines of computeLine are kept as they are",
+  			newlineFormatter.computeDirections(longRoute, 0).equals("East\n\nNorth\n\n"));
+  		IncrementalDirections incremental = new IncrementalDirections(0, lineFormatter);
+  		for(GeoSegment gs : longRoute.getGeoSegmentList())
+  		{
+  			incremental.advance(gs);
+  		}
+  		show("Incremental directions of a computeLine formatter", incremental.getDirections(0).equals(lines));
+  		show("Steps hold only their own values",
+  			steps.get(1).equals(DirectionStep.of(featureList.get(1), featureList.get(0).getEndHeading()))
+  			&& same(steps.get(0).getHeading(), 0) && same(steps.get(1).getHeading(), featureList.get(0).getEndHeading()));
+  		show("Turn boundaries", Turn.of(0, 10) == Turn.SLIGHT_RIGHT && Turn.of(0, 179) == Turn.U_TURN &&
+  			Turn.of(0, 181) == Turn.U_TURN && Turn.of(0, 181.5) == Turn.SHARP_LEFT &&
+  			Turn.of(5, 0) == Turn.CONTINUE && Turn.of(0, 350) == Turn.SLIGHT_LEFT);
+  	}
+
+
+  	public void testBranching() {
+  		GeoPoint gpSouth = new GeoPoint(32774081,35035876);	// 1 km south to gpEast2
+  		GeoSegment gsSouth = new GeoSegment("South", gpEast2, gpSouth);
+  		GeoSegment gsEastNorth = new GeoSegment("East", gpEast2, gpNorth);
+  		GeoSegment gsEastSouth = new GeoSegment("East", gpEast2, gpSouth);
+  		List<GeoSegment> prefix = java.util.Arrays.asList(gsEast, gsEast2);
+
+  		show("Branching a route");
+  		Route route = new Route(gsEast).addSegment(gsEast2);
+  		Route north = route.addSegment(gsNorth);
+  		Route south = route.addSegment(gsSouth);
+  		Route northAgain = route.addSegment(gsNorth);
+  		show("The original route is intact", route.getGeoSegmentList().equals(prefix)
+  			&& route.getEnd().equals(gpEast2) && route.getGeoFeatureList().size() == 1
+  			&& same(route.getLength(), 2.0));
+  		show("The first branch keeps its segment",
+  			north.getGeoSegmentList().equals(java.util.Arrays.asList(gsEast, gsEast2, gsNorth))
+  			&& north.getEnd().equals(gpNorth));
+  		show("The second branch keeps its segment",
+  			south.getGeoSegmentList().equals(java.util.Arrays.asList(gsEast, gsEast2, gsSouth))
+  			&& south.getEnd().equals(gpSouth));
+  		show("Branches have their own features",
+  			north.getGeoFeatureList().get(1).getName().equals("North")
+  			&& south.getGeoFeatureList().get(1).getName().equals("South")
+  			&& same(north.getGeoFeatureList().get(0).getLength(), 2.0)
+  			&& same(south.getGeoFeatureList().get(0).getLength(), 2.0));
+  		show("Branches equal routes built from scratch",
+  			north.equals(Route.of(java.util.Arrays.asList(gsEast, gsEast2, gsNorth)))
+  			&& south.equals(Route.of(java.util.Arrays.asList(gsEast, gsEast2, gsSouth)))
+  			&& north.equals(northAgain) && !north.equals(south));
+  		Route southEast = south.addSegment(gsSouth.reverse()).addSegment(gsEast2.reverse());
+  		Route northEast = north.addSegment(gsNorth.reverse());
+  		show("Extending the branches again leaves the others intact",
+  			southEast.getGeoSegmentList().size() == 5 && southEast.getEnd().equals(gpEast)
+  			&& northEast.getEnd().equals(gpEast2) && north.getGeoSegmentList().size() == 3
+  			&& south.getGeoSegmentList().get(2).equals(gsSouth)
+  			&& route.getGeoSegmentList().equals(prefix));
+
+  		show("Branching a feature");
+  		GeoFeature feature = new GeoFeature(gsEast).addSegment(gsEast2);
+  		GeoFeature toNorth = feature.addSegment(gsEastNorth);
+  		GeoFeature toSouth = feature.addSegment(gsEastSouth);
+  		show("The original feature is intact", feature.getGeoSegmentList().equals(prefix)
+  			&& feature.getEnd().equals(gpEast2) && same(feature.getLength(), 2.0));
+  		show("Both branches keep their segments",
+  			toNorth.getGeoSegmentList().equals(java.util.Arrays.asList(gsEast, gsEast2, gsEastNorth))
+  			&& toSouth.getGeoSegmentList().equals(java.util.Arrays.asList(gsEast, gsEast2, gsEastSouth))
+  			&& toNorth.getEnd().equals(gpNorth) && toSouth.getEnd().equals(gpSouth));
+  		GeoFeature back = toSouth.addSegment(gsEastSouth.reverse());
+  		show("Extending a branch leaves the other intact",
+  			back.getGeoSegmentList().size() == 4 && back.getEnd().equals(gpEast2)
+  			&& toNorth.getGeoSegmentList().get(2).equals(gsEastNorth)
+  			&& !toNorth.equals(toSouth) && feature.getGeoSegmentList().size() == 2);
+  	}
+
+
+	public static void main(String[] args) {
+		RouteTest routeTest = new RouteTest();
+		routeTest.test();
+		routeTest.testBranching();
+	}
+}
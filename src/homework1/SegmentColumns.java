@@ -0,0 +1,401 @@
+package homework1;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A SegmentColumns stores a chain of connected GeoSegments column by column,
+ * in primitive arrays: the coordinates of the chain's points, and the name
+ * ID, length and heading of each segment. It can also store the boundaries
+ * of the geographic features the chain is grouped into, together with the
+ * length and fingerprint of each feature.
+ * <p>
+ * Segment i of the chain goes from point i to point i+1, so n segments
+ * take n+1 points. GeoSegment and GeoPoint objects are not kept; they are
+ * materialized on demand by <tt>segment(int)</tt> and <tt>point(int)</tt>.
+ * <p>
+ * SegmentColumns is the shared, append-only storage behind Route and
+ * GeoFeature. Several immutable objects may read different prefixes of the
+ * same columns. Slots are claimed one segment at a time with
+ * <tt>claim</tt>; only the object that claimed a slot writes it, and a slot
+ * is never written again after its owner is published. A claim fails when
+ * the slot has already been taken by another append (or the columns are
+ * full), in which case the claiming object continues on a private copy of
+ * its own range.
+ * <p>
+ * Feature k covers the segments featureStart(k) up to (excluding) the start
+ * of feature k+1. Only features that can no longer grow are stored here;
+ * the last, still-growing feature of a Route is kept by the Route itself.
+ */
+final class SegmentColumns {
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private final int[] latitudes_;
+	private final int[] longitudes_;
+	private final int[] nameIds_;
+	private final double[] lengths_;
+	private final double[] headings_;
+	private final int[] featureStarts_;
+	private final double[] featureLengths_;
+	private final long[] featureFingerprints_;
+	private final AtomicInteger claimed_;
+
+
+	// Abstraction Function:
+	// Point i is (latitudes_[i], longitudes_[i]). Segment i is named
+	// NameTable.nameOf(nameIds_[i]), goes from point i to point i+1 and has
+	// length lengths_[i] and heading headings_[i]. Feature k starts at
+	// segment featureStarts_[k] and has length featureLengths_[k] and
+	// fingerprint featureFingerprints_[k].
+	// Segments 0..claimed_-1 have been handed out by claim().
+
+	// Representation invariant for every SegmentColumns c:
+	// latitudes_.length = longitudes_.length = nameIds_.length + 1
+	// nameIds_.length = lengths_.length = headings_.length
+	// featureStarts_.length = featureLengths_.length = featureFingerprints_.length
+	// 0 <= claimed_ <= nameIds_.length
+
+
+	/**
+	 * Constructs new, empty columns.
+	 * @requires capacity >= 1 && featureCapacity >= 0
+	 * @effects Constructs new columns with room for capacity segments and
+	 * 			featureCapacity features, of which the first claimed
+	 * 			segments are already claimed.
+	 */
+	private SegmentColumns(int capacity, int featureCapacity, int claimed) {
+		latitudes_ = new int[capacity + 1];
+		longitudes_ = new int[capacity + 1];
+		nameIds_ = new int[capacity];
+		lengths_ = new double[capacity];
+		headings_ = new double[capacity];
+		featureStarts_ = new int[featureCapacity];
+		featureLengths_ = new double[featureCapacity];
+		featureFingerprints_ = new long[featureCapacity];
+		claimed_ = new AtomicInteger(claimed);
+		checkRep();
+	}
+
+
+	/**
+	 * Creates new columns holding the single segment gs, already claimed.
+	 * @requires gs != null
+	 * @return new columns c such that c.segment(0).equals(gs). c has room
+	 * 		   for features iff withFeatures.
+	 */
+	static SegmentColumns of(GeoSegment gs, boolean withFeatures) {
+		SegmentColumns columns = new SegmentColumns(INITIAL_CAPACITY,
+				withFeatures ? INITIAL_CAPACITY : 0, 1);
+		columns.setPoint(0, gs.getP1());
+		columns.setSegment(0, gs);
+		return columns;
+	}
+
+
+	/**
+	 * Claims the segment slot right after the segments from..to-1, for an
+	 * object that reads those segments and the features
+	 * featureFrom..featureTo-1.
+	 * @requires 0 <= from < to && the segments from..to-1 are written &&
+	 * 			 featureFrom <= featureTo && the features
+	 * 			 featureFrom..featureTo-1 are written &&
+	 * 			 featureFrom = featureTo = 0 if this has no room for features
+	 * @return this, if slot 'to' was free and is now claimed by the caller.
+	 * 		   Otherwise, new columns c holding a copy of the segments
+	 * 		   from..to-1 and of the features featureFrom..featureTo-1,
+	 * 		   rebased to start at 0, in which slot to-from is claimed by
+	 * 		   the caller.
+	 */
+	SegmentColumns claim(int from, int to, int featureFrom, int featureTo) {
+		if (to < nameIds_.length && claimed_.compareAndSet(to, to + 1)) {
+			return this;
+		}
+		int size = to - from;
+		int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+		int featureCapacity = (featureStarts_.length == 0) ? 0 : capacity;
+		SegmentColumns copy = new SegmentColumns(capacity, featureCapacity, size + 1);
+		System.arraycopy(latitudes_, from, copy.latitudes_, 0, size + 1);
+		System.arraycopy(longitudes_, from, copy.longitudes_, 0, size + 1);
+		System.arraycopy(nameIds_, from, copy.nameIds_, 0, size);
+		System.arraycopy(lengths_, from, copy.lengths_, 0, size);
+		System.arraycopy(headings_, from, copy.headings_, 0, size);
+		for (int k = featureFrom; k < featureTo; k++) {
+			copy.featureStarts_[k - featureFrom] = featureStarts_[k] - from;
+			copy.featureLengths_[k - featureFrom] = featureLengths_[k];
+			copy.featureFingerprints_[k - featureFrom] = featureFingerprints_[k];
+		}
+		return copy;
+	}
+
+
+	/**
+	 * Writes a segment into a claimed slot.
+	 * @requires gs != null && the caller claimed slot index &&
+	 * 			 point(index) equals gs.p1
+	 * @modifies this
+	 * @effects segment(index) equals gs.
+	 */
+	void setSegment(int index, GeoSegment gs) {
+		// Point index is not written again, so a segment that does not start
+		// there would lose its p1
+		assert (latitudes_[index] == gs.getP1().getLatitude() && longitudes_[index] == gs.getP1().getLongitude()) :
+			"Segment does not continue the chain.";
+		nameIds_[index] = gs.getNameId();
+		lengths_[index] = gs.getLength();
+		headings_[index] = gs.getHeading();
+		setPoint(index + 1, gs.getP2());
+	}
+
+
+	/**
+	 * Writes the boundary and summary of a feature that can no longer grow.
+	 * @requires the caller claimed a slot after every segment of the feature
+	 * 			 && the features before k are written
+	 * @modifies this
+	 * @effects featureStart(k) = start && featureLength(k) = length &&
+	 * 			featureFingerprint(k) = fingerprint
+	 */
+	void setFeature(int k, int start, double length, long fingerprint) {
+		featureStarts_[k] = start;
+		featureLengths_[k] = length;
+		featureFingerprints_[k] = fingerprint;
+	}
+
+
+	/**
+	 * Writes a point.
+	 * @modifies this
+	 * @effects point(index) equals gp.
+	 */
+	private void setPoint(int index, GeoPoint gp) {
+		latitudes_[index] = gp.getLatitude();
+		longitudes_[index] = gp.getLongitude();
+	}
+
+
+	/**
+	 * Returns the latitude of point index.
+	 * @return the latitude of point index, in millionths of degrees.
+	 */
+	int latitude(int index) {
+		return latitudes_[index];
+	}
+
+
+	/**
+	 * Returns the longitude of point index.
+	 * @return the longitude of point index, in millionths of degrees.
+	 */
+	int longitude(int index) {
+		return longitudes_[index];
+	}
+
+
+	/**
+	 * Returns the name ID of segment index.
+	 * @return the NameTable ID of the name of segment index.
+	 */
+	int nameId(int index) {
+		return nameIds_[index];
+	}
+
+
+	/**
+	 * Returns the length of segment index.
+	 * @return the length of segment index, in kilometers.
+	 */
+	double length(int index) {
+		return lengths_[index];
+	}
+
+
+	/**
+	 * Returns the heading of segment index.
+	 * @return the compass heading of segment index, in degrees.
+	 */
+	double heading(int index) {
+		return headings_[index];
+	}
+
+
+	/**
+	 * Returns the first segment of feature k.
+	 * @return the index of the first segment of feature k.
+	 */
+	int featureStart(int k) {
+		return featureStarts_[k];
+	}
+
+
+	/**
+	 * Returns the length of feature k.
+	 * @return the total length of feature k, in kilometers.
+	 */
+	double featureLength(int k) {
+		return featureLengths_[k];
+	}
+
+
+	/**
+	 * Returns the fingerprint of feature k.
+	 * @return the fingerprint of the segments of feature k.
+	 */
+	long featureFingerprint(int k) {
+		return featureFingerprints_[k];
+	}
+
+
+	/**
+	 * Materializes point index.
+	 * @return a new GeoPoint at point index.
+	 */
+	GeoPoint point(int index) {
+		return new GeoPoint(latitudes_[index], longitudes_[index]);
+	}
+
+
+	/**
+	 * Materializes segment index.
+	 * @return a new GeoSegment equal to segment index.
+	 */
+	GeoSegment segment(int index) {
+		return new GeoSegment(nameIds_[index], point(index), point(index + 1),
+							  lengths_[index], headings_[index]);
+	}
+
+
+	/**
+	 * Returns an Iterator that materializes the segments from..to-1, in
+	 * order. Consecutive segments share their common GeoPoint, and the
+	 * first and last points are the given instances, so that the segments
+	 * share the endpoints of the Route or GeoFeature they are read from. The
+	 * Iterator does not support remove().
+	 * @requires 0 <= from < to && the segments from..to-1 are written &&
+	 * 			 start equals point(from) && end equals point(to)
+	 * @return an Iterator over the segments from..to-1.
+	 */
+	Iterator<GeoSegment> segments(int from, int to, GeoPoint start, GeoPoint end) {
+		return new Iterator<GeoSegment>() {
+			private int next_ = from;
+			private GeoPoint p1_ = start;
+
+			public boolean hasNext() {
+				return next_ < to;
+			}
+
+			public GeoSegment next() {
+				if (next_ >= to) {
+					throw new NoSuchElementException();
+				}
+				GeoPoint p2 = (next_ + 1 == to) ? end : point(next_ + 1);
+				GeoSegment gs = new GeoSegment(nameIds_[next_], p1_, p2,
+											   lengths_[next_], headings_[next_]);
+				p1_ = p2;
+				next_++;
+				return gs;
+			}
+		};
+	}
+
+
+	/**
+	 * Returns an unmodifiable List view of the segments from..to-1, in order.
+	 * Elements are materialized when they are read, so reading an element
+	 * twice gives two equal instances; only the first and last points are
+	 * shared, as by segments(from, to, start, end).
+	 * @requires 0 <= from < to && the segments from..to-1 are written &&
+	 * 			 start equals point(from) && end equals point(to)
+	 * @return an unmodifiable List l such that l.get(i) equals segment
+	 * 		   from+i for all 0 <= i < to-from.
+	 */
+	List<GeoSegment> segmentList(int from, int to, GeoPoint start, GeoPoint end) {
+		return new SegmentListView(from, to, start, end);
+	}
+
+
+	/**
+	 * An unmodifiable, random access List view of a range of segments.
+	 */
+	private final class SegmentListView extends AbstractList<GeoSegment> implements RandomAccess {
+
+		private final int from_;
+		private final int to_;
+		private final GeoPoint start_;
+		private final GeoPoint end_;
+
+		SegmentListView(int from, int to, GeoPoint start, GeoPoint end) {
+			from_ = from;
+			to_ = to;
+			start_ = start;
+			end_ = end;
+		}
+
+		public GeoSegment get(int index) {
+			if (index < 0 || index >= to_ - from_) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			}
+			int i = from_ + index;
+			GeoPoint p1 = (i == from_) ? start_ : point(i);
+			GeoPoint p2 = (i + 1 == to_) ? end_ : point(i + 1);
+			return new GeoSegment(nameIds_[i], p1, p2, lengths_[i], headings_[i]);
+		}
+
+		public int size() {
+			return to_ - from_;
+		}
+
+		public Iterator<GeoSegment> iterator() {
+			return segments(from_, to_, start_, end_);
+		}
+	}
+
+
+	/**
+	 * Compares two ranges of segments.
+	 * @requires the segments aFrom..aFrom+count-1 of a and bFrom..bFrom+count-1
+	 * 			 of b are written
+	 * @return true iff for all 0 <= i < count, segment aFrom+i of a equals
+	 * 		   segment bFrom+i of b as defined by GeoSegment.equals.
+	 */
+	static boolean rangeEquals(SegmentColumns a, int aFrom, SegmentColumns b, int bFrom, int count) {
+		if (a == b && aFrom == bFrom) {
+			// Written slots never change, so the ranges are the same segments
+			return true;
+		}
+		for (int i = 0; i < count; i++) {
+			if (a.nameIds_[aFrom + i] != b.nameIds_[bFrom + i]) {
+				return false;
+			}
+		}
+		for (int i = 0; i <= count; i++) {
+			if (a.latitudes_[aFrom + i] != b.latitudes_[bFrom + i] ||
+				a.longitudes_[aFrom + i] != b.longitudes_[bFrom + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (latitudes_.length == nameIds_.length + 1 && longitudes_.length == latitudes_.length) :
+			"Point columns out of sync.";
+		assert (lengths_.length == nameIds_.length && headings_.length == nameIds_.length) :
+			"Segment columns out of sync.";
+		assert (featureLengths_.length == featureStarts_.length &&
+				featureFingerprints_.length == featureStarts_.length) :
+			"Feature columns out of sync.";
+		assert (claimed_.get() >= 0 && claimed_.get() <= nameIds_.length) :
+			"Claimed slots out of bounds.";
+	}
+
+}
@@ -0,0 +1,149 @@
+package homework1;
+
+import java.util.Arrays;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * A SegmentListModel is a ListModel that shows the segments of a
+ * SegmentStore, optionally filtered by a road name prefix and by the point
+ * the segments start at. Segments are read from the store when the list
+ * asks for them; the model holds only the positions of the filtered
+ * segments, and no positions at all when it is not filtered.
+ * <p>
+ * The filters are answered from the indexes of the store: the name prefix
+ * by binary search in its name index, and the start point from its
+ * endpoint index.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   store : SegmentStore    // the segments that may be shown
+ *   prefix : String         // shown segments have a name that starts with prefix, ignoring case
+ *   start : GeoPoint        // if not null, shown segments have p1 = start
+ *   elements : sequence     // the segments of store that pass the filters, as ordered by the store indexes
+ * </pre>
+ */
+public class SegmentListModel extends AbstractListModel<GeoSegment> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final SegmentStore store_;
+	private String prefix_ = "";
+	private GeoPoint start_ = null;
+	private int[] rows_ = null;
+
+
+	// Abstraction Function:
+	// store = store_, prefix = prefix_, start = start_, and
+	// elements = store_.get(rows_[0..rows_.length-1]), or all the segments
+	// of store_ in order if rows_ = null.
+
+	// Representation invariant for every SegmentListModel m:
+	// prefix_ != null
+	// rows_ = null iff prefix_ is empty and start_ = null
+
+
+	/**
+	 * Constructs a new SegmentListModel.
+	 * @requires store != null
+	 * @effects Constructs a new SegmentListModel with no filters, whose
+	 * 			elements are all the segments of store.
+	 */
+	public SegmentListModel(SegmentStore store) {
+		store_ = store;
+		checkRep();
+	}
+
+
+	/**
+	 * Returns the number of segments shown.
+	 * @return the length of this.elements
+	 */
+	public int getSize() {
+		return (rows_ == null) ? store_.size() : rows_.length;
+	}
+
+
+	/**
+	 * Returns a segment shown by this model.
+	 * @requires 0 <= index < getSize()
+	 * @return this.elements[index]
+	 */
+	public GeoSegment getElementAt(int index) {
+		return store_.get((rows_ == null) ? index : rows_[index]);
+	}
+
+
+	/**
+	 * Sets the filters of this model, and notifies its listeners.
+	 * @requires prefix != null
+	 * @modifies this
+	 * @effects sets this.prefix to prefix and this.start to start, and
+	 * 			updates this.elements accordingly.
+	 */
+	public void setFilter(String prefix, GeoPoint start) {
+		checkRep();
+		int oldSize = getSize();
+		prefix_ = prefix;
+		start_ = start;
+		if (start != null) {
+			// Few segments meet at a point, so they are filtered by name directly
+			int[] touching = store_.findByEndpoint(start);
+			int count = 0;
+			for (int index : touching) {
+				if (store_.get(index).getP1().equals(start) && store_.nameStartsWith(index, prefix)) {
+					touching[count++] = index;
+				}
+			}
+			rows_ = Arrays.copyOf(touching, count);
+		}
+		else if (!prefix.isEmpty()) {
+			rows_ = store_.findByNamePrefix(prefix);
+		}
+		else {
+			rows_ = null;
+		}
+		int newSize = getSize();
+		if (newSize < oldSize) {
+			fireIntervalRemoved(this, newSize, oldSize - 1);
+		}
+		else if (newSize > oldSize) {
+			fireIntervalAdded(this, oldSize, newSize - 1);
+		}
+		if (Math.min(oldSize, newSize) > 0) {
+			fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+		}
+		checkRep();
+	}
+
+
+	/**
+	 * Returns the name prefix filter.
+	 * @return this.prefix
+	 */
+	public String getPrefix() {
+		return prefix_;
+	}
+
+
+	/**
+	 * Returns the start point filter.
+	 * @return this.start
+	 */
+	public GeoPoint getStart() {
+		return start_;
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (prefix_ != null) :
+			"Missing prefix.";
+		assert ((rows_ == null) == (prefix_.isEmpty() && start_ == null)) :
+			"Wrong filtered rows.";
+	}
+
+}
@@ -0,0 +1,226 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A SegmentStore is an immutable, indexed collection of GeoSegments. Besides
+ * access by position, it answers two queries without scanning all its
+ * segments:
+ * <ul>
+ * <li>the segments whose name starts with a given prefix, ignoring case,
+ *     from an index of the segments sorted by name;
+ * <li>the segments that have a given endpoint, from an index of the
+ *     endpoints of all segments.
+ * </ul>
+ * <p>
+ * SegmentStore is thread-safe.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   segments : sequence    // the segments of the store, in the order they were given
+ * </pre>
+ */
+public final class SegmentStore {
+
+	private final GeoSegment[] segments_;
+	private final int[] byName_;
+	private final String[] sortedNames_;
+	private final PointIndex points_;
+	private final int[] pointStart_;
+	private final int[] pointSegments_;
+
+
+	// Abstraction Function:
+	// segments = segments_.
+	// byName_ holds the positions of all segments, sorted by name ignoring
+	// case and then by position, and sortedNames_[i] is the name of
+	// segments_[byName_[i]].
+	// points_ numbers the distinct endpoints of all segments, and the
+	// positions of the segments with endpoint id are
+	// pointSegments_[pointStart_[id]..pointStart_[id+1]-1], in increasing order.
+
+	// Representation invariant for every SegmentStore s:
+	// byName_ is a permutation of 0..segments_.length-1
+	// pointStart_.length = points_.size() + 1 and pointStart_ is nondecreasing
+	// pointSegments_.length = pointStart_[points_.size()]
+
+
+	/**
+	 * Constructs a new SegmentStore.
+	 * @requires segments != null && no element of segments is null
+	 * @effects Constructs a new SegmentStore whose segments are the elements
+	 * 			of segments, in iteration order.
+	 */
+	public SegmentStore(Collection<GeoSegment> segments) {
+		this(segments.toArray(new GeoSegment[0]));
+	}
+
+
+	/**
+	 * Constructs a new SegmentStore.
+	 * @requires segments != null && no element of segments is null
+	 * @effects Constructs a new SegmentStore whose segments are the elements
+	 * 			of segments, in order.
+	 */
+	public SegmentStore(GeoSegment[] segments) {
+		segments_ = segments.clone();
+		int n = segments_.length;
+
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> {
+			int byName = String.CASE_INSENSITIVE_ORDER.compare(segments_[a].getName(), segments_[b].getName());
+			return (byName != 0) ? byName : Integer.compare(a, b);
+		});
+		byName_ = new int[n];
+		sortedNames_ = new String[n];
+		for (int i = 0; i < n; i++) {
+			byName_[i] = order[i];
+			sortedNames_[i] = segments_[order[i]].getName();
+		}
+
+		// Endpoints are numbered and counted in one pass, and the segments of
+		// every endpoint are then placed in a compressed array
+		points_ = new PointIndex(n + 1);
+		int[] p1 = new int[n];
+		int[] p2 = new int[n];
+		int[] counts = new int[2 * n + 1];
+		for (int i = 0; i < n; i++) {
+			p1[i] = points_.add(segments_[i].getP1());
+			p2[i] = points_.add(segments_[i].getP2());
+			counts[p1[i]]++;
+			if (p2[i] != p1[i]) {
+				counts[p2[i]]++;
+			}
+		}
+		pointStart_ = new int[points_.size() + 1];
+		for (int id = 0; id < points_.size(); id++) {
+			pointStart_[id + 1] = pointStart_[id] + counts[id];
+		}
+		pointSegments_ = new int[pointStart_[points_.size()]];
+		int[] next = Arrays.copyOf(pointStart_, points_.size());
+		for (int i = 0; i < n; i++) {
+			pointSegments_[next[p1[i]]++] = i;
+			if (p2[i] != p1[i]) {
+				pointSegments_[next[p2[i]]++] = i;
+			}
+		}
+		checkRep();
+	}
+
+
+	/**
+	 * Returns the number of segments in this store.
+	 * @return the length of this.segments
+	 */
+	public int size() {
+		return segments_.length;
+	}
+
+
+	/**
+	 * Returns a segment of this store.
+	 * @requires 0 <= index < size()
+	 * @return this.segments[index]
+	 */
+	public GeoSegment get(int index) {
+		return segments_[index];
+	}
+
+
+	/**
+	 * Returns the segments whose name starts with a prefix, ignoring case.
+	 * The segments are found by binary search in the name index.
+	 * @requires prefix != null
+	 * @return the positions in this.segments of the segments whose name
+	 * 		   starts with prefix, ignoring case, sorted by name and then by
+	 * 		   position.
+	 */
+	public int[] findByNamePrefix(String prefix) {
+		int from = lowerBound(prefix);
+		// The names that start with prefix follow it in the sorted order
+		int lo = from;
+		int hi = sortedNames_.length;
+		while (lo < hi) {
+			int middle = (lo + hi) >>> 1;
+			if (startsWithIgnoreCase(sortedNames_[middle], prefix)) {
+				lo = middle + 1;
+			}
+			else {
+				hi = middle;
+			}
+		}
+		return Arrays.copyOfRange(byName_, from, lo);
+	}
+
+
+	/**
+	 * Returns the segments that have an endpoint.
+	 * @requires gp != null
+	 * @return the positions in this.segments of the segments s such that
+	 * 		   s.p1 = gp or s.p2 = gp, in increasing order.
+	 */
+	public int[] findByEndpoint(GeoPoint gp) {
+		int id = points_.idOf(gp);
+		if (id < 0) {
+			return new int[0];
+		}
+		return Arrays.copyOfRange(pointSegments_, pointStart_[id], pointStart_[id + 1]);
+	}
+
+
+	/**
+	 * Returns whether a segment of this store has a name that starts with a
+	 * prefix, ignoring case.
+	 * @requires 0 <= index < size() && prefix != null
+	 * @return true iff this.segments[index].name starts with prefix,
+	 * 		   ignoring case.
+	 */
+	public boolean nameStartsWith(int index, String prefix) {
+		return startsWithIgnoreCase(segments_[index].getName(), prefix);
+	}
+
+
+	/**
+	 * Returns the first position of the name index whose name is not less
+	 * than prefix, ignoring case.
+	 */
+	private int lowerBound(String prefix) {
+		int lo = 0;
+		int hi = sortedNames_.length;
+		while (lo < hi) {
+			int middle = (lo + hi) >>> 1;
+			if (String.CASE_INSENSITIVE_ORDER.compare(sortedNames_[middle], prefix) < 0) {
+				lo = middle + 1;
+			}
+			else {
+				hi = middle;
+			}
+		}
+		return lo;
+	}
+
+
+	/**
+	 * Returns whether name starts with prefix, ignoring case.
+	 */
+	private static boolean startsWithIgnoreCase(String name, String prefix) {
+		return name.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (byName_.length == segments_.length && sortedNames_.length == segments_.length) :
+			"Wrong name index size.";
+		assert (pointStart_.length == points_.size() + 1 && pointSegments_.length == pointStart_[points_.size()]) :
+			"Wrong endpoint index size.";
+	}
+
+}
@@ -0,0 +1,153 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A ShortestPathTree holds the shortest paths from a root node to the
+ * nodes of a RoadGraph, as computed by Dijkstra's algorithm. Since the
+ * edges of a RoadGraph can be travelled in both directions, it also holds
+ * the shortest paths from every node to the root.
+ * <p>
+ * A ShortestPathTree can be grown again from another root; it keeps its
+ * working arrays between roots. It is mutable and not thread-safe; once
+ * grown it may be read concurrently.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph      // the graph searched
+ *   root : integer         // the root of the tree, or -1 if it was never grown
+ *   distances : sequence   // distances[u] = the length of a shortest path between root and u
+ * </pre>
+ */
+final class ShortestPathTree {
+
+	private final RoadGraph graph_;
+	private final NodeHeap heap_;
+	private final double[] distances_;
+	private final int[] parentEdges_;
+	private final int[] reached_;
+	private int tree_;
+	private int root_ = -1;
+
+
+	// Abstraction Function:
+	// graph = graph_, root = root_, and distances[u] = distances_[u] if
+	// reached_[u] = tree_, and Double.POSITIVE_INFINITY otherwise.
+	// The last edge of the shortest path from root to a reached node u is
+	// parentEdges_[u], or -1 if u = root.
+
+	// Representation invariant for every ShortestPathTree t:
+	// distances_, parentEdges_ and reached_ have graph_.getNodeCount() elements
+
+
+	/**
+	 * Constructs a new ShortestPathTree.
+	 * @requires graph != null
+	 * @effects Constructs a new ShortestPathTree of graph, with root = -1.
+	 */
+	ShortestPathTree(RoadGraph graph) {
+		graph_ = graph;
+		int nodeCount = graph.getNodeCount();
+		heap_ = new NodeHeap(nodeCount);
+		distances_ = new double[nodeCount];
+		parentEdges_ = new int[nodeCount];
+		reached_ = new int[nodeCount];
+	}
+
+
+	/**
+	 * Grows the tree from a root to all the nodes of the graph.
+	 * @requires 0 <= root < this.graph.getNodeCount()
+	 * @modifies this
+	 * @effects sets this.root to root and computes this.distances.
+	 */
+	void grow(int root) {
+		grow(root, null, 0);
+	}
+
+
+	/**
+	 * Grows the tree from a root until a number of target nodes have their
+	 * final distances. The distances of the other nodes are upper bounds.
+	 * @requires 0 <= root < this.graph.getNodeCount() &&
+	 * 			 (isTarget = null || isTarget.length = this.graph.getNodeCount())
+	 * @modifies this
+	 * @effects sets this.root to root and computes this.distances[u] for
+	 * 			all nodes u, or, if isTarget != null, at least for all nodes u
+	 * 			with isTarget[u] once targetCount of them are settled.
+	 */
+	void grow(int root, boolean[] isTarget, int targetCount) {
+		if (++tree_ == Integer.MAX_VALUE) {
+			Arrays.fill(reached_, 0);
+			tree_ = 1;
+		}
+		root_ = root;
+		reached_[root] = tree_;
+		distances_[root] = 0;
+		parentEdges_[root] = -1;
+		heap_.update(root, 0);
+		while (!heap_.isEmpty()) {
+			int u = heap_.poll();
+			if (isTarget != null && isTarget[u] && --targetCount == 0) {
+				break;
+			}
+			double distance = distances_[u];
+			for (int e = graph_.firstEdge(u), end = graph_.endEdge(u); e < end; e++) {
+				int v = graph_.target(e);
+				double candidate = distance + graph_.length(e);
+				if (reached_[v] != tree_ || candidate < distances_[v]) {
+					reached_[v] = tree_;
+					distances_[v] = candidate;
+					parentEdges_[v] = e;
+					heap_.update(v, candidate);
+				}
+			}
+		}
+		heap_.clear();
+		checkRep();
+	}
+
+
+	/**
+	 * Returns the root of the tree.
+	 * @return this.root
+	 */
+	int root() {
+		return root_;
+	}
+
+
+	/**
+	 * Returns the distance between the root and a node.
+	 * @requires 0 <= node < this.graph.getNodeCount()
+	 * @return this.distances[node]
+	 */
+	double distance(int node) {
+		return (reached_[node] == tree_) ? distances_[node] : Double.POSITIVE_INFINITY;
+	}
+
+
+	/**
+	 * Returns the last edge of the shortest path from the root to a node.
+	 * @requires 0 <= node < this.graph.getNodeCount() &&
+	 * 			 this.distances[node] is finite
+	 * @return the last edge of the shortest path from this.root to node, or
+	 * 		   -1 if node = this.root.
+	 */
+	int parentEdge(int node) {
+		return parentEdges_[node];
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		int nodeCount = graph_.getNodeCount();
+		assert (distances_.length == nodeCount && parentEdges_.length == nodeCount
+				&& reached_.length == nodeCount) :
+			"Wrong tree array size.";
+	}
+
+}
@@ -0,0 +1,162 @@
+package homework1;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A StepRouteFormatter is a RouteFormatter that renders every line of
+ * directions from a DirectionStep alone, without the GeoFeature it was
+ * computed from. Routes are therefore rendered without materializing their
+ * GeoFeatures, and DirectionSteps that were stored or sent apart from their
+ * route can be rendered as well.
+ * <p>
+ * Subclasses implement appendStep, and implement computeLine with
+ * appendLine, so that both render the same lines.
+ */
+public abstract class StepRouteFormatter extends RouteFormatter {
+
+  	/**
+     * Renders directions that were computed as DirectionSteps.
+     * @requires steps != null
+     * @param steps the steps to render, as returned by Route.computeSteps.
+     * @return A newline-terminated directions <tt>String</tt> with one line
+     * 		   per step, as rendered by renderStep. In particular,
+     * 		   renderSteps(route.computeSteps(heading)) equals
+     * 		   computeDirections(route, heading).
+     **/
+  	public String renderSteps(List<DirectionStep> steps) {
+  		StringBuilder directions = new StringBuilder();
+  		appendFeatures(directions, null, steps);
+  		return directions.toString();
+  	}
+
+
+  	/**
+     * Writes directions that were computed as DirectionSteps to an
+     * Appendable, line by line.
+     * @requires steps != null && out != null
+     * @param steps the steps to render, as returned by Route.computeSteps.
+   	 * @param out the Appendable (for example, a Writer) to write to.
+     * @modifies out
+     * @effects appends renderSteps(steps) to out.
+     * @throws IOException if out throws an IOException.
+     **/
+  	public void renderSteps(List<DirectionStep> steps, Appendable out) throws IOException {
+  		StringBuilder line = new StringBuilder();
+  		for(DirectionStep step : steps)
+  		{
+  			line.setLength(0);
+  			appendStep(line, step);
+  			line.append('\n');
+  			out.append(line);
+  		}
+  	}
+
+
+  	/**
+     * Renders directions that were computed as DirectionSteps, like
+     * renderSteps(steps), on a fork/join pool. The steps are split into
+     * chunks that are rendered in parallel and concatenated in order. Lists
+     * shorter than PARALLEL_THRESHOLD are rendered sequentially.
+     * <p>
+     * The chunks run in the pool of the calling fork/join task, or in the
+     * common pool when called from any other thread. Since every line
+     * depends only on its own step, appendStep must not depend on the order
+     * in which steps are rendered.
+     * @requires steps != null
+     * @param steps the steps to render, as returned by Route.computeSteps.
+     * @return renderSteps(steps)
+     **/
+  	public String renderStepsParallel(List<DirectionStep> steps) {
+  		return renderParallel(null, steps);
+  	}
+
+
+  	/**
+     * Renders a single DirectionStep as a line of directions.
+     * @requires step != null
+     * @param step the step to render.
+     * @return the line of directions of step, without a terminating newline.
+     **/
+  	public String renderStep(DirectionStep step) {
+  		StringBuilder line = new StringBuilder();
+  		appendStep(line, step);
+  		return line.toString();
+  	}
+
+
+  	/**
+     * Renders directions that were computed as DirectionSteps with several
+     * StepRouteFormatters, in one pass over the steps.
+     * @requires steps != null && formatters != null &&
+     * 			 no element of formatters is null
+     * @param steps the steps to render, as returned by Route.computeSteps.
+   	 * @param formatters the formatters to render the steps with.
+     * @return an array d with d.length = formatters.length, such that
+     * 		   d[i] equals formatters[i].renderSteps(steps).
+     **/
+  	public static String[] renderAllSteps(List<DirectionStep> steps, StepRouteFormatter... formatters) {
+  		StringBuilder[] directions = new StringBuilder[formatters.length];
+  		for(int i = 0; i < formatters.length; i++)
+  		{
+  			directions[i] = new StringBuilder();
+  		}
+  		for(DirectionStep step : steps)
+  		{
+  			for(int i = 0; i < formatters.length; i++)
+  			{
+  				formatters[i].appendStep(directions[i], step);
+  				directions[i].append('\n');
+  			}
+  		}
+  		String[] result = new String[formatters.length];
+  		for(int i = 0; i < formatters.length; i++)
+  		{
+  			result[i] = directions[i].toString();
+  		}
+  		return result;
+  	}
+
+
+  	/**
+     * Appends the line of directions of a single geographic feature, as
+     * rendered by appendStep, to a StringBuilder. Subclasses implement
+     * computeLine with it.
+     * @requires geoFeature != null && out != null
+     * @param out the StringBuilder to append the line to.
+     * @param geoFeature the geographical feature to traverse.
+   	 * @param origHeading the initial heading.
+     * @modifies out
+     * @effects appends the line of DirectionStep.of(geoFeature, origHeading),
+     * 			as rendered by appendStep, to out.
+     */
+  	protected void appendLine(StringBuilder out, GeoFeature geoFeature, double origHeading) {
+  		appendStep(out, DirectionStep.of(geoFeature, origHeading));
+  	}
+
+
+  	/**
+     * Appends the line of directions of a DirectionStep to a StringBuilder.
+     * Every line of directions of this formatter is rendered here.
+     * @requires step != null && out != null
+     * @param out the StringBuilder to append the line to.
+     * @param step the step to render.
+     * @modifies out
+     * @effects appends the line of directions of step, without a
+     * 			terminating newline, to out.
+     */
+  	protected abstract void appendStep(StringBuilder out, DirectionStep step);
+
+
+  	/**
+     * Appends the line of directions of a single GeoFeature of a route, as
+     * rendered by appendStep from its step alone.
+     * @requires out != null && step != null
+     * @modifies out
+     * @effects appends the line of directions of step to out.
+     */
+  	final void appendFeature(StringBuilder out, Route route, int feature, DirectionStep step) {
+  		appendStep(out, step);
+  	}
+
+}
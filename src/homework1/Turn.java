@@ -0,0 +1,106 @@
+package homework1;
+
+/**
+ * A Turn is the maneuver taken when changing from one heading to another,
+ * classified by the angle a from the original heading to the new heading,
+ * measured clockwise in degrees:
+ * <pre>
+ * CONTINUE             if a < 10 or 350 < a
+ * SLIGHT_RIGHT         if 10 <= a < 60
+ * RIGHT                if 60 <= a < 120
+ * SHARP_RIGHT          if 120 <= a < 179
+ * U_TURN               if 179 <= a <= 181
+ * SHARP_LEFT           if 181 < a <= 240
+ * LEFT                 if 240 < a <= 300
+ * SLIGHT_LEFT          if 300 < a <= 350
+ * </pre>
+ */
+public enum Turn {
+
+	CONTINUE("Continue"),
+	SLIGHT_RIGHT("Turn slight right"),
+	RIGHT("Turn right"),
+	SHARP_RIGHT("Turn sharp right"),
+	U_TURN("U-turn"),
+	SHARP_LEFT("Turn sharp left"),
+	LEFT("Turn left"),
+	SLIGHT_LEFT("Turn slight left");
+
+
+	// All bounds of the classification are whole degrees, so an angle is
+	// classified by its integer part and by whether it is whole:
+	// ON_DEGREE[d] is the turn of the angle d, and BETWEEN_DEGREES[d] is the
+	// turn of every angle strictly between d and d+1. Index 360 holds the
+	// turn of an angle that rounded up to 360 when it was normalized.
+	private static final Turn[] ON_DEGREE = new Turn[361];
+	private static final Turn[] BETWEEN_DEGREES = new Turn[361];
+
+	static {
+		for (int d = 0; d <= 360; d++) {
+			ON_DEGREE[d] = classify(d);
+			BETWEEN_DEGREES[d] = classify(d + 0.5);
+		}
+	}
+
+
+	private final String text_;
+
+
+	private Turn(String text) {
+		text_ = text;
+	}
+
+
+	/**
+	 * Returns the English directions of this turn.
+	 * @return the English directions of this turn, such as "Turn left".
+	 */
+	public String getText() {
+		return text_;
+	}
+
+
+	/**
+	 * Returns the turn taken to go from one heading to another.
+	 * @requires 0 <= origHeading < 360 && 0 <= newHeading < 360
+	 * @return the Turn of the angle from origHeading to newHeading.
+	 */
+	public static Turn of(double origHeading, double newHeading) {
+		double angle = newHeading - origHeading;
+		angle = (angle >= 0) ? angle : angle + 360;
+		int degree = (int) angle;
+		return (angle == degree) ? ON_DEGREE[degree] : BETWEEN_DEGREES[degree];
+	}
+
+
+	/**
+	 * Classifies an angle by the bounds of the table in the class comment.
+	 * Used only to fill the lookup tables.
+	 * @requires 0 <= angle <= 360
+	 */
+	private static Turn classify(double angle) {
+		if (angle < 10 || angle > 350) {
+			return CONTINUE;
+		}
+		if (angle < 60) {
+			return SLIGHT_RIGHT;
+		}
+		if (angle < 120) {
+			return RIGHT;
+		}
+		if (angle < 179) {
+			return SHARP_RIGHT;
+		}
+		if (angle <= 181) {
+			return U_TURN;
+		}
+		if (angle <= 240) {
+			return SHARP_LEFT;
+		}
+		if (angle <= 300) {
+			return LEFT;
+		}
+		return SLIGHT_LEFT;
+	}
+
+}
@@ -0,0 +1,255 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A TurnCostPlanner finds the cheapest routes in a RoadGraph when every
+ * turn between consecutive segments is charged a cost by its Turn, as
+ * given by a TurnCosts, in addition to the length of the segments.
+ * <p>
+ * The cost of a turn depends on the segment the route arrives by, so the
+ * search is edge-based: its states are the directed edges of the graph
+ * rather than its nodes, and a node may be passed several times, arriving
+ * by different edges. The turn graph, whose arcs join every edge to the
+ * edges leaving its end, is never built; the cost of a turn is computed
+ * from the headings of the two edges when the search relaxes it. Turn costs
+ * are nonnegative, so the straight-line distance to the destination is
+ * still an admissible A* heuristic.
+ * <p>
+ * A TurnCostPlanner keeps the working arrays of its searches between
+ * queries. It is mutable and not thread-safe; concurrent queries should use
+ * a TurnCostPlanner per thread over a shared RoadGraph.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   graph : RoadGraph        // the graph searched
+ *   turnCosts : TurnCosts    // the costs of turns
+ *   cost : real              // the cost of the route found by the last query, in kilometers
+ *   settled : integer        // number of edges settled by the last query
+ * </pre>
+ * The cost of a route is its length plus the cost of the turn between every
+ * two consecutive segments, and, if an initial heading is given, of the
+ * turn from that heading to the first segment.
+ */
+public class TurnCostPlanner {
+
+	private final RoadGraph graph_;
+	private final TurnCosts turnCosts_;
+	private final NodeHeap heap_;
+	private final double[] costs_;
+	private final int[] parentEdges_;
+	private final int[] reached_;
+	private final int[] settledAt_;
+	private int query_;
+	private int settledCount_;
+	private double cost_;
+
+
+	// Abstraction Function:
+	// graph = graph_, turnCosts = turnCosts_, cost = cost_,
+	// settled = settledCount_.
+	// Within the current query query_, edge e was reached iff
+	// reached_[e] = query_, and then costs_[e] is the cost of the cheapest
+	// route found that ends with e, whose previous edge is parentEdges_[e]
+	// (-1 if e is its first edge). Edge e was settled iff
+	// settledAt_[e] = query_.
+
+	// Representation invariant for every TurnCostPlanner p:
+	// costs_, parentEdges_, reached_ and settledAt_ have graph_.getEdgeCount() elements
+	// query_ >= 0 and no element of reached_ or settledAt_ exceeds query_
+
+
+	/**
+	 * Constructs a new TurnCostPlanner.
+	 * @requires graph != null && turnCosts != null
+	 * @effects Constructs a new TurnCostPlanner that searches graph with
+	 * 			turnCosts, and whose cost is 0.
+	 */
+	public TurnCostPlanner(RoadGraph graph, TurnCosts turnCosts) {
+		graph_ = graph;
+		turnCosts_ = turnCosts;
+		int edgeCount = graph.getEdgeCount();
+		heap_ = new NodeHeap(edgeCount);
+		costs_ = new double[edgeCount];
+		parentEdges_ = new int[edgeCount];
+		reached_ = new int[edgeCount];
+		settledAt_ = new int[edgeCount];
+		checkRep();
+	}
+
+
+	/**
+	 * Finds a cheapest route between two points.
+	 * @requires from != null && to != null
+	 * @modifies this
+	 * @effects sets this.cost to the cost of the route found, or to
+	 * 			Double.POSITIVE_INFINITY if none is found, and this.settled to
+	 * 			the number of edges settled by the search.
+	 * @return a cheapest Route of this.graph from from to to, or null if
+	 * 		   from or to is not a node of this.graph, if from = to, or if
+	 * 		   there is no route between them.
+	 */
+	public Route findRoute(GeoPoint from, GeoPoint to) {
+		return findRoute(from, to, Double.NaN);
+	}
+
+
+	/**
+	 * Finds a cheapest route between two points, starting in a heading. The
+	 * turn from heading to the first segment of the route is charged too,
+	 * as RouteFormatter.computeDirections would describe it.
+	 * @requires from != null && to != null && 0 <= heading < 360
+	 * @modifies this
+	 * @effects sets this.cost to the cost of the route found, or to
+	 * 			Double.POSITIVE_INFINITY if none is found, and this.settled to
+	 * 			the number of edges settled by the search.
+	 * @return a cheapest Route of this.graph from from to to, or null if
+	 * 		   from or to is not a node of this.graph, if from = to, or if
+	 * 		   there is no route between them.
+	 */
+	public Route findRoute(GeoPoint from, GeoPoint to, double heading) {
+		checkRep();
+		int source = graph_.nodeOf(from);
+		int target = graph_.nodeOf(to);
+		cost_ = Double.POSITIVE_INFINITY;
+		settledCount_ = 0;
+		if (source < 0 || target < 0 || source == target) {
+			return null;
+		}
+		int last = search(source, target, heading);
+		if (last < 0) {
+			return null;
+		}
+		cost_ = costs_[last];
+		int count = 0;
+		for (int e = last; e >= 0; e = parentEdges_[e]) {
+			count++;
+		}
+		int[] path = new int[count];
+		for (int e = last; e >= 0; e = parentEdges_[e]) {
+			path[--count] = e;
+		}
+		checkRep();
+		return graph_.buildRoute(path, path.length);
+	}
+
+
+	/**
+	 * Returns the graph searched by this planner.
+	 * @return this.graph
+	 */
+	public RoadGraph getGraph() {
+		return graph_;
+	}
+
+
+	/**
+	 * Returns the costs of turns used by this planner.
+	 * @return this.turnCosts
+	 */
+	public TurnCosts getTurnCosts() {
+		return turnCosts_;
+	}
+
+
+	/**
+	 * Returns the cost of the route found by the last query.
+	 * @return this.cost
+	 */
+	public double getCost() {
+		return cost_;
+	}
+
+
+	/**
+	 * Returns the number of edges settled by the last query, a measure of
+	 * its work.
+	 * @return this.settled
+	 */
+	public int getSettledCount() {
+		return settledCount_;
+	}
+
+
+	/**
+	 * Runs an edge-based A* search between two nodes.
+	 * @requires 0 <= source, target < this.graph.getNodeCount() &&
+	 * 			 source != target
+	 * @modifies this
+	 * @return the last edge of a cheapest route from source to target, or
+	 * 		   -1 if there is none.
+	 */
+	private int search(int source, int target, double heading) {
+		startQuery();
+		for (int e = graph_.firstEdge(source), end = graph_.endEdge(source); e < end; e++) {
+			double cost = graph_.length(e);
+			if (!Double.isNaN(heading)) {
+				cost += turnCosts_.cost(heading, graph_.heading(e));
+			}
+			relax(e, cost, -1, target);
+		}
+		int found = -1;
+		while (!heap_.isEmpty()) {
+			int e = heap_.poll();
+			settledAt_[e] = query_;
+			settledCount_++;
+			int u = graph_.target(e);
+			if (u == target) {
+				found = e;
+				break;
+			}
+			double cost = costs_[e];
+			double arrival = graph_.heading(e);
+			for (int f = graph_.firstEdge(u), end = graph_.endEdge(u); f < end; f++) {
+				if (settledAt_[f] != query_) {
+					double candidate = cost + graph_.length(f) + turnCosts_.cost(arrival, graph_.heading(f));
+					relax(f, candidate, e, target);
+				}
+			}
+		}
+		heap_.clear();
+		return found;
+	}
+
+
+	/**
+	 * Records a route to an edge, if it is cheaper than the route found
+	 * before.
+	 */
+	private void relax(int edge, double cost, int parentEdge, int target) {
+		if (reached_[edge] != query_ || cost < costs_[edge]) {
+			reached_[edge] = query_;
+			costs_[edge] = cost;
+			parentEdges_[edge] = parentEdge;
+			heap_.update(edge, cost + graph_.distance(graph_.target(edge), target));
+		}
+	}
+
+
+	/**
+	 * Starts a new query, invalidating the state of the previous one.
+	 */
+	private void startQuery() {
+		if (query_ == Integer.MAX_VALUE) {
+			Arrays.fill(reached_, 0);
+			Arrays.fill(settledAt_, 0);
+			query_ = 0;
+		}
+		query_++;
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		int edgeCount = graph_.getEdgeCount();
+		assert (costs_.length == edgeCount && parentEdges_.length == edgeCount
+				&& reached_.length == edgeCount && settledAt_.length == edgeCount) :
+			"Wrong search array size.";
+		assert (query_ >= 0) :
+			"Wrong query number.";
+	}
+
+}
@@ -0,0 +1,120 @@
+package homework1;
+
+/**
+ * A TurnCosts assigns a cost to every kind of Turn, used by TurnCostPlanner
+ * to prefer routes with easier maneuvers. Costs are measured in kilometers
+ * of route length: a turn that costs 0.1 is worth a detour of 100 meters.
+ * <p>
+ * TurnCosts is immutable.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   costs : function    // costs(t) = the cost of turn t, in kilometers
+ * </pre>
+ */
+public final class TurnCosts {
+
+	private static final Turn[] TURNS = Turn.values();
+
+	/**
+	 * Costs of 0 for all turns, which give the shortest routes.
+	 */
+	public static final TurnCosts NONE = new TurnCosts(new double[TURNS.length]);
+
+	/**
+	 * Costs that follow the preferences of drivers in right-hand traffic:
+	 * right turns are cheaper than left turns, sharp turns are expensive,
+	 * and U-turns are avoided.
+	 */
+	public static final TurnCosts DRIVING = NONE.withCost(Turn.SLIGHT_RIGHT, 0.01)
+												.withCost(Turn.SLIGHT_LEFT, 0.02)
+												.withCost(Turn.RIGHT, 0.05)
+												.withCost(Turn.LEFT, 0.1)
+												.withCost(Turn.SHARP_RIGHT, 0.15)
+												.withCost(Turn.SHARP_LEFT, 0.2)
+												.withCost(Turn.U_TURN, 1.0);
+
+	private final double[] costs_;
+
+
+	// Abstraction Function:
+	// costs(t) = costs_[t.ordinal()] for every Turn t.
+
+	// Representation invariant for every TurnCosts c:
+	// costs_.length = the number of Turns, and every element of costs_ is
+	// finite and nonnegative
+
+
+	private TurnCosts(double[] costs) {
+		costs_ = costs;
+		checkRep();
+	}
+
+
+	/**
+	 * Returns the cost of a turn.
+	 * @requires turn != null
+	 * @return this.costs(turn)
+	 */
+	public double getCost(Turn turn) {
+		return costs_[turn.ordinal()];
+	}
+
+
+	/**
+	 * Returns a TurnCosts like this one, except for the cost of one turn.
+	 * @requires turn != null
+	 * @return a new TurnCosts c such that c.costs(turn) = cost and
+	 * 		   c.costs(t) = this.costs(t) for every other turn t.
+	 * @throws IllegalArgumentException if cost is negative, infinite or NaN.
+	 */
+	public TurnCosts withCost(Turn turn, double cost) {
+		if (!(cost >= 0 && cost < Double.POSITIVE_INFINITY)) {
+			throw new IllegalArgumentException("Turn cost must be finite and nonnegative: " + cost);
+		}
+		double[] costs = costs_.clone();
+		costs[turn.ordinal()] = cost;
+		return new TurnCosts(costs);
+	}
+
+
+	/**
+	 * Returns the cost of changing from one heading to another.
+	 * @requires 0 <= origHeading < 360 && 0 <= newHeading < 360
+	 * @return this.costs(Turn.of(origHeading, newHeading))
+	 */
+	double cost(double origHeading, double newHeading) {
+		return costs_[Turn.of(origHeading, newHeading).ordinal()];
+	}
+
+
+	/**
+	 * Returns a string representation of this TurnCosts.
+	 * @return a string that lists the cost of every turn.
+	 */
+	public String toString() {
+		StringBuilder out = new StringBuilder("[");
+		for (Turn turn : TURNS) {
+			if (out.length() > 1) {
+				out.append(", ");
+			}
+			out.append(turn).append('=').append(costs_[turn.ordinal()]);
+		}
+		return out.append(']').toString();
+	}
+
+
+	/**
+	 * Checks to see if the representation invariant is being violated.
+	 * @throws AssertionError if representation invariant is violated.
+	 **/
+	private void checkRep() {
+		assert (costs_.length == TURNS.length) :
+			"Wrong number of turn costs.";
+		for (double cost : costs_) {
+			assert (cost >= 0 && cost < Double.POSITIVE_INFINITY) :
+				"Wrong turn cost.";
+		}
+	}
+
+}
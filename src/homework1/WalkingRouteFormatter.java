@@ -24,7 +24,7 @@ package homework1;
  * be reported to the nearest minute. Each line should be terminated by a
  * newline and should include no extra spaces other than those shown above.
  **/
-public class WalkingRouteFormatter extends RouteFormatter {
+public class WalkingRouteFormatter extends StepRouteFormatter {
 
   	/**
      * Computes a single line of a multi-line directions String that
@@ -52,13 +52,26 @@ public class WalkingRouteFormatter extends RouteFormatter {
      * above.
      **/
   	public String computeLine(GeoFeature geoFeature, double origHeading) {
-  		String instructions = "";
-		instructions += getTurnString(origHeading, geoFeature.getStartHeading());
-		instructions += "onto " + geoFeature.getName() + " and walk for ";		
-		double time = geoFeature.getLength() * 20;
-		int Minutes = (int) Math.rint(time);
-		instructions += Minutes;
-		instructions += " minutes.";		
-		return instructions;
+  		StringBuilder instructions = new StringBuilder();
+  		appendLine(instructions, geoFeature, origHeading);
+		return instructions.toString();
+  	}
+
+
+  	/**
+     * Appends the walking directions of a DirectionStep to a StringBuilder,
+     * in the format of computeLine.
+     * @requires step != null && out != null
+     * @param out the StringBuilder to append the line to.
+     * @param step the step to render.
+     * @modifies out
+     * @effects appends the line of directions of step to out.
+     **/
+  	protected void appendStep(StringBuilder out, DirectionStep step) {
+		out.append(step.getTurn().getText());
+		out.append(" onto ").append(step.getName()).append(" and walk for ");
+		int Minutes = (int) Math.rint(step.getDuration());
+		out.append(Minutes);
+		out.append(" minutes.");
   	}
 }
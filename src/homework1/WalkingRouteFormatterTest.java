@@ -1,5 +1,16 @@
 package homework1;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
 public class WalkingRouteFormatterTest {
 	
 	private WalkingRouteFormatter mDirections;
@@ -25,10 +36,134 @@ public class WalkingRouteFormatterTest {
 		else
 			System.out.println("Test not passed correctly");
 	}
+
+
+	public void testStreaming() throws IOException {
+		String directions = mDirections.computeDirections(mShortRoute, 0);
+		StringWriter out = new StringWriter();
+		mDirections.computeDirections(mShortRoute, 0, out);
+		String lines = mDirections.directionLines(mShortRoute, 0)
+								  .collect(Collectors.joining("\n", "", "\n"));
+
+		String[] all = RouteFormatter.computeAllDirections(mShortRoute, 0,
+				mDirections, new DrivingRouteFormatter());
+
+		if (out.toString().equals(directions) && lines.equals(directions)
+				&& all[0].equals(directions)
+				&& all[1].equals(new DrivingRouteFormatter().computeDirections(mShortRoute, 0)))
+			System.out.println("Streaming test passed correctly");
+		else
+			System.out.println("Streaming test not passed correctly");
+	}
+
+
+
+	@SuppressWarnings("unchecked")
+	private static <T extends Throwable> void sneakyThrow(Throwable t) throws T {
+		throw (T) t;
+	}
+
+
+	private static Route zigzagRoute(int segments) {
+		// A zigzag route whose every segment is a feature of its own
+		RouteBuilder builder = new RouteBuilder();
+		GeoPoint end = new GeoPoint(32783098,35014528);
+		for (int i = 0; i < segments; i++) {
+			GeoPoint next = new GeoPoint(end.getLatitude() + 1000, end.getLongitude() + ((i % 2 == 0) ? 1000 : -1000));
+			builder.addSegment(new GeoSegment("Street " + (i % 3), end, next));
+			end = next;
+		}
+		return builder.build();
+	}
+
+
+	public void testParallel() {
+		Route longRoute = zigzagRoute(3 * RouteFormatter.PARALLEL_THRESHOLD);
+
+		if (mDirections.computeDirectionsParallel(longRoute, 0).equals(mDirections.computeDirections(longRoute, 0))
+				&& mDirections.computeDirectionsParallel(mShortRoute, 0).equals(mDirections.computeDirections(mShortRoute, 0)))
+			System.out.println("Parallel test passed correctly");
+		else
+			System.out.println("Parallel test not passed correctly");
+	}
+
+
+	public void testBatch() {
+		List<Route> routes = new ArrayList<Route>();
+		for (int i = 0; i < 200; i++) {
+			routes.add((i % 50 == 0) ? zigzagRoute(RouteFormatter.PARALLEL_THRESHOLD + i) :
+									   (i % 2 == 0) ? mShortRoute : zigzagRoute(i));
+		}
+		BatchStatistics statistics = new BatchStatistics();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		List<String> directions = mDirections.computeDirectionsBatch(routes, 0, pool, statistics);
+		boolean ordered = directions.size() == routes.size()
+				&& mDirections.computeDirectionsBatch(routes, 0, pool, null).equals(directions);
+		long lines = 0;
+		for (int i = 0; ordered && i < routes.size(); i++) {
+			ordered = directions.get(i).equals(mDirections.computeDirections(routes.get(i), 0));
+			lines += routes.get(i).getGeoFeatureList().size();
+		}
+
+		Map<Route, String> delivered = new ConcurrentHashMap<Route, String>();
+		mDirections.computeDirectionsBatch(routes.stream().distinct(), 0, ForkJoinPool.commonPool(),
+										   statistics, delivered::put);
+		boolean called = delivered.size() == new HashSet<Route>(routes).size();
+		for (Map.Entry<Route, String> entry : delivered.entrySet()) {
+			called &= entry.getValue().equals(mDirections.computeDirections(entry.getKey(), 0));
+		}
+
+		boolean wrapped = false;
+		try {
+			mDirections.computeDirectionsBatch(routes.stream(), 0, pool, null,
+											   (route, text) -> sneakyThrow(new IOException("closed")));
+		} catch (CompletionException e) {
+			wrapped = e.getCause() instanceof IOException;
+		}
+		pool.shutdown();
+
+		if (ordered && called && wrapped && statistics.getRouteCount() == routes.size() + delivered.size()
+				&& statistics.getLineCount() >= lines && statistics.getElapsedNanos() > 0)
+			System.out.println("Batch test passed correctly");
+		else
+			System.out.println("Batch test not passed correctly");
+	}
+
+
+
+	public void testIncremental() {
+		DrivingRouteFormatter driving = new DrivingRouteFormatter();
+		IncrementalDirections incremental = new IncrementalDirections(90, mDirections, driving);
+		StringBuilder walkingCopy = new StringBuilder();
+		StringBuilder drivingCopy = new StringBuilder();
+		boolean ok = true;
+		for (GeoSegment gs : zigzagRoute(50).getGeoSegmentList()) {
+			// Repeat names, so that some segments extend the last feature
+			gs = new GeoSegment((gs.getP1().getLatitude() / 3000 % 2 == 0) ? "Odd" : "Even", gs.getP1(), gs.getP2());
+			IncrementalDirections.Delta delta = incremental.advance(gs);
+			walkingCopy.replace(delta.getOffset(0), delta.getOffset(0) + delta.getRemovedLength(0), delta.getText(0));
+			drivingCopy.replace(delta.getOffset(1), delta.getOffset(1) + delta.getRemovedLength(1), delta.getText(1));
+			Route route = incremental.getRoute();
+			ok &= walkingCopy.toString().equals(mDirections.computeDirections(route, 90))
+				&& drivingCopy.toString().equals(driving.computeDirections(route, 90))
+				&& incremental.getDirections(0).equals(walkingCopy.toString())
+				&& delta.getLine() == route.getGeoFeatureList().size() - 1
+				&& route.getFeatureCount() == incremental.getLineCount();
+		}
+
+		if (ok && incremental.getLineCount() < 50)
+			System.out.println("Incremental test passed correctly");
+		else
+			System.out.println("Incremental test not passed correctly");
+	}
   	
   	
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		WalkingRouteFormatterTest directionsTest = new WalkingRouteFormatterTest();
 		directionsTest.test();
+		directionsTest.testStreaming();
+		directionsTest.testParallel();
+		directionsTest.testBatch();
+		directionsTest.testIncremental();
 	}
 }